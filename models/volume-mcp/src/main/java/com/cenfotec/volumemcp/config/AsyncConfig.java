@@ -0,0 +1,27 @@
+package com.cenfotec.volumemcp.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    // One virtual thread per firmware call: blocking HTTP I/O parks the virtual
+    // thread instead of holding a platform thread.
+    @Bean(destroyMethod = "close")
+    public ExecutorService firmwareExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("firmware-", 0).factory());
+    }
+
+    // Bounded fan-out for speaker-wide operations across mixer devices.
+    @Bean(destroyMethod = "close")
+    public ExecutorService deviceFanoutExecutor(@Value("${firmware.fanout.max-parallel:8}") int maxParallel) {
+        return Executors.newFixedThreadPool(maxParallel, Thread.ofVirtual().name("device-fanout-", 0).factory());
+    }
+}
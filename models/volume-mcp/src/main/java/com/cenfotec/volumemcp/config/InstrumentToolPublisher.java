@@ -0,0 +1,106 @@
+package com.cenfotec.volumemcp.config;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.mcp.McpToolUtils;
+import org.springframework.ai.support.ToolCallbacks;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.cenfotec.volumemcp.models.Instrument;
+import com.cenfotec.volumemcp.repository.InstrumentIndex;
+import com.cenfotec.volumemcp.repository.VolumeRepository;
+import com.cenfotec.volumemcp.services.ChannelMapReloadedEvent;
+import com.cenfotec.volumemcp.services.ToolMetrics;
+
+import io.modelcontextprotocol.server.McpSyncServer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Builds the advertised volume tools with the current instrument names in the
+ * descriptions, and re-registers them on the MCP server when the channel map changes
+ * so clients get a tools/list_changed notification instead of needing a restart.
+ * Every tool is timed through {@link ToolMetrics}.
+ */
+@Slf4j
+@Component
+public class InstrumentToolPublisher {
+
+    private static final Set<String> INSTRUMENT_TOOLS = Set.of("setVolume", "setMute", "getStatusChannel", "applyMix");
+
+    private final List<ToolCallback> baseTools;
+    private final ObjectProvider<McpSyncServer> mcpSyncServer;
+
+    public InstrumentToolPublisher(VolumeRepository volumeRepository, ObjectProvider<McpSyncServer> mcpSyncServer,
+                                   ToolMetrics toolMetrics) {
+        this.baseTools = Stream.of(ToolCallbacks.from(volumeRepository))
+                .map(toolMetrics::timed)
+                .toList();
+        this.mcpSyncServer = mcpSyncServer;
+    }
+
+    public List<ToolCallback> tools(InstrumentIndex index) {
+        String instruments = index.getInstruments().stream()
+                .map(Instrument::getName)
+                .collect(Collectors.joining(", "));
+        return baseTools.stream()
+                .map(tool -> INSTRUMENT_TOOLS.contains(tool.getToolDefinition().name())
+                        ? withInstruments(tool, instruments)
+                        : tool)
+                .toList();
+    }
+
+    @EventListener
+    void onChannelMapReloaded(ChannelMapReloadedEvent event) {
+        McpSyncServer server = mcpSyncServer.getIfAvailable();
+        if (server == null) {
+            return;
+        }
+        for (ToolCallback tool : tools(event.index())) {
+            String name = tool.getToolDefinition().name();
+            if (INSTRUMENT_TOOLS.contains(name)) {
+                server.removeTool(name);
+                server.addTool(McpToolUtils.toSyncToolSpecification(tool));
+            }
+        }
+        log.info("Re-published instrument tools {}", INSTRUMENT_TOOLS);
+    }
+
+    private static ToolCallback withInstruments(ToolCallback tool, String instruments) {
+        ToolDefinition base = tool.getToolDefinition();
+        ToolDefinition definition = ToolDefinition.builder()
+                .name(base.name())
+                .description(base.description() + " Available instruments: " + instruments + ".")
+                .inputSchema(base.inputSchema())
+                .build();
+        return new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return definition;
+            }
+
+            @Override
+            public ToolMetadata getToolMetadata() {
+                return tool.getToolMetadata();
+            }
+
+            @Override
+            public String call(String toolInput) {
+                return tool.call(toolInput);
+            }
+
+            @Override
+            public String call(String toolInput, ToolContext toolContext) {
+                return tool.call(toolInput, toolContext);
+            }
+        };
+    }
+}
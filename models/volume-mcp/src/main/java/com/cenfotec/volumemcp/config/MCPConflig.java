@@ -1,7 +1,11 @@
 package com.cenfotec.volumemcp.config;
 
-import com.cenfotec.volumemcp.repository.VolumeRepository;
-import org.springframework.ai.support.ToolCallbacks;
+import com.cenfotec.volumemcp.services.ChannelMapService;
+import com.cenfotec.volumemcp.services.MixerStatePoller;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,8 +16,24 @@ import java.util.List;
 public class MCPConflig {
 
     @Bean
-    List<ToolCallback> volumeTools(VolumeRepository volumeRepository){
-        return List.of(ToolCallbacks.from(volumeRepository));
+    List<ToolCallback> volumeTools(InstrumentToolPublisher toolPublisher, ChannelMapService channelMapService){
+        return toolPublisher.tools(channelMapService.current());
+    }
+
+    // Latest mixer state from the background poller, readable without a tool call
+    @Bean
+    List<McpServerFeatures.SyncResourceSpecification> mixerResources(MixerStatePoller mixerStatePoller, ObjectMapper objectMapper){
+        McpSchema.Resource resource = new McpSchema.Resource("mixer://state", "mixer-state",
+                "Latest known speaker status of every mixer device", "application/json", null);
+        return List.of(new McpServerFeatures.SyncResourceSpecification(resource, (exchange, request) -> {
+            try {
+                String state = objectMapper.writeValueAsString(mixerStatePoller.snapshots());
+                return new McpSchema.ReadResourceResult(List.of(
+                        new McpSchema.TextResourceContents(resource.uri(), resource.mimeType(), state)));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize mixer state", e);
+            }
+        }));
     }
 
 }
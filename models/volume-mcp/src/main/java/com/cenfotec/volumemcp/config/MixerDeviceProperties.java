@@ -0,0 +1,31 @@
+package com.cenfotec.volumemcp.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Mixer devices driven by this server. Without any {@code firmware.devices[n]}
+ * entries a single device at {@code firmware.base-url} owns every channel.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "firmware")
+public class MixerDeviceProperties {
+
+    private String baseUrl = "http://192.168.0.4/";
+    private List<Device> devices = new ArrayList<>();
+
+    @Data
+    public static class Device {
+        private String name;
+        private String baseUrl;
+        private String room;
+        private int firstChannel = 0;
+        private int channelCount = Integer.MAX_VALUE;
+    }
+}
@@ -1,18 +1,112 @@
 package com.cenfotec.volumemcp.config;
 
+import java.io.IOException;
+import java.time.Duration;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import com.cenfotec.volumemcp.services.FirmwareCircuitBreaker;
+import com.cenfotec.volumemcp.services.FirmwareCircuitBreakers;
+
+/**
+ * HTTP client used to talk to the mixer firmware.
+ * <p>
+ * {@code firmware.http.client=simple} (default) opens a new connection per call,
+ * {@code firmware.http.client=pooled} keeps connections alive in a bounded pool.
+ */
 @Configuration
 public class RestTemplateConfig {
 
+    static final int CONNECT_TIMEOUT_MS = 2000; // wait 2 seconds to connect
+    static final int READ_TIMEOUT_MS = 5000;    // wait 5 seconds for the response
+
     @Bean
-    public RestTemplate restTemplate() {
+    public RestTemplate restTemplate(ClientHttpRequestFactory firmwareRequestFactory,
+                                     FirmwareCircuitBreakers circuitBreakers) {
+        RestTemplate restTemplate = new RestTemplate(firmwareRequestFactory);
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            FirmwareCircuitBreaker circuitBreaker = circuitBreakers.forHost(request.getURI().getAuthority());
+            if (!circuitBreaker.tryAcquire()) {
+                throw new IOException("Circuit open, mixer device unavailable");
+            }
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                // a device answering 5xx is as unhealthy as one that does not answer
+                if (response.getStatusCode().is5xxServerError()) {
+                    circuitBreaker.onFailure();
+                } else {
+                    circuitBreaker.onSuccess();
+                }
+                return response;
+            } catch (IOException | RuntimeException e) {
+                circuitBreaker.onFailure();
+                throw e;
+            }
+        });
+        return restTemplate;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "firmware.http.client", havingValue = "simple", matchIfMissing = true)
+    public ClientHttpRequestFactory simpleRequestFactory() {
         SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(2000); // wait 2 seconds to connect
-        factory.setReadTimeout(5000);    // wait 5 seconds to connect
-        return new RestTemplate(factory);
+        factory.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        factory.setReadTimeout(READ_TIMEOUT_MS);
+        return factory;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "firmware.http.client", havingValue = "pooled")
+    public PoolingHttpClientConnectionManager firmwareConnectionManager(
+            @Value("${firmware.http.pool.max-per-route:4}") int maxPerRoute,
+            @Value("${firmware.http.pool.max-total:16}") int maxTotal) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnPerRoute(maxPerRoute)
+                .setMaxConnTotal(maxTotal)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(CONNECT_TIMEOUT_MS))
+                        .setSocketTimeout(Timeout.ofMilliseconds(READ_TIMEOUT_MS))
+                        // the ESP32 drops idle sockets silently, re-check them before reuse
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "firmware.http.client", havingValue = "pooled")
+    public CloseableHttpClient firmwareHttpClient(
+            PoolingHttpClientConnectionManager firmwareConnectionManager,
+            @Value("${firmware.http.pool.idle-timeout:30s}") Duration idleTimeout) {
+        return HttpClients.custom()
+                .setConnectionManager(firmwareConnectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeout.toMillis()))
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "firmware.http.client", havingValue = "pooled")
+    public ClientHttpRequestFactory pooledRequestFactory(
+            CloseableHttpClient firmwareHttpClient,
+            @Value("${firmware.http.pool.acquire-timeout:1s}") Duration acquireTimeout) {
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(firmwareHttpClient);
+        factory.setConnectionRequestTimeout(acquireTimeout);
+        factory.setReadTimeout(READ_TIMEOUT_MS);
+        return factory;
     }
 }
@@ -0,0 +1,92 @@
+package com.cenfotec.volumemcp.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.cenfotec.volumemcp.models.CircuitBreakerStatus;
+import com.cenfotec.volumemcp.models.CoalescingStats;
+import com.cenfotec.volumemcp.models.FirmwarePoolStatus;
+import com.cenfotec.volumemcp.models.MixerCacheStats;
+import com.cenfotec.volumemcp.models.MixerDevice;
+import com.cenfotec.volumemcp.services.CoalescingWriteQueue;
+import com.cenfotec.volumemcp.services.FirmwareCircuitBreaker;
+import com.cenfotec.volumemcp.services.FirmwareCircuitBreakers;
+import com.cenfotec.volumemcp.services.MixerDeviceRegistry;
+import com.cenfotec.volumemcp.services.MixerStateCache;
+
+@RestController
+@RequestMapping("/firmware")
+public class FirmwareController {
+
+    private final ObjectProvider<PoolingHttpClientConnectionManager> connectionManager;
+    private final CoalescingWriteQueue writeQueue;
+    private final MixerStateCache mixerStateCache;
+    private final FirmwareCircuitBreakers circuitBreakers;
+    private final MixerDeviceRegistry deviceRegistry;
+
+    public FirmwareController(ObjectProvider<PoolingHttpClientConnectionManager> connectionManager,
+                              CoalescingWriteQueue writeQueue,
+                              MixerStateCache mixerStateCache,
+                              FirmwareCircuitBreakers circuitBreakers,
+                              MixerDeviceRegistry deviceRegistry) {
+        this.connectionManager = connectionManager;
+        this.writeQueue = writeQueue;
+        this.mixerStateCache = mixerStateCache;
+        this.circuitBreakers = circuitBreakers;
+        this.deviceRegistry = deviceRegistry;
+    }
+
+    /**
+     * Breaker state per device; 503 once every device is open.
+     */
+    @GetMapping("/health")
+    ResponseEntity<Map<String, CircuitBreakerStatus>> health() {
+        Map<String, CircuitBreakerStatus> statuses = new LinkedHashMap<>();
+        boolean allOpen = true;
+        for (MixerDevice device : deviceRegistry.getDevices()) {
+            FirmwareCircuitBreaker circuitBreaker = circuitBreakers.forDevice(device);
+            statuses.put(device.name(), circuitBreaker.getStatus());
+            allOpen &= circuitBreaker.getState() == FirmwareCircuitBreaker.State.OPEN;
+        }
+        if (allOpen) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(statuses);
+        }
+        return ResponseEntity.ok(statuses);
+    }
+
+    @GetMapping("/pool")
+    FirmwarePoolStatus pool() {
+        PoolingHttpClientConnectionManager manager = connectionManager.getIfAvailable();
+        if (manager == null) {
+            return new FirmwarePoolStatus("simple", 0, 0, 0, 0);
+        }
+        PoolStats stats = manager.getTotalStats();
+        return new FirmwarePoolStatus("pooled", stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+    }
+
+    @GetMapping("/coalescing")
+    CoalescingStats coalescing() {
+        return writeQueue.getStats();
+    }
+
+    @GetMapping("/cache")
+    MixerCacheStats cache() {
+        return mixerStateCache.getStats();
+    }
+
+    @DeleteMapping("/cache")
+    ResponseEntity<Void> clearCache() {
+        mixerStateCache.invalidateAll();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.cenfotec.volumemcp.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.cenfotec.volumemcp.models.MixerSnapshot;
+import com.cenfotec.volumemcp.services.MixerStatePoller;
+
+@RestController
+@RequestMapping("/mixer/state")
+public class MixerStateController {
+
+    private final MixerStatePoller mixerStatePoller;
+
+    public MixerStateController(MixerStatePoller mixerStatePoller) {
+        this.mixerStatePoller = mixerStatePoller;
+    }
+
+    @GetMapping
+    Collection<MixerSnapshot> state() {
+        return mixerStatePoller.snapshots();
+    }
+
+    /**
+     * Sends the current snapshots as {@code snapshot} events, then every change as a {@code delta} event.
+     */
+    @GetMapping("/stream")
+    SseEmitter stream() {
+        SseEmitter emitter = new SseEmitter(0L);
+        Runnable unsubscribe = mixerStatePoller.subscribe(
+                snapshot -> send(emitter, SseEmitter.event().name("snapshot").data(snapshot)),
+                delta -> send(emitter, SseEmitter.event().name("delta").id(delta.device() + ":" + delta.version()).data(delta)));
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        return emitter;
+    }
+
+    private static void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.cenfotec.volumemcp.models;
+
+import org.springframework.ai.tool.annotation.ToolParam;
+
+public record ChannelChange(
+        @ToolParam(description = "Name of the instrument, e.g. guitarra, voz, bajo, bateria") String instrument,
+        @ToolParam(description = "New volume of the channel, omit to keep the current volume", required = false) Integer volume,
+        @ToolParam(description = "New mute state of the channel, omit to keep the current state", required = false) Boolean mute) {
+}
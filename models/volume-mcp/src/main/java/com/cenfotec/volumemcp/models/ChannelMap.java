@@ -0,0 +1,11 @@
+package com.cenfotec.volumemcp.models;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contents of the channel map file: instruments with their channel, plus synonyms
+ * pointing at instrument names.
+ */
+public record ChannelMap(List<Instrument> instruments, Map<String, String> synonyms) {
+}
@@ -0,0 +1,4 @@
+package com.cenfotec.volumemcp.models;
+
+public record CircuitBreakerStatus(String state, float failureRate, int bufferedCalls) {
+}
@@ -0,0 +1,4 @@
+package com.cenfotec.volumemcp.models;
+
+public record CoalescingStats(long submitted, long sent, long collapsed) {
+}
@@ -0,0 +1,4 @@
+package com.cenfotec.volumemcp.models;
+
+public record FirmwarePoolStatus(String mode, int leased, int idle, int pending, int max) {
+}
@@ -0,0 +1,4 @@
+package com.cenfotec.volumemcp.models;
+
+public record MixerCacheStats(long hits, long misses, long invalidations, int entries) {
+}
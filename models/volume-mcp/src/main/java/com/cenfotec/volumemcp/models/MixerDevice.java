@@ -0,0 +1,16 @@
+package com.cenfotec.volumemcp.models;
+
+/**
+ * A mixer firmware instance. It owns the global channels
+ * {@code firstChannel .. firstChannel + channelCount - 1}, which it knows locally as 0..n.
+ */
+public record MixerDevice(String name, String baseUrl, String room, int firstChannel, int channelCount) {
+
+    public boolean owns(int channel) {
+        return channel >= firstChannel && channel - firstChannel < channelCount;
+    }
+
+    public int localChannel(int channel) {
+        return channel - firstChannel;
+    }
+}
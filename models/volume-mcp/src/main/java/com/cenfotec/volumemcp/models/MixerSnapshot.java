@@ -0,0 +1,10 @@
+package com.cenfotec.volumemcp.models;
+
+import java.time.Instant;
+
+/**
+ * Last polled {@code /speakerStatus} of one device. {@code version} grows with every
+ * change; {@code generation} is the cache generation the poll started in.
+ */
+public record MixerSnapshot(String device, long version, long generation, String body, Instant updatedAt) {
+}
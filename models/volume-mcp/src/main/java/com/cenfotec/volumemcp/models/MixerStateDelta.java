@@ -0,0 +1,10 @@
+package com.cenfotec.volumemcp.models;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Change of one device's state: the changed fields when the status is a JSON object,
+ * otherwise the whole new status.
+ */
+public record MixerStateDelta(String device, long version, JsonNode changes) {
+}
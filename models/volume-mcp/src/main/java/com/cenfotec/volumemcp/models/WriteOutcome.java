@@ -0,0 +1,15 @@
+package com.cenfotec.volumemcp.models;
+
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Result of a queued channel write. When a newer write to the same channel replaced it before it
+ * was sent, {@code supersededBy} is the value that was sent instead and {@code response} is the
+ * firmware's answer to that write.
+ */
+public record WriteOutcome(ResponseEntity<String> response, Object supersededBy) {
+
+    public boolean superseded() {
+        return supersededBy != null;
+    }
+}
@@ -0,0 +1,124 @@
+package com.cenfotec.volumemcp.repository;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import com.cenfotec.volumemcp.models.Instrument;
+
+/**
+ * Immutable lookup from normalized instrument names and synonyms to {@link Instrument}.
+ * <p>
+ * Exact matches are a single hash lookup. Misspelled names fall back to the closest
+ * indexed name within a small edit distance, as long as that match is unambiguous.
+ */
+public final class InstrumentIndex {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}");
+
+    private final List<Instrument> instruments;
+    private final Map<String, Instrument> byName;
+    private final String[] names;
+
+    public InstrumentIndex(List<Instrument> instruments, Map<String, String> synonyms) {
+        Map<String, Instrument> index = new HashMap<>();
+        for (Instrument instrument : instruments) {
+            index.put(normalize(instrument.getName()), instrument);
+        }
+        synonyms.forEach((synonym, name) -> {
+            Instrument instrument = index.get(normalize(name));
+            if (instrument != null) {
+                index.putIfAbsent(normalize(synonym), instrument);
+            }
+        });
+        this.instruments = List.copyOf(instruments);
+        this.byName = Map.copyOf(index);
+        this.names = byName.keySet().toArray(String[]::new);
+    }
+
+    public List<Instrument> getInstruments() {
+        return instruments;
+    }
+
+    public Optional<Instrument> find(String name) {
+        String normalized = normalize(name);
+        Instrument exact = byName.get(normalized);
+        if (exact != null) {
+            return Optional.of(exact);
+        }
+        return Optional.ofNullable(closest(normalized));
+    }
+
+    static String normalize(String input) {
+        if (input == null) return "";
+        String lower = input.trim().toLowerCase();
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 0x7F) {
+                return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return lower;
+    }
+
+    private Instrument closest(String normalized) {
+        // short words are too easy to confuse: "voz" is one edit away from "vos" but also from "luz"
+        int maxDistance = normalized.length() <= 3 ? 0 : normalized.length() <= 6 ? 1 : 2;
+        if (maxDistance == 0) {
+            return null;
+        }
+
+        Instrument best = null;
+        int bestDistance = maxDistance + 1;
+        boolean ambiguous = false;
+        for (String candidate : names) {
+            int distance = boundedDistance(normalized, candidate, maxDistance);
+            if (distance < bestDistance) {
+                best = byName.get(candidate);
+                bestDistance = distance;
+                ambiguous = false;
+            } else if (distance == bestDistance && byName.get(candidate) != best) {
+                ambiguous = true;
+            }
+        }
+        return ambiguous ? null : best;
+    }
+
+    /**
+     * Optimal string alignment distance, or {@code max + 1} as soon as it is known to exceed {@code max}.
+     */
+    static int boundedDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
@@ -1,17 +1,35 @@
 package com.cenfotec.volumemcp.repository;
 
 import java.io.FileNotFoundException;
-import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import com.cenfotec.volumemcp.models.ChannelChange;
 import com.cenfotec.volumemcp.models.Instrument;
+import com.cenfotec.volumemcp.models.MixerDevice;
+import com.cenfotec.volumemcp.models.MixerSnapshot;
+import com.cenfotec.volumemcp.models.WriteOutcome;
+import com.cenfotec.volumemcp.services.ChannelMapService;
+import com.cenfotec.volumemcp.services.CoalescingWriteQueue;
+import com.cenfotec.volumemcp.services.MixerDeviceRegistry;
+import com.cenfotec.volumemcp.services.MixerStateCache;
+import com.cenfotec.volumemcp.services.MixerStatePoller;
 import com.cenfotec.volumemcp.services.RestTemplateService;
 
 import lombok.extern.slf4j.Slf4j;
@@ -23,43 +41,112 @@ public class VolumeRepository {
     @Autowired
     private RestTemplateService restTemplateService;
 
+    @Autowired
+    private CoalescingWriteQueue writeQueue;
+
+    @Autowired
+    private MixerStateCache mixerStateCache;
+
+    @Autowired
+    private MixerDeviceRegistry deviceRegistry;
+
+    @Autowired
+    private ChannelMapService channelMapService;
+
+    @Autowired
+    private MixerStatePoller mixerStatePoller;
+
+    @Autowired
+    @Qualifier("deviceFanoutExecutor")
+    private ExecutorService deviceFanoutExecutor;
+
+    private static final String ROOM_DESCRIPTION = "Optional room or stage name to limit the action to the mixers of that room; omit to act on every mixer";
+
     /*** Helpers ***/
-    private final List<Instrument> instruments = List.of(
-            new Instrument("guitarra", 0, false),
-            new Instrument("voz", 1, false),
-            new Instrument("bajo", 2, false),
-            new Instrument("bateria", 3, false)
-    );
-
-    private final Map<String, String> synonyms = Map.of(
-            "guitar", "guitarra",
-            "drums", "bateria",
-            "bass", "bajo",
-            "voice", "voz",
-            "vocals", "voz",
-            "cantante", "voz"
-    );
-
-    private String normalize(String input) {
-        if (input == null) return "";
-        return Normalizer.normalize(input.trim().toLowerCase(), Normalizer.Form.NFD)
-                .replaceAll("\\p{M}", "");
+    private Instrument findInstrumentByName(String idInstrument) throws FileNotFoundException {
+        return channelMapService.current().find(idInstrument)
+                .orElseThrow(() -> new FileNotFoundException("No instrument with id " + idInstrument));
     }
 
-    private Instrument findInstrumentByName(String idInstrument) throws FileNotFoundException {
-        String normalized = normalize(idInstrument);
-        String finalNormalized = synonyms.getOrDefault(normalized, normalized);
+    /**
+     * Answer for an instrument whose channel no mixer device owns; the write is not attempted.
+     */
+    private ResponseEntity<String> noDevice(Instrument instrument) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(noDeviceMessage(instrument));
+    }
 
-        return instruments.stream()
-                .filter(instr -> normalize(instr.getName()).equals(finalNormalized))
-                .findFirst()
-                .orElseThrow(() -> new FileNotFoundException("No instrument with id " + idInstrument));
+    private String noDeviceMessage(Instrument instrument) {
+        return String.format("No mixer device owns channel %d of instrument '%s'", instrument.getChannel(), instrument.getName());
+    }
+
+    private String describe(ChannelChange change) {
+        List<String> parts = new ArrayList<>();
+        if (change.volume() != null) parts.add("volume set to " + change.volume());
+        if (change.mute() != null) parts.add("mute set to " + change.mute());
+        return parts.isEmpty() ? "no changes" : String.join(", ", parts);
+    }
+
+    /**
+     * Like {@link #describe(ChannelChange)}, naming the value sent instead of a write that a newer one replaced.
+     */
+    private String describe(ChannelChange change, WriteOutcome volume, WriteOutcome mute) {
+        List<String> parts = new ArrayList<>();
+        if (change.volume() != null) parts.add(describe("volume", change.volume(), volume));
+        if (change.mute() != null) parts.add(describe("mute", change.mute(), mute));
+        return parts.isEmpty() ? "no changes" : String.join(", ", parts);
+    }
+
+    private static String describe(String setting, Object value, WriteOutcome outcome) {
+        return outcome.superseded()
+                ? String.format("%s %s superseded by a newer write of %s", setting, value, outcome.supersededBy())
+                : String.format("%s set to %s", setting, value);
+    }
+
+    private CompletableFuture<String> applyChange(Instrument instrument, ChannelChange change) {
+        CompletableFuture<WriteOutcome> volume = change.volume() == null
+                ? CompletableFuture.completedFuture(null)
+                : writeQueue.setVolume(instrument.getChannel(), change.volume());
+        CompletableFuture<WriteOutcome> mute = change.mute() == null
+                ? CompletableFuture.completedFuture(null)
+                : writeQueue.setMute(instrument.getChannel(), change.mute());
+
+        return volume.thenCombine(mute, (volumeOutcome, muteOutcome) -> Stream.of(volumeOutcome, muteOutcome)
+                        .filter(outcome -> outcome != null && !outcome.response().getStatusCode().is2xxSuccessful())
+                        .findFirst()
+                        .map(outcome -> String.format("%s: remote service error: %s", instrument.getName(), outcome.response().getBody()))
+                        .orElse(String.format("%s: %s", instrument.getName(), describe(change, volumeOutcome, muteOutcome))))
+                .exceptionally(e -> {
+                    log.warn("Could not connect to remote device: {}", e.getMessage());
+                    return String.format("%s: %s (simulated - device offline)", instrument.getName(), describe(change));
+                });
+    }
+
+    /**
+     * Runs a speaker-wide call on every device of the room (all devices when no room
+     * is given) in parallel. A single device answers as before; several devices
+     * answer with one line per device.
+     */
+    private ResponseEntity<String> acrossDevices(String room, Function<MixerDevice, ResponseEntity<String>> call) {
+        List<MixerDevice> devices = deviceRegistry.inRoom(room);
+        if (devices.isEmpty()) {
+            return ResponseEntity.ok(String.format("No mixer device found in room '%s'", room));
+        }
+        if (devices.size() == 1) {
+            return call.apply(devices.get(0));
+        }
+
+        Map<MixerDevice, CompletableFuture<ResponseEntity<String>>> results = new LinkedHashMap<>();
+        devices.forEach(device -> results.put(device,
+                CompletableFuture.supplyAsync(() -> call.apply(device), deviceFanoutExecutor)));
+        return ResponseEntity.ok(results.entrySet().stream()
+                .map(entry -> entry.getKey().name() + ": " + entry.getValue().join().getBody())
+                .collect(Collectors.joining("\n")));
     }
 
     /*** Tools ***/
     @Tool(description = "Gets the list of available instruments")
     public List<String> getAvailableInstruments() {
-        return instruments.stream()
+        return channelMapService.current().getInstruments().stream()
                 .map(Instrument::getName)
                 .collect(Collectors.toList());
     }
@@ -68,11 +155,16 @@ public class VolumeRepository {
     ResponseEntity<String> setVolume(String idInstrument, Integer value) throws FileNotFoundException {
         Instrument instrument = findInstrumentByName(idInstrument);
         log.info("Setting {} to volume {}", instrument.getName(), value);
+        if (deviceRegistry.owner(instrument.getChannel()).isEmpty()) {
+            return noDevice(instrument);
+        }
 
         try {
-            ResponseEntity<String> response = restTemplateService.setVolume(value, instrument.getChannel());
+            WriteOutcome outcome = writeQueue.setVolume(instrument.getChannel(), value).join();
+            ResponseEntity<String> response = outcome.response();
             if (response.getStatusCode().is2xxSuccessful()) {
-                return ResponseEntity.ok(String.format("Instrument '%s' volume set to %d", instrument.getName(), value));
+                mixerStateCache.invalidateChannel(instrument.getChannel());
+                return ResponseEntity.ok(String.format("Instrument '%s' %s", instrument.getName(), describe("volume", value, outcome)));
             } else {
                 return ResponseEntity.status(response.getStatusCode())
                         .body("Remote service error: " + response.getBody());
@@ -87,11 +179,16 @@ public class VolumeRepository {
     ResponseEntity<String> setMute(String idInstrument, Boolean mute) throws FileNotFoundException {
         Instrument instrument = findInstrumentByName(idInstrument);
         log.info("Setting mute={} for instrument={} channel={}", mute, instrument.getName(), instrument.getChannel());
+        if (deviceRegistry.owner(instrument.getChannel()).isEmpty()) {
+            return noDevice(instrument);
+        }
 
         try {
-            ResponseEntity<String> response = restTemplateService.setMute(instrument.getChannel(), mute);
+            WriteOutcome outcome = writeQueue.setMute(instrument.getChannel(), mute).join();
+            ResponseEntity<String> response = outcome.response();
             if (response.getStatusCode().is2xxSuccessful()) {
-                return ResponseEntity.ok(String.format("Channel '%s' mute set to %s", instrument.getChannel(), mute));
+                mixerStateCache.invalidateChannel(instrument.getChannel());
+                return ResponseEntity.ok(String.format("Channel '%s' %s", instrument.getChannel(), describe("mute", mute, outcome)));
             } else {
                 return ResponseEntity.status(response.getStatusCode())
                         .body("Remote service error: " + response.getBody());
@@ -102,49 +199,132 @@ public class VolumeRepository {
         }
     }
 
+    @Tool(description = "Applies volume and/or mute changes to several instruments at once. Each change has the name of the instrument and an optional new volume and mute state. Prefer this tool over several setVolume or setMute calls when the user asks to change more than one instrument.")
+    ResponseEntity<String> applyMix(List<ChannelChange> changes) {
+        log.info("Applying mix with {} changes", changes.size());
+
+        // a list, not a map: the model may send the same change twice and each one gets its line
+        List<ResolvedChange> resolved = new ArrayList<>();
+        List<String> unknown = new ArrayList<>();
+        for (ChannelChange change : changes) {
+            try {
+                Instrument instrument = findInstrumentByName(change.instrument());
+                if (deviceRegistry.owner(instrument.getChannel()).isEmpty()) {
+                    unknown.add(noDeviceMessage(instrument));
+                } else {
+                    resolved.add(new ResolvedChange(change, instrument));
+                }
+            } catch (FileNotFoundException e) {
+                unknown.add(String.format("%s: %s", change.instrument(), e.getMessage()));
+            }
+        }
+
+        List<String> results = new ArrayList<>();
+        if (restTemplateService.supportsMixRoute()) {
+            // one POST /mix per device, devices in parallel
+            Map<MixerDevice, List<Map<String, Object>>> commands = new LinkedHashMap<>();
+            for (ResolvedChange resolvedChange : resolved) {
+                ChannelChange change = resolvedChange.change();
+                int channel = resolvedChange.instrument().getChannel();
+                MixerDevice device = deviceRegistry.forChannel(channel);
+                Map<String, Object> command = new LinkedHashMap<>();
+                command.put("channel", device.localChannel(channel));
+                if (change.volume() != null) command.put("value", change.volume());
+                if (change.mute() != null) command.put("mute", change.mute());
+                commands.computeIfAbsent(device, ignored -> new ArrayList<>()).add(command);
+            }
+
+            Map<MixerDevice, CompletableFuture<String>> outcomes = new LinkedHashMap<>();
+            commands.forEach((device, deviceCommands) -> outcomes.put(device, CompletableFuture.supplyAsync(() -> {
+                try {
+                    ResponseEntity<String> response = restTemplateService.applyMix(device, deviceCommands);
+                    return response.getStatusCode().is2xxSuccessful()
+                            ? ""
+                            : " (remote service error: " + response.getBody() + ")";
+                } catch (Exception e) {
+                    log.warn("Could not connect to remote device {}: {}", device.name(), e.getMessage());
+                    return " (simulated - device offline)";
+                }
+            }, deviceFanoutExecutor)));
+
+            for (ResolvedChange resolvedChange : resolved) {
+                Instrument instrument = resolvedChange.instrument();
+                results.add(String.format("%s: %s%s", instrument.getName(), describe(resolvedChange.change()),
+                        outcomes.get(deviceRegistry.forChannel(instrument.getChannel())).join()));
+            }
+        } else {
+            List<CompletableFuture<String>> pending = new ArrayList<>();
+            resolved.forEach(resolvedChange -> pending.add(applyChange(resolvedChange.instrument(), resolvedChange.change())));
+            pending.forEach(result -> results.add(result.join()));
+        }
+        resolved.forEach(resolvedChange -> mixerStateCache.invalidateChannel(resolvedChange.instrument().getChannel()));
+        results.addAll(unknown);
+
+        return ResponseEntity.ok(String.join("\n", results));
+    }
+
     @Tool(description = "Mutes and unmutes all speaker channels at once. This tool silences or unmutes every available channel simultaneously and does not require specifying a channel number.")
-    ResponseEntity<String> setMuteSpeaker(Boolean mute) {
+    ResponseEntity<String> setMuteSpeaker(Boolean mute,
+            @ToolParam(description = ROOM_DESCRIPTION, required = false) String room) {
         log.info("Muting all speaker channels at once");
 
-        try {
-            ResponseEntity<String> response = restTemplateService.setMuteSpeaker(mute);
-            if (response.getStatusCode().is2xxSuccessful()) {
-                return ResponseEntity.ok("Muted all available channels");
-            } else {
-                return ResponseEntity.status(response.getStatusCode())
-                        .body("Remote service error: " + response.getBody());
+        return acrossDevices(room, device -> {
+            try {
+                ResponseEntity<String> response = restTemplateService.setMuteSpeaker(device, mute);
+                if (response.getStatusCode().is2xxSuccessful()) {
+                    mixerStateCache.invalidateAll();
+                    return ResponseEntity.ok("Muted all available channels");
+                } else {
+                    return ResponseEntity.status(response.getStatusCode())
+                            .body("Remote service error: " + response.getBody());
+                }
+            } catch (Exception e) {
+                log.warn("Could not connect to remote device: {}", e.getMessage());
+                return ResponseEntity.ok("Set all channels to mute (simulated - device offline)");
             }
-        } catch (Exception e) {
-            log.warn("Could not connect to remote device: {}", e.getMessage());
-            return ResponseEntity.ok("Set all channels to mute (simulated - device offline)");
-        }
+        });
     }
 
     @Tool(description = "Gets the current overall volume of the speaker. This tool does not require any additional input and will return the speaker's current volume level.")
-    ResponseEntity<String> getSpeakerStatus() {
+    ResponseEntity<String> getSpeakerStatus(
+            @ToolParam(description = "Set to true to read the device again instead of using the recently cached value", required = false) Boolean refresh,
+            @ToolParam(description = ROOM_DESCRIPTION, required = false) String room) {
         log.info("Getting speaker status");
-        try {
-            ResponseEntity<String> response = restTemplateService.getSpeakerStatus();
 
-            if (response.getStatusCode().is2xxSuccessful()) {
-                return ResponseEntity.ok(response.getBody());
-            } else {
-                return ResponseEntity.status(response.getStatusCode())
-                        .body("Remote service error: " + response.getBody());
+        return acrossDevices(room, device -> {
+            if (!Boolean.TRUE.equals(refresh)) {
+                Optional<MixerSnapshot> snapshot = mixerStatePoller.latest(device);
+                if (snapshot.isPresent()) {
+                    return ResponseEntity.ok(snapshot.get().body());
+                }
             }
-        } catch (Exception e) {
-            log.warn("Could not connect to remote device: {}", e.getMessage());
-            return ResponseEntity.ok("Get the current value of the speaker (simulated - device offline)");
-        }
+            try {
+                ResponseEntity<String> response = mixerStateCache.getSpeakerStatus(device, Boolean.TRUE.equals(refresh));
+
+                if (response.getStatusCode().is2xxSuccessful()) {
+                    return ResponseEntity.ok(response.getBody());
+                } else {
+                    return ResponseEntity.status(response.getStatusCode())
+                            .body("Remote service error: " + response.getBody());
+                }
+            } catch (Exception e) {
+                log.warn("Could not connect to remote device: {}", e.getMessage());
+                return ResponseEntity.ok("Get the current value of the speaker (simulated - device offline)");
+            }
+        });
     }
 
     @Tool(description = "Gets the current volume of a specific channel with the name of the channe.")
-    ResponseEntity<String> getStatusChannel(String idInstrument) throws FileNotFoundException {
+    ResponseEntity<String> getStatusChannel(String idInstrument,
+            @ToolParam(description = "Set to true to read the device again instead of using the recently cached value", required = false) Boolean refresh) throws FileNotFoundException {
         Instrument instrument = findInstrumentByName(idInstrument);
         log.info("Getting status of instrument={} channel={}", instrument.getName(), instrument.getChannel());
+        if (deviceRegistry.owner(instrument.getChannel()).isEmpty()) {
+            return noDevice(instrument);
+        }
 
         try {
-            ResponseEntity<String> response = restTemplateService.getStatusChannel(instrument.getChannel());
+            ResponseEntity<String> response = mixerStateCache.getStatusChannel(instrument.getChannel(), Boolean.TRUE.equals(refresh));
             if (response.getStatusCode().is2xxSuccessful()) {
                 return ResponseEntity.ok(response.getBody());
             } else {
@@ -157,22 +337,58 @@ public class VolumeRepository {
         }
     }
 
-    @Tool(description = "Changes the volume of a speaker, this mean all channels. Requires value that is the new volume of the mixer.")
-    public ResponseEntity<String> changeVolumeSpeaker(int value) throws FileNotFoundException {
-        try {
-            ResponseEntity<String> response = restTemplateService.changeVolumeSpeaker(value);
-            if (response.getStatusCode().is2xxSuccessful()) {
-                return ResponseEntity.ok(response.getBody());
-            } else {
-                return ResponseEntity.status(response.getStatusCode())
-                        .body("Remote service error: " + response.getBody());
+    @Tool(description = "Gets the current volume of every instrument channel at once. This tool does not require any additional input.")
+    ResponseEntity<String> getAllChannelsStatus(
+            @ToolParam(description = "Set to true to read the devices again instead of using the recently cached values", required = false) Boolean refresh) {
+        log.info("Getting status of all channels");
+
+        Map<String, CompletableFuture<String>> statuses = new LinkedHashMap<>();
+        for (Instrument instrument : channelMapService.current().getInstruments()) {
+            if (deviceRegistry.owner(instrument.getChannel()).isEmpty()) {
+                statuses.put(instrument.getName(), CompletableFuture.completedFuture(noDeviceMessage(instrument)));
+                continue;
             }
-        } catch (Exception e) {
-            log.warn("Could not connect to remote device: {}", e.getMessage());
-            return ResponseEntity.ok(
-                    String.format("Change channel volume to %d (simulated - device offline)",
-                            value));
+            // through the cache like getStatusChannel, channels in parallel
+            statuses.put(instrument.getName(), CompletableFuture.supplyAsync(
+                            () -> mixerStateCache.getStatusChannel(instrument.getChannel(), Boolean.TRUE.equals(refresh)),
+                            deviceFanoutExecutor)
+                    .thenApply(response -> response.getStatusCode().is2xxSuccessful()
+                            ? response.getBody()
+                            : "Remote service error: " + response.getBody())
+                    .exceptionally(e -> {
+                        log.warn("Could not connect to remote device: {}", e.getMessage());
+                        return String.format("Get channel '%s' values (simulated - device offline)", instrument.getChannel());
+                    }));
         }
+        CompletableFuture.allOf(statuses.values().toArray(CompletableFuture[]::new)).join();
+
+        return ResponseEntity.ok(statuses.entrySet().stream()
+                .map(entry -> entry.getKey() + ": " + entry.getValue().join())
+                .collect(Collectors.joining("\n")));
+    }
+
+    @Tool(description = "Changes the volume of a speaker, this mean all channels. Requires value that is the new volume of the mixer.")
+    public ResponseEntity<String> changeVolumeSpeaker(int value,
+            @ToolParam(description = ROOM_DESCRIPTION, required = false) String room) throws FileNotFoundException {
+        return acrossDevices(room, device -> {
+            try {
+                ResponseEntity<String> response = restTemplateService.changeVolumeSpeaker(device, value);
+                if (response.getStatusCode().is2xxSuccessful()) {
+                    mixerStateCache.invalidateAll();
+                    return ResponseEntity.ok(response.getBody());
+                } else {
+                    return ResponseEntity.status(response.getStatusCode())
+                            .body("Remote service error: " + response.getBody());
+                }
+            } catch (Exception e) {
+                log.warn("Could not connect to remote device: {}", e.getMessage());
+                return ResponseEntity.ok(
+                        String.format("Change channel volume to %d (simulated - device offline)",
+                                value));
+            }
+        });
+    }
+
+    private record ResolvedChange(ChannelChange change, Instrument instrument) {
     }
-    
 }
@@ -0,0 +1,56 @@
+package com.cenfotec.volumemcp.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.cenfotec.volumemcp.models.MixerDevice;
+
+/**
+ * Non-blocking counterpart of {@link RestTemplateService}. Every call runs on its
+ * own virtual thread, so callers can fan out several device requests and join them.
+ */
+@Service
+public class AsyncRestTemplateService {
+
+    private final RestTemplateService restTemplateService;
+    private final ExecutorService firmwareExecutor;
+
+    public AsyncRestTemplateService(RestTemplateService restTemplateService,
+                                    @Qualifier("firmwareExecutor") ExecutorService firmwareExecutor) {
+        this.restTemplateService = restTemplateService;
+        this.firmwareExecutor = firmwareExecutor;
+    }
+
+    public CompletableFuture<ResponseEntity<String>> setVolume(Integer value, Integer channel) {
+        return supply(() -> restTemplateService.setVolume(value, channel));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> setMute(Integer channel, Boolean mute) {
+        return supply(() -> restTemplateService.setMute(channel, mute));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> setMuteSpeaker(MixerDevice device, Boolean mute) {
+        return supply(() -> restTemplateService.setMuteSpeaker(device, mute));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> getSpeakerStatus(MixerDevice device) {
+        return supply(() -> restTemplateService.getSpeakerStatus(device));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> getStatusChannel(Integer channel) {
+        return supply(() -> restTemplateService.getStatusChannel(channel));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> changeVolumeSpeaker(MixerDevice device, Integer value) {
+        return supply(() -> restTemplateService.changeVolumeSpeaker(device, value));
+    }
+
+    private CompletableFuture<ResponseEntity<String>> supply(Supplier<ResponseEntity<String>> call) {
+        return CompletableFuture.supplyAsync(call, firmwareExecutor);
+    }
+}
@@ -0,0 +1,6 @@
+package com.cenfotec.volumemcp.services;
+
+import com.cenfotec.volumemcp.repository.InstrumentIndex;
+
+public record ChannelMapReloadedEvent(InstrumentIndex index) {
+}
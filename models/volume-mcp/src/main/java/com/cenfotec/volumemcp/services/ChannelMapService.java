@@ -0,0 +1,103 @@
+package com.cenfotec.volumemcp.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.cenfotec.volumemcp.models.ChannelMap;
+import com.cenfotec.volumemcp.models.Instrument;
+import com.cenfotec.volumemcp.repository.InstrumentIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the current channel/instrument/synonym map.
+ * <p>
+ * The map is read from {@code mixer.channel-map.path}, or from the bundled
+ * {@code channels.json} when no path is set. The file is polled for changes and each
+ * valid version is swapped in as a new immutable {@link InstrumentIndex}; readers
+ * never lock and keep using the snapshot they already hold. An invalid file is
+ * logged and ignored.
+ */
+@Slf4j
+@Service
+public class ChannelMapService {
+
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path path;
+
+    private volatile InstrumentIndex current;
+    private FileTime loadedModified;
+
+    public ChannelMapService(ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                             @Value("${mixer.channel-map.path:}") String path) throws IOException {
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.path = path.isBlank() ? null : Path.of(path);
+
+        if (this.path == null) {
+            try (InputStream in = new ClassPathResource("channels.json").getInputStream()) {
+                current = toIndex(objectMapper.readValue(in, ChannelMap.class));
+            }
+        } else {
+            loadedModified = Files.getLastModifiedTime(this.path);
+            current = toIndex(objectMapper.readValue(this.path.toFile(), ChannelMap.class));
+        }
+        log.info("Loaded channel map with {} instruments from {}",
+                current.getInstruments().size(), this.path == null ? "classpath:channels.json" : this.path);
+    }
+
+    public InstrumentIndex current() {
+        return current;
+    }
+
+    @Scheduled(fixedDelayString = "${mixer.channel-map.poll-interval:2s}")
+    synchronized void reloadIfChanged() {
+        if (path == null) {
+            return;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(path);
+            if (modified.equals(loadedModified)) {
+                return;
+            }
+            InstrumentIndex index = toIndex(objectMapper.readValue(path.toFile(), ChannelMap.class));
+            loadedModified = modified;
+            current = index;
+            log.info("Reloaded channel map with {} instruments from {}", index.getInstruments().size(), path);
+            eventPublisher.publishEvent(new ChannelMapReloadedEvent(index));
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Keeping previous channel map, could not load {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static InstrumentIndex toIndex(ChannelMap channelMap) {
+        if (channelMap.instruments() == null || channelMap.instruments().isEmpty()) {
+            throw new IllegalArgumentException("channel map has no instruments");
+        }
+        Set<String> names = new HashSet<>();
+        for (Instrument instrument : channelMap.instruments()) {
+            if (instrument.getName() == null || instrument.getChannel() == null) {
+                throw new IllegalArgumentException("every instrument needs a name and a channel");
+            }
+            if (!names.add(instrument.getName())) {
+                throw new IllegalArgumentException("duplicate instrument " + instrument.getName());
+            }
+        }
+        Map<String, String> synonyms = channelMap.synonyms() == null ? Map.of() : channelMap.synonyms();
+        return new InstrumentIndex(channelMap.instruments(), synonyms);
+    }
+}
@@ -0,0 +1,183 @@
+package com.cenfotec.volumemcp.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.cenfotec.volumemcp.models.CoalescingStats;
+import com.cenfotec.volumemcp.models.WriteOutcome;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collapses bursts of channel writes before they reach the firmware.
+ * <p>
+ * A write to a channel with nothing in flight is sent right away. Writes that arrive
+ * while one is in flight wait for it, and only the latest of each kind is sent next
+ * (last-writer-wins); callers whose write was superseded get a {@link WriteOutcome}
+ * naming the value sent instead. Within a channel the surviving writes are sent in
+ * the order they were submitted, so a mute never waits behind volume values that were
+ * already overwritten.
+ */
+@Slf4j
+@Service
+public class CoalescingWriteQueue {
+
+    private final RestTemplateService restTemplateService;
+    private final ExecutorService firmwareExecutor;
+    private final Map<Integer, ChannelWrites> channels = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+
+    public CoalescingWriteQueue(RestTemplateService restTemplateService,
+                                @Qualifier("firmwareExecutor") ExecutorService firmwareExecutor) {
+        this.restTemplateService = restTemplateService;
+        this.firmwareExecutor = firmwareExecutor;
+    }
+
+    public CompletableFuture<WriteOutcome> setVolume(Integer channel, Integer value) {
+        return submit(channel, WriteKind.VOLUME, value, () -> restTemplateService.setVolume(value, channel));
+    }
+
+    public CompletableFuture<WriteOutcome> setMute(Integer channel, Boolean mute) {
+        return submit(channel, WriteKind.MUTE, mute, () -> restTemplateService.setMute(channel, mute));
+    }
+
+    public CoalescingStats getStats() {
+        return new CoalescingStats(submitted.get(), sent.get(), collapsed.get());
+    }
+
+    private CompletableFuture<WriteOutcome> submit(Integer channel, WriteKind kind, Object value,
+                                                   Supplier<ResponseEntity<String>> call) {
+        submitted.incrementAndGet();
+        ChannelWrites writes = channels.computeIfAbsent(channel, ignored -> new ChannelWrites());
+        PendingWrite write = new PendingWrite(sequence.incrementAndGet(), value, call);
+
+        boolean scheduleFlush;
+        synchronized (writes) {
+            PendingWrite replaced = writes.put(kind, write);
+            if (replaced != null) {
+                write.waiters.addAll(replaced.waiters);
+                collapsed.incrementAndGet();
+                log.debug("Collapsed pending {} write for channel {}", kind, channel);
+            }
+            // with a write in flight the running flush picks this one up when it is done
+            scheduleFlush = !writes.active;
+            writes.active = true;
+        }
+        if (scheduleFlush) {
+            try {
+                firmwareExecutor.execute(() -> flush(writes));
+            } catch (RejectedExecutionException e) {
+                log.warn("Firmware executor rejected the writes for channel {}: {}", channel, e.getMessage());
+                abandon(writes, e);
+            }
+        }
+        return write.result;
+    }
+
+    private void flush(ChannelWrites writes) {
+        boolean drained = false;
+        try {
+            while (true) {
+                List<PendingWrite> batch;
+                synchronized (writes) {
+                    batch = writes.drain();
+                    if (batch.isEmpty()) {
+                        writes.active = false;
+                        drained = true;
+                        return;
+                    }
+                }
+                batch.forEach(this::send);
+            }
+        } finally {
+            // never leave the channel marked active with nobody flushing it, or its writers wait forever
+            if (!drained) {
+                abandon(writes, new IllegalStateException("Write flush stopped unexpectedly"));
+            }
+        }
+    }
+
+    private void send(PendingWrite write) {
+        sent.incrementAndGet();
+        try {
+            ResponseEntity<String> response = write.call.get();
+            write.waiters.forEach(waiter -> waiter.complete(waiter == write.result
+                    ? new WriteOutcome(response, null)
+                    : new WriteOutcome(response, write.value)));
+        } catch (Throwable e) {
+            write.waiters.forEach(waiter -> waiter.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Fails every write still queued for the channel and lets the next write schedule a new flush.
+     */
+    private static void abandon(ChannelWrites writes, Throwable cause) {
+        List<PendingWrite> batch;
+        synchronized (writes) {
+            batch = writes.drain();
+            writes.active = false;
+        }
+        batch.forEach(write -> write.waiters.forEach(waiter -> waiter.completeExceptionally(cause)));
+    }
+
+    private enum WriteKind { VOLUME, MUTE }
+
+    private static final class PendingWrite {
+        final long sequence;
+        final Object value;
+        final Supplier<ResponseEntity<String>> call;
+        final CompletableFuture<WriteOutcome> result = new CompletableFuture<>();
+        final List<CompletableFuture<WriteOutcome>> waiters = new ArrayList<>(List.of(result));
+
+        PendingWrite(long sequence, Object value, Supplier<ResponseEntity<String>> call) {
+            this.sequence = sequence;
+            this.value = value;
+            this.call = call;
+        }
+    }
+
+    private static final class ChannelWrites {
+        PendingWrite volume;
+        PendingWrite mute;
+        boolean active;
+
+        PendingWrite put(WriteKind kind, PendingWrite write) {
+            PendingWrite replaced;
+            if (kind == WriteKind.VOLUME) {
+                replaced = volume;
+                volume = write;
+            } else {
+                replaced = mute;
+                mute = write;
+            }
+            return replaced;
+        }
+
+        List<PendingWrite> drain() {
+            List<PendingWrite> batch = new ArrayList<>(2);
+            if (volume != null) batch.add(volume);
+            if (mute != null) batch.add(mute);
+            batch.sort(Comparator.comparingLong(write -> write.sequence));
+            volume = null;
+            mute = null;
+            return batch;
+        }
+    }
+}
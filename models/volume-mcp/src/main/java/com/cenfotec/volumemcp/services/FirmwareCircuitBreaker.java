@@ -0,0 +1,125 @@
+package com.cenfotec.volumemcp.services;
+
+import java.time.Duration;
+
+import com.cenfotec.volumemcp.models.CircuitBreakerStatus;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker for one mixer device.
+ * <p>
+ * CLOSED records the outcome of the last {@code windowSize} calls and opens once
+ * the failure rate reaches the threshold. OPEN rejects calls immediately until
+ * {@code waitDuration} has passed, then HALF_OPEN lets a single trial call through:
+ * success closes the circuit, failure opens it again.
+ */
+@Slf4j
+public class FirmwareCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final float failureRateThreshold;
+    private final long waitNanos;
+
+    private State state = State.CLOSED;
+    private int position;
+    private int bufferedCalls;
+    private int failedCalls;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public FirmwareCircuitBreaker(String name, int windowSize, int minimumCalls,
+                                  float failureRateThreshold, Duration waitDuration) {
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.waitNanos = waitDuration.toNanos();
+    }
+
+    public synchronized boolean tryAcquire() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> {
+                if (System.nanoTime() - openedAt < waitNanos) {
+                    yield false;
+                }
+                // the wait is over, this caller becomes the trial call
+                transitionTo(State.HALF_OPEN);
+                yield acquireTrial();
+            }
+            case HALF_OPEN -> acquireTrial();
+        };
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.CLOSED);
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (bufferedCalls >= minimumCalls && failureRate() >= failureRateThreshold) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    public synchronized boolean isProbeDue() {
+        return state == State.OPEN && System.nanoTime() - openedAt >= waitNanos;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized CircuitBreakerStatus getStatus() {
+        return new CircuitBreakerStatus(state.name(), failureRate(), bufferedCalls);
+    }
+
+    private boolean acquireTrial() {
+        if (trialInFlight) {
+            return false;
+        }
+        trialInFlight = true;
+        return true;
+    }
+
+    private void record(boolean failed) {
+        if (bufferedCalls == window.length) {
+            if (window[position]) failedCalls--;
+        } else {
+            bufferedCalls++;
+        }
+        window[position] = failed;
+        if (failed) failedCalls++;
+        position = (position + 1) % window.length;
+    }
+
+    private float failureRate() {
+        return bufferedCalls == 0 ? 0 : failedCalls * 100f / bufferedCalls;
+    }
+
+    private void transitionTo(State next) {
+        log.info("Firmware circuit breaker {}: {} -> {}", name, state, next);
+        state = next;
+        trialInFlight = false;
+        if (next == State.OPEN) {
+            openedAt = System.nanoTime();
+        } else if (next == State.CLOSED) {
+            position = 0;
+            bufferedCalls = 0;
+            failedCalls = 0;
+        }
+    }
+}
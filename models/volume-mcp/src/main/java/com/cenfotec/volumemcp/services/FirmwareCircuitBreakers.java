@@ -0,0 +1,44 @@
+package com.cenfotec.volumemcp.services;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cenfotec.volumemcp.models.MixerDevice;
+
+/**
+ * One {@link FirmwareCircuitBreaker} per device host, so an unplugged stage does
+ * not cut off the others.
+ */
+@Component
+public class FirmwareCircuitBreakers {
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final float failureRateThreshold;
+    private final Duration waitDuration;
+    private final Map<String, FirmwareCircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public FirmwareCircuitBreakers(@Value("${firmware.breaker.window-size:10}") int windowSize,
+                                   @Value("${firmware.breaker.minimum-calls:4}") int minimumCalls,
+                                   @Value("${firmware.breaker.failure-rate-threshold:50}") float failureRateThreshold,
+                                   @Value("${firmware.breaker.wait-duration:10s}") Duration waitDuration) {
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.waitDuration = waitDuration;
+    }
+
+    public FirmwareCircuitBreaker forHost(String authority) {
+        return breakers.computeIfAbsent(authority, host ->
+                new FirmwareCircuitBreaker(host, windowSize, minimumCalls, failureRateThreshold, waitDuration));
+    }
+
+    public FirmwareCircuitBreaker forDevice(MixerDevice device) {
+        return forHost(URI.create(device.baseUrl()).getAuthority());
+    }
+}
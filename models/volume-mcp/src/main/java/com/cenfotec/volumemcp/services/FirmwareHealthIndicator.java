@@ -0,0 +1,36 @@
+package com.cenfotec.volumemcp.services;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import com.cenfotec.volumemcp.models.MixerDevice;
+
+/**
+ * Reports the firmware circuit breakers under {@code /actuator/health}, with the
+ * breaker state of each device as details. Like {@code /firmware/health} it is
+ * down only once every device is open: one unplugged stage leaves the others usable.
+ */
+@Component
+public class FirmwareHealthIndicator implements HealthIndicator {
+
+    private final FirmwareCircuitBreakers circuitBreakers;
+    private final MixerDeviceRegistry deviceRegistry;
+
+    public FirmwareHealthIndicator(FirmwareCircuitBreakers circuitBreakers, MixerDeviceRegistry deviceRegistry) {
+        this.circuitBreakers = circuitBreakers;
+        this.deviceRegistry = deviceRegistry;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health = Health.up();
+        boolean allOpen = true;
+        for (MixerDevice device : deviceRegistry.getDevices()) {
+            FirmwareCircuitBreaker circuitBreaker = circuitBreakers.forDevice(device);
+            health.withDetail(device.name(), circuitBreaker.getStatus());
+            allOpen &= circuitBreaker.getState() == FirmwareCircuitBreaker.State.OPEN;
+        }
+        return allOpen ? health.down().build() : health.build();
+    }
+}
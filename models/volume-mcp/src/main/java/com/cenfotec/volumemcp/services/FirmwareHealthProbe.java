@@ -0,0 +1,43 @@
+package com.cenfotec.volumemcp.services;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.cenfotec.volumemcp.models.MixerDevice;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Probes the mixer in the background while the circuit is open, so the device is
+ * picked up again without a tool call paying for the trial request.
+ */
+@Slf4j
+@Component
+public class FirmwareHealthProbe {
+
+    private final FirmwareCircuitBreakers circuitBreakers;
+    private final MixerDeviceRegistry deviceRegistry;
+    private final RestTemplateService restTemplateService;
+
+    public FirmwareHealthProbe(FirmwareCircuitBreakers circuitBreakers, MixerDeviceRegistry deviceRegistry,
+                               RestTemplateService restTemplateService) {
+        this.circuitBreakers = circuitBreakers;
+        this.deviceRegistry = deviceRegistry;
+        this.restTemplateService = restTemplateService;
+    }
+
+    @Scheduled(fixedDelayString = "${firmware.breaker.probe-interval:2s}")
+    void probe() {
+        for (MixerDevice device : deviceRegistry.getDevices()) {
+            if (!circuitBreakers.forDevice(device).isProbeDue()) {
+                continue;
+            }
+            try {
+                restTemplateService.getSpeakerStatus(device);
+                log.info("Mixer device {} is reachable again", device.name());
+            } catch (Exception e) {
+                log.debug("Mixer device {} still offline: {}", device.name(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.cenfotec.volumemcp.services;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the counters behind {@code /firmware/coalescing} and {@code /firmware/cache} as meters.
+ * <p>
+ * The meters read the components' own counters, so the endpoints and Prometheus always agree.
+ */
+@Component
+public class FirmwareStatsMetrics implements MeterBinder {
+
+    private final CoalescingWriteQueue writeQueue;
+    private final MixerStateCache mixerStateCache;
+
+    public FirmwareStatsMetrics(CoalescingWriteQueue writeQueue, MixerStateCache mixerStateCache) {
+        this.writeQueue = writeQueue;
+        this.mixerStateCache = mixerStateCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("mixer.writes", writeQueue, queue -> queue.getStats().submitted())
+                .description("Writes submitted to the coalescing queue")
+                .tag("state", "submitted")
+                .register(registry);
+        FunctionCounter.builder("mixer.writes", writeQueue, queue -> queue.getStats().sent())
+                .description("Writes sent to the mixer after coalescing")
+                .tag("state", "sent")
+                .register(registry);
+        FunctionCounter.builder("mixer.writes", writeQueue, queue -> queue.getStats().collapsed())
+                .description("Writes replaced by a newer write to the same channel before being sent")
+                .tag("state", "collapsed")
+                .register(registry);
+
+        FunctionCounter.builder("mixer.cache.requests", mixerStateCache, cache -> cache.getStats().hits())
+                .description("Status reads served by the mixer state cache")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("mixer.cache.requests", mixerStateCache, cache -> cache.getStats().misses())
+                .description("Status reads served by the mixer state cache")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("mixer.cache.invalidations", mixerStateCache, cache -> cache.getStats().invalidations())
+                .description("Cache invalidations after a write")
+                .register(registry);
+        Gauge.builder("mixer.cache.entries", mixerStateCache, cache -> cache.getStats().entries())
+                .description("Cached status responses")
+                .register(registry);
+    }
+}
@@ -0,0 +1,65 @@
+package com.cenfotec.volumemcp.services;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+
+import com.cenfotec.volumemcp.config.MixerDeviceProperties;
+import com.cenfotec.volumemcp.models.MixerDevice;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+public class MixerDeviceRegistry {
+
+    private final List<MixerDevice> devices;
+
+    public MixerDeviceRegistry(MixerDeviceProperties properties) {
+        if (properties.getDevices().isEmpty()) {
+            devices = List.of(new MixerDevice("default", withSlash(properties.getBaseUrl()), null, 0, Integer.MAX_VALUE));
+        } else {
+            devices = properties.getDevices().stream()
+                    .map(device -> new MixerDevice(device.getName(), withSlash(device.getBaseUrl()), device.getRoom(),
+                            device.getFirstChannel(), device.getChannelCount()))
+                    .toList();
+        }
+        devices.forEach(device -> log.info("Mixer device {} at {} (room={}, first channel={})",
+                device.name(), device.baseUrl(), device.room(), device.firstChannel()));
+    }
+
+    public List<MixerDevice> getDevices() {
+        return devices;
+    }
+
+    public MixerDevice forChannel(int channel) {
+        return owner(channel)
+                .orElseThrow(() -> new IllegalArgumentException("No mixer device owns channel " + channel));
+    }
+
+    /**
+     * Device owning the channel, empty when the configured channel ranges leave it out.
+     */
+    public Optional<MixerDevice> owner(int channel) {
+        return devices.stream()
+                .filter(device -> device.owns(channel))
+                .findFirst();
+    }
+
+    /**
+     * Devices in the given room, or every device when no room is given.
+     */
+    public List<MixerDevice> inRoom(String room) {
+        if (room == null || room.isBlank()) {
+            return devices;
+        }
+        return devices.stream()
+                .filter(device -> room.trim().equalsIgnoreCase(device.room()))
+                .toList();
+    }
+
+    private static String withSlash(String baseUrl) {
+        return baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+    }
+}
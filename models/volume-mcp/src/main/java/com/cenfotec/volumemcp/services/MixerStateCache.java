@@ -0,0 +1,107 @@
+package com.cenfotec.volumemcp.services;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.cenfotec.volumemcp.models.MixerCacheStats;
+import com.cenfotec.volumemcp.models.MixerDevice;
+
+/**
+ * Read-through cache for the firmware status routes.
+ * <p>
+ * The mixer state only changes through our own write tools, so successful
+ * responses are kept for a short TTL and dropped as soon as a write touches them.
+ */
+@Service
+public class MixerStateCache {
+
+    private static final String SPEAKER_PREFIX = "speaker:";
+
+    private final RestTemplateService restTemplateService;
+    private final long ttlNanos;
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+
+    // bumped on every invalidation so a load that raced with a write is not stored
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final List<Runnable> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    public MixerStateCache(RestTemplateService restTemplateService,
+                           @Value("${firmware.cache.ttl:2s}") Duration ttl) {
+        this.restTemplateService = restTemplateService;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public ResponseEntity<String> getSpeakerStatus(MixerDevice device, boolean forceRefresh) {
+        return get(SPEAKER_PREFIX + device.name(), forceRefresh, () -> restTemplateService.getSpeakerStatus(device));
+    }
+
+    public ResponseEntity<String> getStatusChannel(Integer channel, boolean forceRefresh) {
+        return get(channelKey(channel), forceRefresh, () -> restTemplateService.getStatusChannel(channel));
+    }
+
+    public void invalidateChannel(Integer channel) {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        entries.remove(channelKey(channel));
+        entries.keySet().removeIf(key -> key.startsWith(SPEAKER_PREFIX));
+        invalidationListeners.forEach(Runnable::run);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        entries.clear();
+        invalidationListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Current generation; it changes whenever one of our writes may have changed the mixer.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public void addInvalidationListener(Runnable listener) {
+        invalidationListeners.add(listener);
+    }
+
+    public MixerCacheStats getStats() {
+        return new MixerCacheStats(hits.get(), misses.get(), invalidations.get(), entries.size());
+    }
+
+    private ResponseEntity<String> get(String key, boolean forceRefresh, Supplier<ResponseEntity<String>> loader) {
+        long now = System.nanoTime();
+        CachedResponse cached = entries.get(key);
+        if (!forceRefresh && cached != null && now - cached.loadedAt() < ttlNanos) {
+            hits.incrementAndGet();
+            return cached.response();
+        }
+
+        misses.incrementAndGet();
+        long loadGeneration = generation.get();
+        ResponseEntity<String> response = loader.get();
+        if (response.getStatusCode().is2xxSuccessful() && generation.get() == loadGeneration) {
+            entries.put(key, new CachedResponse(response, now));
+        }
+        return response;
+    }
+
+    private static String channelKey(Integer channel) {
+        return "channel:" + channel;
+    }
+
+    private record CachedResponse(ResponseEntity<String> response, long loadedAt) {
+    }
+}
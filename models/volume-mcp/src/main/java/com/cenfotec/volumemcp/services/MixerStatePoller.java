@@ -0,0 +1,290 @@
+package com.cenfotec.volumemcp.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.cenfotec.volumemcp.models.MixerDevice;
+import com.cenfotec.volumemcp.models.MixerSnapshot;
+import com.cenfotec.volumemcp.models.MixerStateDelta;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single background poller of {@code /speakerStatus} per device.
+ * <p>
+ * Keeps a versioned snapshot per device and publishes only changes to subscribers.
+ * The interval adapts: {@code fast-interval} right after one of our writes or a
+ * detected change, then doubling up to {@code slow-interval} while nothing happens.
+ * Status tools read the snapshot, so device traffic no longer grows with the number
+ * of conversations.
+ * <p>
+ * Every subscriber gets its own bounded buffer drained on a virtual thread, so a slow
+ * client never holds up the poll; a subscriber whose buffer fills up or whose delivery
+ * fails is dropped.
+ */
+@Slf4j
+@Service
+public class MixerStatePoller {
+
+    private final MixerDeviceRegistry deviceRegistry;
+    private final RestTemplateService restTemplateService;
+    private final MixerStateCache mixerStateCache;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long fastNanos;
+    private final long slowNanos;
+    private final long activeWindowNanos;
+    private final int subscriberBuffer;
+
+    private final Map<String, MixerSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final List<Subscription> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService delivery = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mixer-state-delivery-", 0).factory());
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> nextPoll;
+    private long nextPollAt;
+    private long currentDelayNanos;
+    private volatile long lastActivity;
+
+    public MixerStatePoller(MixerDeviceRegistry deviceRegistry, RestTemplateService restTemplateService,
+                            MixerStateCache mixerStateCache, ObjectMapper objectMapper,
+                            @Value("${mixer.poller.enabled:true}") boolean enabled,
+                            @Value("${mixer.poller.fast-interval:250ms}") Duration fastInterval,
+                            @Value("${mixer.poller.slow-interval:5s}") Duration slowInterval,
+                            @Value("${mixer.poller.active-window:3s}") Duration activeWindow,
+                            @Value("${mixer.poller.subscriber-buffer:64}") int subscriberBuffer) {
+        this.deviceRegistry = deviceRegistry;
+        this.restTemplateService = restTemplateService;
+        this.mixerStateCache = mixerStateCache;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.fastNanos = fastInterval.toNanos();
+        this.slowNanos = slowInterval.toNanos();
+        this.activeWindowNanos = activeWindow.toNanos();
+        this.subscriberBuffer = subscriberBuffer;
+        this.currentDelayNanos = fastNanos;
+        this.lastActivity = System.nanoTime() - activeWindowNanos;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("mixer-poller").daemon().factory());
+        schedule(0);
+        mixerStateCache.addInvalidationListener(this::onWrite);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        delivery.shutdownNow();
+    }
+
+    /**
+     * Latest snapshot of the device, if it was taken after our last write.
+     */
+    public Optional<MixerSnapshot> latest(MixerDevice device) {
+        MixerSnapshot snapshot = snapshots.get(device.name());
+        if (snapshot == null || snapshot.generation() != mixerStateCache.getGeneration()) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot);
+    }
+
+    public Collection<MixerSnapshot> snapshots() {
+        return snapshots.values();
+    }
+
+    /**
+     * Registers a subscriber: it first gets the current snapshot of every device, then every
+     * change after them, in order. The returned handle unsubscribes it.
+     */
+    public Runnable subscribe(Consumer<MixerSnapshot> onSnapshot, Consumer<MixerStateDelta> onDelta) {
+        Subscription subscription = new Subscription(onDelta);
+        // taken together with update() so no change falls between the snapshots and the first delta
+        synchronized (subscribers) {
+            for (MixerSnapshot snapshot : snapshots.values()) {
+                subscription.offer(() -> onSnapshot.accept(snapshot));
+            }
+            subscribers.add(subscription);
+        }
+        return subscription::close;
+    }
+
+    Duration currentDelay() {
+        return Duration.ofNanos(currentDelayNanos);
+    }
+
+    void poll() {
+        try {
+            for (MixerDevice device : deviceRegistry.getDevices()) {
+                long generation = mixerStateCache.getGeneration();
+                try {
+                    // straight to the device: the snapshot is our cache, going through the read cache would only skew its stats
+                    ResponseEntity<String> response = restTemplateService.getSpeakerStatus(device);
+                    if (response.getStatusCode().is2xxSuccessful() && update(device, generation, response.getBody())) {
+                        lastActivity = System.nanoTime();
+                    }
+                } catch (Exception e) {
+                    log.debug("Could not poll mixer device {}: {}", device.name(), e.getMessage());
+                }
+            }
+        } finally {
+            scheduleNext();
+        }
+    }
+
+    private synchronized void scheduleNext() {
+        long now = System.nanoTime();
+        currentDelayNanos = now - lastActivity < activeWindowNanos
+                ? fastNanos
+                : Math.min(currentDelayNanos * 2, slowNanos);
+        schedule(currentDelayNanos);
+    }
+
+    private void onWrite() {
+        lastActivity = System.nanoTime();
+        synchronized (this) {
+            // pull the next poll forward so the snapshot catches up with the write
+            if (nextPollAt - System.nanoTime() > fastNanos && nextPoll.cancel(false)) {
+                currentDelayNanos = fastNanos;
+                schedule(fastNanos);
+            }
+        }
+    }
+
+    private synchronized void schedule(long delayNanos) {
+        if (scheduler == null || scheduler.isShutdown()) {
+            return;
+        }
+        nextPollAt = System.nanoTime() + delayNanos;
+        nextPoll = scheduler.schedule(this::poll, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private boolean update(MixerDevice device, long generation, String body) {
+        MixerSnapshot previous = snapshots.get(device.name());
+        if (previous != null && previous.body().equals(body)) {
+            snapshots.put(device.name(), new MixerSnapshot(device.name(), previous.version(), generation, body, previous.updatedAt()));
+            return false;
+        }
+        long version = previous == null ? 1 : previous.version() + 1;
+        MixerStateDelta delta = new MixerStateDelta(device.name(), version, diff(previous == null ? null : previous.body(), body));
+        synchronized (subscribers) {
+            snapshots.put(device.name(), new MixerSnapshot(device.name(), version, generation, body, Instant.now()));
+            for (Subscription subscriber : subscribers) {
+                if (!subscriber.offer(() -> subscriber.onDelta.accept(delta))) {
+                    log.debug("Dropping mixer state subscriber: {} changes waiting", subscriberBuffer);
+                    subscriber.close();
+                }
+            }
+        }
+        return true;
+    }
+
+    private JsonNode diff(String previous, String current) {
+        try {
+            JsonNode after = objectMapper.readTree(current);
+            if (previous == null || !after.isObject()) {
+                return after;
+            }
+            JsonNode before = objectMapper.readTree(previous);
+            if (!before.isObject()) {
+                return after;
+            }
+            ObjectNode changes = objectMapper.createObjectNode();
+            after.fields().forEachRemaining(field -> {
+                if (!field.getValue().equals(before.get(field.getKey()))) {
+                    changes.set(field.getKey(), field.getValue());
+                }
+            });
+            for (Iterator<String> names = before.fieldNames(); names.hasNext(); ) {
+                String name = names.next();
+                if (!after.has(name)) {
+                    changes.putNull(name);
+                }
+            }
+            return changes;
+        } catch (JsonProcessingException e) {
+            return TextNode.valueOf(current);
+        }
+    }
+
+    /**
+     * Bounded queue of the events of one subscriber, drained by at most one virtual thread at a time.
+     */
+    private final class Subscription {
+
+        private final Consumer<MixerStateDelta> onDelta;
+        private final BlockingQueue<Runnable> events;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscription(Consumer<MixerStateDelta> onDelta) {
+            this.onDelta = onDelta;
+            this.events = new ArrayBlockingQueue<>(subscriberBuffer + snapshots.size());
+        }
+
+        boolean offer(Runnable event) {
+            if (closed || !events.offer(event)) {
+                return false;
+            }
+            if (draining.compareAndSet(false, true)) {
+                delivery.execute(this::drain);
+            }
+            return true;
+        }
+
+        private void drain() {
+            do {
+                Runnable event;
+                while (!closed && (event = events.poll()) != null) {
+                    try {
+                        event.run();
+                    } catch (RuntimeException e) {
+                        log.debug("Dropping mixer state subscriber: {}", e.getMessage());
+                        close();
+                    }
+                }
+                draining.set(false);
+                // an event offered after the last poll but before the flag was cleared
+            } while (!closed && !events.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+            events.clear();
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package com.cenfotec.volumemcp.services;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -8,46 +14,71 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
+import com.cenfotec.volumemcp.models.MixerDevice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Calls to the mixer firmware. Each call is timed as {@code mixer.device.requests}, tagged with the
+ * device, the firmware endpoint and the HTTP status ({@code IO_ERROR} when the device did not answer).
+ */
 @Service
 public class RestTemplateService {
 
+    private static final Duration MAX_EXPECTED_LATENCY = Duration.ofSeconds(10);
+
     @Autowired
     private RestTemplate restTemplate;
 
-    private final String baseUrl = "http://192.168.0.4/";
+    @Autowired
+    private MixerDeviceRegistry deviceRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${firmware.mix-route.enabled:false}")
+    private boolean mixRouteEnabled;
+
+    public boolean supportsMixRoute() {
+        return mixRouteEnabled;
+    }
 
     public ResponseEntity<String> setVolume(Integer value, Integer channel) {
-        String url = baseUrl + "volume";
+        MixerDevice device = deviceRegistry.forChannel(channel);
+        String url = device.baseUrl() + "volume";
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
 
         MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
         body.add("value", value.toString());
-        body.add("channel", channel.toString());
+        body.add("channel", String.valueOf(device.localChannel(channel)));
 
         HttpEntity<MultiValueMap<String, String>> requestEntity = new HttpEntity<>(body, headers);
 
-        return restTemplate.postForEntity(url, requestEntity, String.class);
+        return timed(device, "volume", () -> restTemplate.postForEntity(url, requestEntity, String.class));
     }
 
     public ResponseEntity<String> setMute(Integer channel, Boolean mute) {
-        String url = baseUrl + "muteChannel";
+        MixerDevice device = deviceRegistry.forChannel(channel);
+        String url = device.baseUrl() + "muteChannel";
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
         MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
-        body.add("channel", channel.toString());
+        body.add("channel", String.valueOf(device.localChannel(channel)));
         body.add("mute", String.valueOf(mute));
 
         HttpEntity<MultiValueMap<String, String>> requestEntity = new HttpEntity<>(body, headers);
-        return restTemplate.postForEntity(url, requestEntity, String.class);
+        return timed(device, "muteChannel", () -> restTemplate.postForEntity(url, requestEntity, String.class));
     }
 
-    public ResponseEntity<String> setMuteSpeaker(Boolean mute) {
-        String url = baseUrl + "muteSpeaker";
+    public ResponseEntity<String> setMuteSpeaker(MixerDevice device, Boolean mute) {
+        String url = device.baseUrl() + "muteSpeaker";
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
@@ -55,19 +86,21 @@ public class RestTemplateService {
         body.add("mute", String.valueOf(mute));
 
         HttpEntity<MultiValueMap<String, String>> requestEntity = new HttpEntity<>(body, headers);
-        return restTemplate.postForEntity(url, requestEntity, String.class);
+        return timed(device, "muteSpeaker", () -> restTemplate.postForEntity(url, requestEntity, String.class));
     }
 
-    public ResponseEntity<String> getSpeakerStatus() {
-        return restTemplate.getForEntity(baseUrl + "speakerStatus/", String.class);
+    public ResponseEntity<String> getSpeakerStatus(MixerDevice device) {
+        return timed(device, "speakerStatus", () -> restTemplate.getForEntity(device.baseUrl() + "speakerStatus/", String.class));
     }
 
     public ResponseEntity<String> getStatusChannel(Integer channel) {
-        return restTemplate.getForEntity(baseUrl + "channelStatus/" + channel, String.class);
+        MixerDevice device = deviceRegistry.forChannel(channel);
+        return timed(device, "channelStatus",
+                () -> restTemplate.getForEntity(device.baseUrl() + "channelStatus/" + device.localChannel(channel), String.class));
     }
 
-    public ResponseEntity<String> changeVolumeSpeaker(Integer value) {
-        String url = baseUrl + "changeVolumeSpeaker";
+    public ResponseEntity<String> changeVolumeSpeaker(MixerDevice device, Integer value) {
+        String url = device.baseUrl() + "changeVolumeSpeaker";
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
@@ -76,7 +109,42 @@ public class RestTemplateService {
         body.add("value", value.toString());
 
         HttpEntity<MultiValueMap<String, String>> requestEntity = new HttpEntity<>(body, headers);
-        return restTemplate.postForEntity(url, requestEntity, String.class);
+        return timed(device, "changeVolumeSpeaker", () -> restTemplate.postForEntity(url, requestEntity, String.class));
+    }
+
+    /**
+     * Sends several channel changes to one device; channels in {@code changes} are local to the device.
+     */
+    public ResponseEntity<String> applyMix(MixerDevice device, List<Map<String, Object>> changes) {
+        String url = device.baseUrl() + "mix";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        HttpEntity<List<Map<String, Object>>> requestEntity = new HttpEntity<>(changes, headers);
+        return timed(device, "mix", () -> restTemplate.postForEntity(url, requestEntity, String.class));
+    }
+
+    private ResponseEntity<String> timed(MixerDevice device, String endpoint, Supplier<ResponseEntity<String>> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = "IO_ERROR";
+        try {
+            ResponseEntity<String> response = call.get();
+            status = String.valueOf(response.getStatusCode().value());
+            return response;
+        } catch (RestClientResponseException e) {
+            status = String.valueOf(e.getStatusCode().value());
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("mixer.device.requests")
+                    .description("Latency of the calls to the mixer firmware")
+                    .tag("device", device.name())
+                    .tag("endpoint", endpoint)
+                    .tag("status", status)
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(MAX_EXPECTED_LATENCY)
+                    .register(meterRegistry));
+        }
     }
 
 }
@@ -0,0 +1,135 @@
+package com.cenfotec.volumemcp.services;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every MCP tool call as {@code mixer.tool.calls}, tagged with the tool and its outcome:
+ * {@code success}, {@code no_device} when no mixer device owns the channel, {@code remote_error}
+ * when a device answered with an error, {@code offline} when the tool fell back to its simulated
+ * answer, or {@code error} when it threw.
+ * <p>
+ * The outcome comes from the status of the {@code ResponseEntity} the tool returned: 404 is
+ * {@code no_device}, any other non-2xx status {@code remote_error}. Tools acting on several channels
+ * or devices answer 200 with one line each, so a 2xx answer still reports a remote error if any line
+ * has one, else offline if any device was unreachable.
+ */
+@Component
+public class ToolMetrics {
+
+    private static final Duration MAX_EXPECTED_LATENCY = Duration.ofSeconds(30);
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    public ToolMetrics(MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    public ToolCallback timed(ToolCallback tool) {
+        String name = tool.getToolDefinition().name();
+        return new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return tool.getToolDefinition();
+            }
+
+            @Override
+            public ToolMetadata getToolMetadata() {
+                return tool.getToolMetadata();
+            }
+
+            @Override
+            public String call(String toolInput) {
+                return time(name, () -> tool.call(toolInput));
+            }
+
+            @Override
+            public String call(String toolInput, ToolContext toolContext) {
+                return time(name, () -> tool.call(toolInput, toolContext));
+            }
+        };
+    }
+
+    private String time(String tool, Supplier<String> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            String result = call.get();
+            outcome = outcome(result);
+            return result;
+        } finally {
+            sample.stop(Timer.builder("mixer.tool.calls")
+                    .description("Latency of the MCP tools")
+                    .tag("tool", tool)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(MAX_EXPECTED_LATENCY)
+                    .register(meterRegistry));
+        }
+    }
+
+    String outcome(String result) {
+        JsonNode response = read(result);
+        HttpStatusCode status = status(response);
+        if (status != null && !status.is2xxSuccessful()) {
+            return status.value() == HttpStatus.NOT_FOUND.value() ? "no_device" : "remote_error";
+        }
+
+        String body = status != null ? response.path("body").asText("") : result == null ? "" : result;
+        String text = body.toLowerCase(Locale.ROOT);
+        if (text.contains("remote service error")) {
+            return "remote_error";
+        }
+        if (text.contains("simulated - device offline")) {
+            return "offline";
+        }
+        return "success";
+    }
+
+    private JsonNode read(String result) {
+        if (result == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(result);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Status of a serialized {@code ResponseEntity}, or null when the result is not one.
+     */
+    private static HttpStatusCode status(JsonNode response) {
+        if (response == null) {
+            return null;
+        }
+        JsonNode statusCodeValue = response.path("statusCodeValue");
+        if (statusCodeValue.isInt()) {
+            return HttpStatusCode.valueOf(statusCodeValue.asInt());
+        }
+        JsonNode statusCode = response.path("statusCode");
+        if (statusCode.isTextual()) {
+            return HttpStatus.valueOf(statusCode.asText());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,108 @@
+package com.cenfotec.volumemcp.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Compares the simple and pooled firmware clients against a local stand-in for the ESP32.
+ */
+class FirmwareClientBenchmarkTests {
+
+    private static final int CALLS = 120;
+    private static final int CALLERS = 8;
+
+    private final RestTemplateConfig config = new RestTemplateConfig();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger served = new AtomicInteger();
+    private final ExecutorService deviceExecutor = Executors.newFixedThreadPool(CALLERS);
+    private HttpServer device;
+    private String baseUrl;
+
+    @BeforeEach
+    void startDevice() throws IOException {
+        device = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        device.createContext("/speakerStatus", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            served.incrementAndGet();
+            byte[] body = "{\"volume\":50,\"mute\":false}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        device.setExecutor(deviceExecutor);
+        device.start();
+        baseUrl = "http://127.0.0.1:" + device.getAddress().getPort() + "/";
+    }
+
+    @AfterEach
+    void stopDevice() {
+        device.stop(0);
+        deviceExecutor.shutdownNow();
+    }
+
+    @Test
+    void pooled_client_bounds_and_reuses_connections() throws Exception {
+        run(config.simpleRequestFactory());
+        int simpleConnections = clientPorts.size();
+        assertEquals(CALLS, served.getAndSet(0));
+        clientPorts.clear();
+
+        PoolingHttpClientConnectionManager manager = config.firmwareConnectionManager(2, 4);
+        try (CloseableHttpClient client = config.firmwareHttpClient(manager, Duration.ofSeconds(30))) {
+            run(config.pooledRequestFactory(client, Duration.ofSeconds(1)));
+
+            assertEquals(CALLS, served.get());
+            assertTrue(clientPorts.size() <= 2, "pooled client opened " + clientPorts.size() + " connections");
+            assertTrue(simpleConnections > clientPorts.size(),
+                    "simple client opened " + simpleConnections + " connections, pooled " + clientPorts.size());
+            assertEquals(0, manager.getTotalStats().getLeased());
+            assertTrue(manager.getTotalStats().getAvailable() >= 1);
+        }
+    }
+
+    private void run(ClientHttpRequestFactory factory) throws Exception {
+        RestTemplate restTemplate = new RestTemplate(factory);
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CALLERS; c++) {
+                futures.add(callers.submit(() -> {
+                    for (int i = 0; i < CALLS / CALLERS; i++) {
+                        assertTrue(restTemplate.getForEntity(baseUrl + "speakerStatus", String.class)
+                                .getStatusCode().is2xxSuccessful());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
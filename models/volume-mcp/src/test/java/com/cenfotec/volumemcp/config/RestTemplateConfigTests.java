@@ -0,0 +1,56 @@
+package com.cenfotec.volumemcp.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.cenfotec.volumemcp.services.FirmwareCircuitBreaker;
+import com.cenfotec.volumemcp.services.FirmwareCircuitBreakers;
+
+class RestTemplateConfigTests {
+
+    private static final String URL = "http://mixer/speakerStatus/";
+
+    private final FirmwareCircuitBreakers circuitBreakers = new FirmwareCircuitBreakers(10, 4, 50, Duration.ofMinutes(1));
+    private final RestTemplateConfig config = new RestTemplateConfig();
+    private final RestTemplate restTemplate = config.restTemplate(config.simpleRequestFactory(), circuitBreakers);
+    private final MockRestServiceServer device = MockRestServiceServer.bindTo(restTemplate).build();
+
+    @Test
+    void server_errors_open_the_circuit() {
+        device.expect(ExpectedCount.times(4), requestTo(URL)).andRespond(withServerError());
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpServerErrorException.class, () -> restTemplate.getForEntity(URL, String.class));
+        }
+
+        assertEquals(FirmwareCircuitBreaker.State.OPEN, circuitBreakers.forHost("mixer").getState());
+        assertThrows(ResourceAccessException.class, () -> restTemplate.getForEntity(URL, String.class));
+        device.verify();
+    }
+
+    @Test
+    void client_errors_do_not_count_as_failures() {
+        device.expect(ExpectedCount.times(4), requestTo(URL)).andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpClientErrorException.class, () -> restTemplate.getForEntity(URL, String.class));
+        }
+
+        assertEquals(FirmwareCircuitBreaker.State.CLOSED, circuitBreakers.forHost("mixer").getState());
+        assertEquals(0, circuitBreakers.forHost("mixer").getStatus().failureRate());
+    }
+}
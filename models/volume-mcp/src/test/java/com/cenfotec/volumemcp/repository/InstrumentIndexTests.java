@@ -0,0 +1,42 @@
+package com.cenfotec.volumemcp.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.cenfotec.volumemcp.models.Instrument;
+
+class InstrumentIndexTests {
+
+    private final InstrumentIndex index = new InstrumentIndex(
+            List.of(new Instrument("guitarra", 0, false),
+                    new Instrument("voz", 1, false),
+                    new Instrument("bajo", 2, false),
+                    new Instrument("bateria", 3, false)),
+            Map.of("drums", "bateria", "vocals", "voz"));
+
+    @Test
+    void resolves_names_synonyms_and_accents() {
+        assertEquals(0, index.find("guitarra").orElseThrow().getChannel());
+        assertEquals(3, index.find("Batería ").orElseThrow().getChannel());
+        assertEquals(1, index.find("VOCALS").orElseThrow().getChannel());
+    }
+
+    @Test
+    void resolves_small_misspellings() {
+        assertEquals(0, index.find("guitara").orElseThrow().getChannel());
+        assertEquals(3, index.find("bateira").orElseThrow().getChannel());
+        assertEquals(3, index.find("drum").orElseThrow().getChannel());
+    }
+
+    @Test
+    void rejects_unrelated_and_short_names() {
+        assertTrue(index.find("piano").isEmpty());
+        assertTrue(index.find("vos").isEmpty());
+        assertTrue(index.find("").isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+package com.cenfotec.volumemcp.repository;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.cenfotec.volumemcp.models.Instrument;
+
+/**
+ * Instrument lookup: the previous stream + normalize-per-element scan against {@link InstrumentIndex}.
+ * Run with the test classpath: {@code java -cp <test classpath> ...InstrumentLookupBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentLookupBenchmark {
+
+    private static final List<Instrument> INSTRUMENTS = List.of(
+            new Instrument("guitarra", 0, false),
+            new Instrument("voz", 1, false),
+            new Instrument("bajo", 2, false),
+            new Instrument("bateria", 3, false)
+    );
+
+    private static final Map<String, String> SYNONYMS = Map.of(
+            "guitar", "guitarra",
+            "drums", "bateria",
+            "bass", "bajo",
+            "voice", "voz",
+            "vocals", "voz",
+            "cantante", "voz"
+    );
+
+    @Param({"bateria", "Batería ", "vocals"})
+    public String name;
+
+    private final InstrumentIndex index = new InstrumentIndex(INSTRUMENTS, SYNONYMS);
+
+    @Benchmark
+    public Instrument streamScan() {
+        String normalized = legacyNormalize(name);
+        String finalNormalized = SYNONYMS.getOrDefault(normalized, normalized);
+        return INSTRUMENTS.stream()
+                .filter(instr -> legacyNormalize(instr.getName()).equals(finalNormalized))
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Benchmark
+    public Instrument index() {
+        return index.find(name).orElse(null);
+    }
+
+    @Benchmark
+    public Instrument indexFuzzy() {
+        return index.find("guitara").orElse(null);
+    }
+
+    private static String legacyNormalize(String input) {
+        if (input == null) return "";
+        return Normalizer.normalize(input.trim().toLowerCase(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(InstrumentLookupBenchmark.class.getSimpleName()).build()).run();
+    }
+}
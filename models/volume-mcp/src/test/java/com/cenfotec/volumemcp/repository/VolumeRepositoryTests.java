@@ -0,0 +1,187 @@
+package com.cenfotec.volumemcp.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.cenfotec.volumemcp.config.MixerDeviceProperties;
+import com.cenfotec.volumemcp.models.ChannelChange;
+import com.cenfotec.volumemcp.models.MixerDevice;
+import com.cenfotec.volumemcp.services.ChannelMapService;
+import com.cenfotec.volumemcp.services.CoalescingWriteQueue;
+import com.cenfotec.volumemcp.services.MixerDeviceRegistry;
+import com.cenfotec.volumemcp.services.MixerStateCache;
+import com.cenfotec.volumemcp.services.RestTemplateService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class VolumeRepositoryTests {
+
+    @TempDir
+    Path dir;
+
+    private final RestTemplateService restTemplateService = mock(RestTemplateService.class);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CoalescingWriteQueue writeQueue = new CoalescingWriteQueue(restTemplateService, executor);
+    private final VolumeRepository repository = new VolumeRepository();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path channels = dir.resolve("channels.json");
+        Files.writeString(channels, """
+                {"instruments": [{"name": "guitarra", "channel": 0}, {"name": "bateria", "channel": 3},
+                                 {"name": "teclado", "channel": 9}]}
+                """);
+        MixerDeviceProperties devices = new MixerDeviceProperties();
+        devices.setDevices(List.of(device("front", "main", 0), device("side", "side", 2)));
+
+        ReflectionTestUtils.setField(repository, "restTemplateService", restTemplateService);
+        ReflectionTestUtils.setField(repository, "writeQueue", writeQueue);
+        ReflectionTestUtils.setField(repository, "mixerStateCache", new MixerStateCache(restTemplateService, Duration.ofSeconds(2)));
+        ReflectionTestUtils.setField(repository, "deviceRegistry", new MixerDeviceRegistry(devices));
+        ReflectionTestUtils.setField(repository, "channelMapService", new ChannelMapService(new ObjectMapper(), event -> { }, channels.toString()));
+        ReflectionTestUtils.setField(repository, "deviceFanoutExecutor", executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void write_to_a_channel_no_device_owns_is_an_error_and_is_not_sent() throws IOException {
+        ResponseEntity<String> response = repository.setVolume("teclado", 40);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("No mixer device owns channel 9 of instrument 'teclado'", response.getBody());
+        verify(restTemplateService, never()).setVolume(anyInt(), anyInt());
+    }
+
+    @Test
+    void status_of_every_channel_reports_the_uncovered_one_without_calling_a_device() {
+        when(restTemplateService.getStatusChannel(0)).thenReturn(ResponseEntity.ok("{\"volume\":10}"));
+        when(restTemplateService.getStatusChannel(3)).thenReturn(ResponseEntity.ok("{\"volume\":30}"));
+
+        assertEquals("""
+                guitarra: {"volume":10}
+                bateria: {"volume":30}
+                teclado: No mixer device owns channel 9 of instrument 'teclado'""",
+                repository.getAllChannelsStatus(null).getBody());
+    }
+
+    @Test
+    void status_of_every_channel_is_read_through_the_cache() {
+        when(restTemplateService.getStatusChannel(0)).thenReturn(ResponseEntity.ok("{\"volume\":10}"));
+        when(restTemplateService.getStatusChannel(3)).thenReturn(ResponseEntity.ok("{\"volume\":30}"));
+
+        repository.getAllChannelsStatus(null);
+        repository.getAllChannelsStatus(false);
+        verify(restTemplateService, times(1)).getStatusChannel(0);
+
+        repository.getAllChannelsStatus(true);
+        verify(restTemplateService, times(2)).getStatusChannel(0);
+        verify(restTemplateService, times(2)).getStatusChannel(3);
+    }
+
+    @Test
+    void speaker_wide_call_answers_one_line_per_device() throws IOException {
+        when(restTemplateService.changeVolumeSpeaker(named("front"), eq(50)))
+                .thenReturn(ResponseEntity.ok("speaker volume 50"));
+        when(restTemplateService.changeVolumeSpeaker(named("side"), eq(50)))
+                .thenThrow(new ResourceAccessException("timed out"));
+
+        assertEquals("""
+                front: speaker volume 50
+                side: Change channel volume to 50 (simulated - device offline)""",
+                repository.changeVolumeSpeaker(50, null).getBody());
+    }
+
+    @Test
+    void room_limits_the_call_to_its_devices() throws IOException {
+        when(restTemplateService.changeVolumeSpeaker(named("side"), eq(50)))
+                .thenReturn(ResponseEntity.ok("speaker volume 50"));
+
+        assertEquals("speaker volume 50", repository.changeVolumeSpeaker(50, "Side").getBody());
+        assertEquals("No mixer device found in room 'backstage'", repository.changeVolumeSpeaker(50, "backstage").getBody());
+    }
+
+    @Test
+    void mix_route_sends_one_request_per_device_and_keeps_repeated_changes() {
+        when(restTemplateService.supportsMixRoute()).thenReturn(true);
+        when(restTemplateService.applyMix(named("front"), anyList())).thenReturn(ResponseEntity.ok("ok"));
+        when(restTemplateService.applyMix(named("side"), anyList())).thenThrow(new ResourceAccessException("timed out"));
+
+        ResponseEntity<String> response = repository.applyMix(List.of(
+                new ChannelChange("guitarra", 60, null),
+                new ChannelChange("bateria", null, true),
+                new ChannelChange("guitarra", 60, null),
+                new ChannelChange("piano", 10, null)));
+
+        verify(restTemplateService).applyMix(named("front"),
+                eq(List.of(Map.of("channel", 0, "value", 60), Map.of("channel", 0, "value", 60))));
+        verify(restTemplateService).applyMix(named("side"), eq(List.of(Map.of("channel", 1, "mute", true))));
+        assertEquals("""
+                guitarra: volume set to 60
+                bateria: mute set to true (simulated - device offline)
+                guitarra: volume set to 60
+                piano: No instrument with id piano""", response.getBody());
+    }
+
+    @Test
+    void without_the_mix_route_each_change_goes_through_the_write_queue() {
+        when(restTemplateService.setVolume(anyInt(), anyInt())).thenReturn(ResponseEntity.ok("ok"));
+        when(restTemplateService.setMute(3, true)).thenReturn(ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("busy"));
+
+        ResponseEntity<String> response = repository.applyMix(List.of(
+                new ChannelChange("guitarra", 60, null),
+                new ChannelChange("bateria", 20, true),
+                new ChannelChange("teclado", 10, null)));
+
+        verify(restTemplateService).setVolume(60, 0);
+        verify(restTemplateService).setVolume(20, 3);
+        verify(restTemplateService, never()).applyMix(any(), anyList());
+        assertEquals("""
+                guitarra: volume set to 60
+                bateria: remote service error: busy
+                No mixer device owns channel 9 of instrument 'teclado'""", response.getBody());
+    }
+
+    private static MixerDevice named(String name) {
+        return argThat(device -> device != null && device.name().equals(name));
+    }
+
+    private static MixerDeviceProperties.Device device(String name, String room, int firstChannel) {
+        MixerDeviceProperties.Device device = new MixerDeviceProperties.Device();
+        device.setName(name);
+        device.setBaseUrl("http://" + name + "/");
+        device.setRoom(room);
+        device.setFirstChannel(firstChannel);
+        device.setChannelCount(2);
+        return device;
+    }
+}
@@ -0,0 +1,109 @@
+package com.cenfotec.volumemcp.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.cenfotec.volumemcp.config.AsyncConfig;
+import com.cenfotec.volumemcp.config.MixerDeviceProperties;
+import com.cenfotec.volumemcp.config.RestTemplateConfig;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Drives {@link AsyncRestTemplateService} with many concurrent calls against a slow
+ * local device stub and reports platform thread usage and throughput.
+ */
+class AsyncFirmwareLoadTests {
+
+    private static final int CONCURRENT_CALLS = 250;
+    private static final long DEVICE_DELAY_MS = 200;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpServer device;
+    private ExecutorService firmwareExecutor;
+    private AsyncRestTemplateService asyncService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        device = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        device.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        device.createContext("/channelStatus/", exchange -> {
+            try {
+                Thread.sleep(DEVICE_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"volume\":40,\"mute\":false}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        device.start();
+
+        RestTemplateConfig config = new RestTemplateConfig();
+        RestTemplate restTemplate = config.restTemplate(config.simpleRequestFactory(),
+                new FirmwareCircuitBreakers(10, 4, 50, Duration.ofSeconds(10)));
+        RestTemplateService restTemplateService = new RestTemplateService();
+        ReflectionTestUtils.setField(restTemplateService, "restTemplate", restTemplate);
+        MixerDeviceProperties devices = new MixerDeviceProperties();
+        devices.setBaseUrl("http://127.0.0.1:" + device.getAddress().getPort() + "/");
+        ReflectionTestUtils.setField(restTemplateService, "deviceRegistry", new MixerDeviceRegistry(devices));
+        ReflectionTestUtils.setField(restTemplateService, "meterRegistry", meterRegistry);
+
+        firmwareExecutor = new AsyncConfig().firmwareExecutor();
+        asyncService = new AsyncRestTemplateService(restTemplateService, firmwareExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        firmwareExecutor.close();
+        device.stop(0);
+    }
+
+    @Test
+    void concurrent_calls_do_not_hold_platform_threads() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<ResponseEntity<String>>> calls = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_CALLS; i++) {
+            calls.add(asyncService.getStatusChannel(i % 4));
+        }
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int peakThreads = threads.getPeakThreadCount();
+
+        assertTrue(calls.stream().allMatch(call -> call.join().getStatusCode().is2xxSuccessful()));
+        // sequential would take CONCURRENT_CALLS * DEVICE_DELAY_MS = 50 s
+        assertTrue(seconds < 10, "took " + seconds + " s");
+        assertTrue(peakThreads - threadsBefore < CONCURRENT_CALLS / 4,
+                "platform threads grew from " + threadsBefore + " to " + peakThreads);
+        assertEquals(CONCURRENT_CALLS, meterRegistry.get("mixer.device.requests")
+                .tags("endpoint", "channelStatus", "status", "200").timer().count());
+    }
+}
@@ -0,0 +1,64 @@
+package com.cenfotec.volumemcp.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.cenfotec.volumemcp.repository.InstrumentIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ChannelMapServiceTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void swaps_in_a_new_snapshot_when_the_file_changes() throws IOException {
+        Path file = dir.resolve("channels.json");
+        Files.writeString(file, """
+                {"instruments": [{"name": "guitarra", "channel": 0}], "synonyms": {"guitar": "guitarra"}}
+                """);
+        List<Object> events = new ArrayList<>();
+        ChannelMapService service = new ChannelMapService(new ObjectMapper(), events::add, file.toString());
+        InstrumentIndex before = service.current();
+
+        Files.writeString(file, """
+                {"instruments": [{"name": "guitarra", "channel": 0}, {"name": "teclado", "channel": 4}],
+                 "synonyms": {"keys": "teclado"}}
+                """);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+        service.reloadIfChanged();
+
+        assertEquals(4, service.current().find("keys").orElseThrow().getChannel());
+        assertEquals(1, before.getInstruments().size());
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    void keeps_previous_snapshot_when_the_file_is_invalid() throws IOException {
+        Path file = dir.resolve("channels.json");
+        Files.writeString(file, """
+                {"instruments": [{"name": "voz", "channel": 1}]}
+                """);
+        ChannelMapService service = new ChannelMapService(new ObjectMapper(), event -> { }, file.toString());
+        InstrumentIndex before = service.current();
+
+        Files.writeString(file, "{\"instruments\": []}");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+        service.reloadIfChanged();
+
+        assertSame(before, service.current());
+        assertTrue(service.current().find("voz").isPresent());
+    }
+}
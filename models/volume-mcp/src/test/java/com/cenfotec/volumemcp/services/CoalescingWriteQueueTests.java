@@ -0,0 +1,140 @@
+package com.cenfotec.volumemcp.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.http.ResponseEntity;
+
+import com.cenfotec.volumemcp.models.WriteOutcome;
+
+class CoalescingWriteQueueTests {
+
+    private final RestTemplateService restTemplateService = mock(RestTemplateService.class);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CoalescingWriteQueue queue = new CoalescingWriteQueue(restTemplateService, executor);
+
+    private final CountDownLatch inFlight = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.close();
+    }
+
+    @Test
+    void write_with_nothing_in_flight_is_sent_right_away() throws Exception {
+        when(restTemplateService.setVolume(anyInt(), anyInt())).thenReturn(ResponseEntity.ok("ok"));
+
+        WriteOutcome outcome = queue.setVolume(1, 40).get(1, TimeUnit.SECONDS);
+
+        assertFalse(outcome.superseded());
+        assertEquals("ok", outcome.response().getBody());
+        assertEquals(0, queue.getStats().collapsed());
+    }
+
+    @Test
+    void burst_behind_an_in_flight_write_sends_only_the_latest_value() throws InterruptedException {
+        when(restTemplateService.setVolume(anyInt(), anyInt())).thenReturn(ResponseEntity.ok("ok"));
+        CompletableFuture<WriteOutcome> first = blockedVolumeWrite(1, 10);
+
+        List<CompletableFuture<WriteOutcome>> writes = new ArrayList<>();
+        for (int value = 20; value <= 50; value += 10) {
+            writes.add(queue.setVolume(1, value));
+        }
+        release.countDown();
+
+        assertFalse(first.join().superseded());
+        for (CompletableFuture<WriteOutcome> write : writes.subList(0, 3)) {
+            assertTrue(write.join().superseded());
+            assertEquals(50, write.join().supersededBy());
+        }
+        assertFalse(writes.get(3).join().superseded());
+        verify(restTemplateService).setVolume(10, 1);
+        verify(restTemplateService).setVolume(50, 1);
+        verify(restTemplateService, never()).setVolume(30, 1);
+        assertEquals(5, queue.getStats().submitted());
+        assertEquals(2, queue.getStats().sent());
+        assertEquals(3, queue.getStats().collapsed());
+    }
+
+    @Test
+    void mute_is_kept_separate_and_in_submission_order() throws InterruptedException {
+        when(restTemplateService.setVolume(anyInt(), anyInt())).thenReturn(ResponseEntity.ok("ok"));
+        when(restTemplateService.setMute(anyInt(), anyBoolean())).thenReturn(ResponseEntity.ok("ok"));
+        CompletableFuture<WriteOutcome> first = blockedVolumeWrite(2, 10);
+
+        CompletableFuture<WriteOutcome> staleVolume = queue.setVolume(2, 30);
+        CompletableFuture<WriteOutcome> mute = queue.setMute(2, true);
+        CompletableFuture<WriteOutcome> latestVolume = queue.setVolume(2, 70);
+        release.countDown();
+        CompletableFuture.allOf(first, staleVolume, mute, latestVolume).join();
+
+        InOrder order = inOrder(restTemplateService);
+        order.verify(restTemplateService).setVolume(10, 2);
+        order.verify(restTemplateService).setMute(2, true);
+        order.verify(restTemplateService).setVolume(70, 2);
+        verify(restTemplateService, never()).setVolume(30, 2);
+        assertEquals(70, staleVolume.join().supersededBy());
+        assertFalse(mute.join().superseded());
+    }
+
+    @Test
+    void write_that_throws_an_error_fails_its_callers_and_frees_the_channel() throws Exception {
+        when(restTemplateService.setVolume(10, 3)).thenThrow(new AssertionError("firmware client broken"));
+        when(restTemplateService.setVolume(20, 3)).thenReturn(ResponseEntity.ok("ok"));
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> queue.setVolume(3, 10).get(1, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof AssertionError);
+
+        assertEquals("ok", queue.setVolume(3, 20).get(1, TimeUnit.SECONDS).response().getBody());
+    }
+
+    @Test
+    void rejected_flush_fails_the_write_instead_of_leaving_it_pending() throws Exception {
+        ExecutorService stopped = Executors.newVirtualThreadPerTaskExecutor();
+        stopped.shutdown();
+        CoalescingWriteQueue rejecting = new CoalescingWriteQueue(restTemplateService, stopped);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> rejecting.setVolume(4, 10).get(1, TimeUnit.SECONDS));
+
+        assertTrue(failure.getCause() instanceof RejectedExecutionException);
+        verify(restTemplateService, never()).setVolume(10, 4);
+    }
+
+    /**
+     * Sends a volume write that stays in flight until {@link #release} is counted down.
+     */
+    private CompletableFuture<WriteOutcome> blockedVolumeWrite(int channel, int value) throws InterruptedException {
+        when(restTemplateService.setVolume(value, channel)).thenAnswer(invocation -> {
+            inFlight.countDown();
+            release.await();
+            return ResponseEntity.ok("ok");
+        });
+        CompletableFuture<WriteOutcome> write = queue.setVolume(channel, value);
+        assertTrue(inFlight.await(1, TimeUnit.SECONDS));
+        return write;
+    }
+}
@@ -0,0 +1,54 @@
+package com.cenfotec.volumemcp.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class FirmwareCircuitBreakerTests {
+
+    @Test
+    void opens_after_failure_rate_and_fails_fast() {
+        FirmwareCircuitBreaker breaker = new FirmwareCircuitBreaker("device", 10, 4, 50, Duration.ofMinutes(1));
+
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(FirmwareCircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onFailure();
+        assertEquals(FirmwareCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.isProbeDue());
+    }
+
+    @Test
+    void half_open_allows_one_trial_and_closes_on_success() {
+        FirmwareCircuitBreaker breaker = new FirmwareCircuitBreaker("device", 4, 2, 50, Duration.ZERO);
+        breaker.onFailure();
+        breaker.onFailure();
+        assertTrue(breaker.isProbeDue());
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(FirmwareCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(FirmwareCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getStatus().bufferedCalls());
+    }
+
+    @Test
+    void failed_trial_reopens_the_circuit() {
+        FirmwareCircuitBreaker breaker = new FirmwareCircuitBreaker("device", 4, 2, 50, Duration.ZERO);
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(FirmwareCircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
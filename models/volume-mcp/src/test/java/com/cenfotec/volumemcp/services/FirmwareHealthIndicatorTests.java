@@ -0,0 +1,49 @@
+package com.cenfotec.volumemcp.services;
+
+import static com.cenfotec.volumemcp.services.MixerDeviceRegistryTests.device;
+import static com.cenfotec.volumemcp.services.MixerDeviceRegistryTests.properties;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import com.cenfotec.volumemcp.models.CircuitBreakerStatus;
+
+class FirmwareHealthIndicatorTests {
+
+    private final MixerDeviceRegistry deviceRegistry = new MixerDeviceRegistry(properties(
+            device("front", "http://front", "main", 0, 4),
+            device("side", "http://side/", "side", 4, 4)));
+    private final FirmwareCircuitBreakers circuitBreakers = new FirmwareCircuitBreakers(4, 2, 50, Duration.ofMinutes(1));
+    private final FirmwareHealthIndicator healthIndicator = new FirmwareHealthIndicator(circuitBreakers, deviceRegistry);
+
+    @Test
+    void stays_up_while_any_device_is_reachable() {
+        open("front");
+
+        Health health = healthIndicator.health();
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals("OPEN", ((CircuitBreakerStatus) health.getDetails().get("front")).state());
+        assertEquals("CLOSED", ((CircuitBreakerStatus) health.getDetails().get("side")).state());
+    }
+
+    @Test
+    void is_down_once_every_device_is_open() {
+        open("front");
+        open("side");
+
+        assertEquals(Status.DOWN, healthIndicator.health().getStatus());
+    }
+
+    private void open(String name) {
+        FirmwareCircuitBreaker breaker = circuitBreakers.forDevice(deviceRegistry.getDevices().stream()
+                .filter(device -> device.name().equals(name))
+                .findFirst()
+                .orElseThrow());
+        breaker.onFailure();
+        breaker.onFailure();
+    }
+}
@@ -0,0 +1,41 @@
+package com.cenfotec.volumemcp.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class FirmwareStatsMetricsTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RestTemplateService restTemplateService = mock(RestTemplateService.class);
+
+    @Test
+    void meters_follow_the_cache_and_write_queue_counters() throws Exception {
+        MixerStateCache cache = new MixerStateCache(restTemplateService, Duration.ofMinutes(1));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CoalescingWriteQueue writeQueue = new CoalescingWriteQueue(restTemplateService, executor);
+            new FirmwareStatsMetrics(writeQueue, cache).bindTo(meterRegistry);
+            when(restTemplateService.getStatusChannel(1)).thenReturn(ResponseEntity.ok("{\"volume\":40}"));
+            when(restTemplateService.setVolume(40, 1)).thenReturn(ResponseEntity.ok("ok"));
+
+            cache.getStatusChannel(1, false);
+            cache.getStatusChannel(1, false);
+            writeQueue.setVolume(1, 40).get();
+        }
+
+        assertEquals(1, meterRegistry.get("mixer.cache.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("mixer.cache.requests").tag("result", "miss").functionCounter().count());
+        assertEquals(1, meterRegistry.get("mixer.cache.entries").gauge().value());
+        assertEquals(1, meterRegistry.get("mixer.writes").tag("state", "sent").functionCounter().count());
+        assertEquals(0, meterRegistry.get("mixer.writes").tag("state", "collapsed").functionCounter().count());
+    }
+}
@@ -0,0 +1,67 @@
+package com.cenfotec.volumemcp.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.cenfotec.volumemcp.config.MixerDeviceProperties;
+import com.cenfotec.volumemcp.models.MixerDevice;
+
+class MixerDeviceRegistryTests {
+
+    private final MixerDeviceRegistry registry = new MixerDeviceRegistry(properties(
+            device("front", "http://front", "main", 0, 4),
+            device("side", "http://side/", "side", 4, 4)));
+
+    @Test
+    void routes_each_channel_to_the_device_owning_its_range() {
+        assertEquals("front", registry.forChannel(3).name());
+        assertEquals("side", registry.forChannel(4).name());
+        assertEquals(1, registry.forChannel(5).localChannel(5));
+        assertEquals("http://front/", registry.forChannel(0).baseUrl());
+    }
+
+    @Test
+    void channel_outside_every_range_has_no_owner() {
+        assertTrue(registry.owner(8).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> registry.forChannel(8));
+    }
+
+    @Test
+    void rooms_select_their_devices_and_no_room_selects_all() {
+        assertEquals(List.of("side"), registry.inRoom(" SIDE ").stream().map(MixerDevice::name).toList());
+        assertEquals(2, registry.inRoom(null).size());
+        assertEquals(2, registry.inRoom("").size());
+        assertTrue(registry.inRoom("backstage").isEmpty());
+    }
+
+    @Test
+    void without_devices_the_base_url_owns_every_channel() {
+        MixerDeviceProperties properties = new MixerDeviceProperties();
+        properties.setBaseUrl("http://mixer");
+        MixerDeviceRegistry single = new MixerDeviceRegistry(properties);
+
+        assertEquals("http://mixer/", single.forChannel(1_000).baseUrl());
+        assertEquals(1_000, single.forChannel(1_000).localChannel(1_000));
+    }
+
+    static MixerDeviceProperties properties(MixerDeviceProperties.Device... devices) {
+        MixerDeviceProperties properties = new MixerDeviceProperties();
+        properties.setDevices(List.of(devices));
+        return properties;
+    }
+
+    static MixerDeviceProperties.Device device(String name, String baseUrl, String room, int firstChannel, int channelCount) {
+        MixerDeviceProperties.Device device = new MixerDeviceProperties.Device();
+        device.setName(name);
+        device.setBaseUrl(baseUrl);
+        device.setRoom(room);
+        device.setFirstChannel(firstChannel);
+        device.setChannelCount(channelCount);
+        return device;
+    }
+}
@@ -0,0 +1,102 @@
+package com.cenfotec.volumemcp.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.cenfotec.volumemcp.models.MixerCacheStats;
+import com.cenfotec.volumemcp.models.MixerDevice;
+
+class MixerStateCacheTests {
+
+    private static final MixerDevice DEVICE = new MixerDevice("main", "http://localhost/", null, 0, 8);
+
+    private final RestTemplateService restTemplateService = mock(RestTemplateService.class);
+
+    @Test
+    void counts_hits_and_misses() {
+        MixerStateCache cache = new MixerStateCache(restTemplateService, Duration.ofMinutes(1));
+        when(restTemplateService.getStatusChannel(1)).thenReturn(ResponseEntity.ok("{\"volume\":40}"));
+
+        cache.getStatusChannel(1, false);
+        cache.getStatusChannel(1, false);
+        cache.getStatusChannel(1, false);
+
+        verify(restTemplateService, times(1)).getStatusChannel(1);
+        assertEquals(new MixerCacheStats(2, 1, 0, 1), cache.getStats());
+    }
+
+    @Test
+    void entries_expire_after_the_ttl() throws InterruptedException {
+        MixerStateCache cache = new MixerStateCache(restTemplateService, Duration.ofMillis(50));
+        when(restTemplateService.getSpeakerStatus(DEVICE)).thenReturn(ResponseEntity.ok("{\"volume\":40}"));
+
+        cache.getSpeakerStatus(DEVICE, false);
+        Thread.sleep(80);
+        cache.getSpeakerStatus(DEVICE, false);
+
+        verify(restTemplateService, times(2)).getSpeakerStatus(DEVICE);
+        assertEquals(0, cache.getStats().hits());
+    }
+
+    @Test
+    void write_invalidates_the_channel_and_every_speaker_status() {
+        MixerStateCache cache = new MixerStateCache(restTemplateService, Duration.ofMinutes(1));
+        when(restTemplateService.getStatusChannel(1)).thenReturn(ResponseEntity.ok("{\"volume\":40}"));
+        when(restTemplateService.getStatusChannel(2)).thenReturn(ResponseEntity.ok("{\"volume\":70}"));
+        when(restTemplateService.getSpeakerStatus(DEVICE)).thenReturn(ResponseEntity.ok("{\"volume\":55}"));
+        AtomicInteger notified = new AtomicInteger();
+        cache.addInvalidationListener(notified::incrementAndGet);
+        cache.getStatusChannel(1, false);
+        cache.getStatusChannel(2, false);
+        cache.getSpeakerStatus(DEVICE, false);
+        long generation = cache.getGeneration();
+
+        cache.invalidateChannel(1);
+        cache.getStatusChannel(1, false);
+        cache.getStatusChannel(2, false);
+        cache.getSpeakerStatus(DEVICE, false);
+
+        verify(restTemplateService, times(2)).getStatusChannel(1);
+        verify(restTemplateService, times(1)).getStatusChannel(2);
+        verify(restTemplateService, times(2)).getSpeakerStatus(DEVICE);
+        assertEquals(generation + 1, cache.getGeneration());
+        assertEquals(1, cache.getStats().invalidations());
+        assertEquals(1, notified.get());
+    }
+
+    @Test
+    void refresh_reads_the_device_again_and_stores_the_new_value() {
+        MixerStateCache cache = new MixerStateCache(restTemplateService, Duration.ofMinutes(1));
+        when(restTemplateService.getStatusChannel(1))
+                .thenReturn(ResponseEntity.ok("{\"volume\":40}"))
+                .thenReturn(ResponseEntity.ok("{\"volume\":45}"));
+
+        cache.getStatusChannel(1, false);
+        assertEquals("{\"volume\":45}", cache.getStatusChannel(1, true).getBody());
+        assertEquals("{\"volume\":45}", cache.getStatusChannel(1, false).getBody());
+
+        assertEquals(new MixerCacheStats(1, 2, 0, 1), cache.getStats());
+    }
+
+    @Test
+    void error_responses_are_not_cached() {
+        MixerStateCache cache = new MixerStateCache(restTemplateService, Duration.ofMinutes(1));
+        when(restTemplateService.getStatusChannel(1)).thenReturn(ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("busy"));
+
+        cache.getStatusChannel(1, false);
+        cache.getStatusChannel(1, false);
+
+        verify(restTemplateService, times(2)).getStatusChannel(1);
+        assertEquals(0, cache.getStats().entries());
+    }
+}
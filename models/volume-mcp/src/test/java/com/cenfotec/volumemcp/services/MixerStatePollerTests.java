@@ -0,0 +1,174 @@
+package com.cenfotec.volumemcp.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import com.cenfotec.volumemcp.models.MixerDevice;
+import com.cenfotec.volumemcp.models.MixerSnapshot;
+import com.cenfotec.volumemcp.models.MixerStateDelta;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class MixerStatePollerTests {
+
+    private static final MixerDevice DEVICE = new MixerDevice("main", "http://localhost/", "main", 0, 4);
+
+    private final MixerDeviceRegistry deviceRegistry = mock(MixerDeviceRegistry.class);
+    private final RestTemplateService restTemplateService = mock(RestTemplateService.class);
+    private final MixerStateCache mixerStateCache = new MixerStateCache(restTemplateService, Duration.ofSeconds(2));
+    private MixerStatePoller poller;
+
+    @AfterEach
+    void tearDown() {
+        poller.stop();
+    }
+
+    @Test
+    void publishes_only_the_changed_fields() throws InterruptedException {
+        poller = poller(Duration.ofSeconds(3), 16);
+        BlockingQueue<MixerStateDelta> deltas = new LinkedBlockingQueue<>();
+        poller.subscribe(snapshot -> { }, deltas::add);
+
+        status("{\"volume\": 50, \"mute\": false, \"eq\": \"flat\"}");
+        status("{\"volume\": 70, \"mute\": false}");
+        status("{\"volume\": 70, \"mute\": false}");
+
+        MixerStateDelta first = deltas.poll(1, TimeUnit.SECONDS);
+        MixerStateDelta second = deltas.poll(1, TimeUnit.SECONDS);
+        assertEquals(1, first.version());
+        assertEquals(50, first.changes().get("volume").asInt());
+        assertEquals(2, second.version());
+        assertEquals(70, second.changes().get("volume").asInt());
+        assertTrue(second.changes().get("eq").isNull());
+        assertFalse(second.changes().has("mute"));
+        // an unchanged status is not published
+        assertNull(deltas.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void backs_off_to_the_slow_interval_while_nothing_changes() {
+        poller = poller(Duration.ZERO, 16);
+        when(deviceRegistry.getDevices()).thenReturn(List.of(DEVICE));
+        when(restTemplateService.getSpeakerStatus(any())).thenReturn(ResponseEntity.ok("{\"volume\": 50}"));
+
+        poller.poll();
+        assertEquals(Duration.ofMillis(200), poller.currentDelay());
+        poller.poll();
+        assertEquals(Duration.ofMillis(400), poller.currentDelay());
+        for (int i = 0; i < 5; i++) {
+            poller.poll();
+        }
+        assertEquals(Duration.ofSeconds(1), poller.currentDelay());
+    }
+
+    @Test
+    void stays_on_the_fast_interval_while_the_mixer_changes() {
+        poller = poller(Duration.ofSeconds(3), 16);
+        when(deviceRegistry.getDevices()).thenReturn(List.of(DEVICE));
+        AtomicInteger volume = new AtomicInteger();
+        when(restTemplateService.getSpeakerStatus(any()))
+                .thenAnswer(invocation -> ResponseEntity.ok("{\"volume\": " + volume.incrementAndGet() + "}"));
+
+        for (int i = 0; i < 5; i++) {
+            poller.poll();
+        }
+
+        assertEquals(Duration.ofMillis(100), poller.currentDelay());
+    }
+
+    @Test
+    void polls_the_device_without_touching_the_read_cache() {
+        poller = poller(Duration.ofSeconds(3), 16);
+        status("{\"volume\": 50}");
+
+        assertEquals(0, mixerStateCache.getStats().misses());
+        assertEquals("{\"volume\": 50}", poller.latest(DEVICE).orElseThrow().body());
+    }
+
+    @Test
+    void drops_a_failing_subscriber_and_keeps_the_others() throws InterruptedException {
+        poller = poller(Duration.ofSeconds(3), 16);
+        AtomicInteger failing = new AtomicInteger();
+        poller.subscribe(snapshot -> { }, delta -> {
+            failing.incrementAndGet();
+            throw new IllegalStateException("client gone");
+        });
+        BlockingQueue<MixerStateDelta> deltas = new LinkedBlockingQueue<>();
+        poller.subscribe(snapshot -> { }, deltas::add);
+
+        status("{\"volume\": 50}");
+        assertEquals(1, deltas.poll(1, TimeUnit.SECONDS).version());
+        status("{\"volume\": 60}");
+        assertEquals(2, deltas.poll(1, TimeUnit.SECONDS).version());
+
+        assertEquals(1, failing.get());
+    }
+
+    @Test
+    void slow_subscriber_does_not_hold_up_the_poll_and_is_dropped_when_its_buffer_fills() throws InterruptedException {
+        poller = poller(Duration.ofSeconds(3), 2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger delivered = new AtomicInteger();
+        poller.subscribe(snapshot -> { }, delta -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            delivered.incrementAndGet();
+        });
+
+        long start = System.nanoTime();
+        for (int volume = 0; volume < 10; volume++) {
+            status("{\"volume\": " + volume + "}");
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+        Thread.sleep(100);
+
+        assertTrue(elapsedMs < 1_000, "poll blocked for " + elapsedMs + " ms");
+        // the change being delivered plus the two buffered ones, the rest was dropped with the subscriber
+        assertTrue(delivered.get() <= 3, "delivered " + delivered.get());
+    }
+
+    @Test
+    void new_subscriber_gets_the_snapshots_before_any_delta() throws InterruptedException {
+        poller = poller(Duration.ofSeconds(3), 16);
+        status("{\"volume\": 50}");
+        BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        poller.subscribe(events::add, events::add);
+        status("{\"volume\": 60}");
+
+        MixerSnapshot snapshot = (MixerSnapshot) events.poll(1, TimeUnit.SECONDS);
+        MixerStateDelta delta = (MixerStateDelta) events.poll(1, TimeUnit.SECONDS);
+        assertEquals(1, snapshot.version());
+        assertEquals(2, delta.version());
+    }
+
+    private MixerStatePoller poller(Duration activeWindow, int subscriberBuffer) {
+        return new MixerStatePoller(deviceRegistry, restTemplateService, mixerStateCache, new ObjectMapper(), false,
+                Duration.ofMillis(100), Duration.ofSeconds(1), activeWindow, subscriberBuffer);
+    }
+
+    private void status(String body) {
+        when(deviceRegistry.getDevices()).thenReturn(List.of(DEVICE));
+        when(restTemplateService.getSpeakerStatus(any())).thenReturn(ResponseEntity.ok(body));
+        poller.poll();
+    }
+}
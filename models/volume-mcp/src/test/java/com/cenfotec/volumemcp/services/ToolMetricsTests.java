@@ -0,0 +1,90 @@
+package com.cenfotec.volumemcp.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ToolMetricsTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ToolMetrics toolMetrics = new ToolMetrics(meterRegistry, new ObjectMapper());
+
+    @Test
+    void tags_each_call_with_its_outcome() {
+        ToolCallback tool = toolMetrics.timed(tool("setVolume"));
+
+        tool.call(response("Instrument 'guitarra' volume set to 75", "OK", 200));
+        tool.call(response("Instrument 'guitarra' volume set to 75 (simulated - device offline)", "OK", 200));
+        tool.call(response("Remote service error: busy", "SERVICE_UNAVAILABLE", 503));
+        tool.call(response("busy", "INTERNAL_SERVER_ERROR", 500));
+
+        assertEquals(1, count("setVolume", "success"));
+        assertEquals(1, count("setVolume", "offline"));
+        assertEquals(2, count("setVolume", "remote_error"));
+    }
+
+    @Test
+    void a_channel_without_a_device_is_not_a_success() {
+        ToolCallback tool = toolMetrics.timed(tool("setVolume"));
+
+        tool.call(response("No mixer device owns channel 9 of instrument 'bajo'", "NOT_FOUND", 404));
+
+        assertEquals(1, count("setVolume", "no_device"));
+        assertEquals(0, meterRegistry.find("mixer.tool.calls").tags("outcome", "success").timers().size());
+    }
+
+    @Test
+    void several_devices_report_the_worst_outcome() {
+        ToolCallback tool = toolMetrics.timed(tool("changeVolumeSpeaker"));
+
+        tool.call("main-stage: ok\nside-stage: Change channel volume to 40 (simulated - device offline)");
+        tool.call("main-stage: remote service error: busy\nside-stage: Change channel volume to 40 (simulated - device offline)");
+
+        assertEquals(1, count("changeVolumeSpeaker", "offline"));
+        assertEquals(1, count("changeVolumeSpeaker", "remote_error"));
+    }
+
+    @Test
+    void failed_calls_are_timed_as_errors() {
+        ToolCallback tool = toolMetrics.timed(tool("setMute"));
+
+        assertThrows(IllegalStateException.class, () -> tool.call("fail"));
+        assertEquals(1, count("setMute", "error"));
+    }
+
+    // a ResponseEntity as the tool result converter serializes it
+    private static String response(String body, String status, int statusValue) {
+        return String.format("{\"headers\":{},\"body\":\"%s\",\"statusCode\":\"%s\",\"statusCodeValue\":%d}",
+                body, status, statusValue);
+    }
+
+    private long count(String tool, String outcome) {
+        return meterRegistry.get("mixer.tool.calls").tags("tool", tool, "outcome", outcome).timer().count();
+    }
+
+    // echoes its input as the tool result
+    private static ToolCallback tool(String name) {
+        ToolDefinition definition = ToolDefinition.builder().name(name).description(name).inputSchema("{}").build();
+        return new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return definition;
+            }
+
+            @Override
+            public String call(String toolInput) {
+                if ("fail".equals(toolInput)) {
+                    throw new IllegalStateException("tool failed");
+                }
+                return toolInput;
+            }
+        };
+    }
+}
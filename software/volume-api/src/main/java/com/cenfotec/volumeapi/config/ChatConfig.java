@@ -1,22 +1,113 @@
 package com.cenfotec.volumeapi.config;
 
+import com.cenfotec.volumeapi.service.ModelAdmission;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.model.ChatModel;
-import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
+import org.springframework.ai.mcp.customizer.McpSyncClientCustomizer;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 @Configuration
 public class ChatConfig {
-    @Bean // Use @Qualifier("ollamaChatModel") or @Qualifier("vertexAiGeminiChat") depending on the chat model you want to inject
-    ChatClient chatClient(@Qualifier("vertexAiGeminiChat") ChatModel chatModel, SyncMcpToolCallbackProvider toolCallbackProvider) {
+    @Bean
+    ChatClient chatClient(RoutingChatModel chatModel, ChatMemory chatMemory) {
+        // tools are passed per turn from the McpToolRegistry snapshot
         return ChatClient
                 .builder(chatModel)
-                .defaultToolCallbacks(toolCallbackProvider.getToolCallbacks())
+                .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
                 .defaultSystem("You are a friendly chatbot that helps manage mixer line volumes. Only answer questions that correspond to the provided tool callbacks. Do not answer questions outside of the tools, and do not mention the tools themselves. If a user asks something unrelated, politely tell them you can only help with mixer volume actions, using friendly language. Always answer in Spanish. If you receive a request and don't understand, ask for clarification.")
                 .build();
     }
 
+    @Bean(destroyMethod = "close")
+    RoutingChatModel routingChatModel(@Qualifier("ollamaChatModel") ChatModel local,
+                                      @Qualifier("vertexAiGeminiChat") ChatModel remote,
+                                      @Value("${chat.routing.simple-max-chars:60}") int simpleMaxChars,
+                                      @Value("${chat.routing.hedge.enabled:true}") boolean hedge,
+                                      @Value("${chat.routing.hedge.min-samples:20}") int minSamples,
+                                      ToolCallingManager toolCallingManager,
+                                      ModelAdmission modelAdmission) {
+        return new RoutingChatModel(local, remote, simpleMaxChars, hedge, minSamples, toolCallingManager, modelAdmission);
+    }
+
+    @Bean
+    McpSyncClientCustomizer toolsChangedCustomizer(McpToolRegistry toolRegistry) {
+        return (connectionName, spec) -> spec.toolsChangeConsumer(tools -> toolRegistry.onToolsChanged(connectionName, tools));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "chat.tools.execution", havingValue = "parallel", matchIfMissing = true)
+    ToolCallingManager parallelToolCallingManager(ObjectProvider<ObservationRegistry> observationRegistry,
+                                                  McpToolRegistry toolRegistry,
+                                                  ToolExecutionExceptionProcessor exceptionProcessor,
+                                                  ExecutorService toolCallExecutor,
+                                                  @Value("${chat.tools.max-parallel:4}") int maxParallel,
+                                                  ObjectMapper objectMapper) {
+        ToolCallingManager sequential = ToolCallingManager.builder()
+                .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
+                // resolve through the registry: the auto-configured resolver copies the tools once at startup
+                .toolCallbackResolver(name -> toolRegistry.find(name).orElse(null))
+                .toolExecutionExceptionProcessor(exceptionProcessor)
+                .build();
+        return new ParallelToolCallingManager(sequential, exceptionProcessor, toolCallExecutor, maxParallel, objectMapper);
+    }
+
+    @Bean(destroyMethod = "close")
+    ExecutorService toolCallExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tool-call-", 0).factory());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "chat.memory.store", havingValue = "heap", matchIfMissing = true)
+    InMemoryChatMemory chatMemory(@Value("${chat.memory.max-messages:20}") int maxMessages,
+                                  @Value("${chat.memory.max-tokens:2000}") int maxTokens,
+                                  @Value("${chat.memory.max-conversations:10000}") int maxConversations,
+                                  @Value("${chat.memory.max-size:64MB}") DataSize maxSize,
+                                  @Value("${chat.memory.idle-ttl:30m}") Duration idleTtl) {
+        return new InMemoryChatMemory(maxMessages, maxTokens, maxConversations, maxSize.toBytes(), idleTtl);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "chat.memory.store", havingValue = "file")
+    FileChatMemory fileChatMemory(@Value("${chat.memory.file.path:data/chat-memory}") Path path,
+                                  @Value("${chat.memory.max-messages:20}") int maxMessages,
+                                  @Value("${chat.memory.max-tokens:2000}") int maxTokens,
+                                  @Value("${chat.memory.idle-ttl:30m}") Duration idleTtl,
+                                  @Value("${chat.memory.file.segment-size:64MB}") DataSize segmentSize,
+                                  @Value("${chat.memory.file.index-slots:262144}") int indexSlots,
+                                  @Value("${chat.memory.file.flush-interval:1s}") Duration flushInterval,
+                                  @Value("${chat.memory.file.compaction-interval:5m}") Duration compactionInterval) throws IOException {
+        return new FileChatMemory(path, maxMessages, maxTokens, idleTtl, segmentSize.toBytes(), indexSlots, flushInterval, compactionInterval);
+    }
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    SummarizingChatMemory summarizingChatMemory(MonitoredChatMemory store,
+                                                @Qualifier("ollamaChatModel") ChatModel summarizer,
+                                                @Value("${chat.memory.summary.enabled:true}") boolean enabled,
+                                                @Value("${chat.memory.summary.token-budget:1200}") int tokenBudget,
+                                                @Value("${chat.memory.summary.keep-recent:6}") int keepRecent,
+                                                @Value("${chat.memory.max-conversations:10000}") int maxConversations) {
+        return new SummarizingChatMemory(store, summarizer, enabled, tokenBudget, keepRecent, maxConversations);
+    }
+
 }
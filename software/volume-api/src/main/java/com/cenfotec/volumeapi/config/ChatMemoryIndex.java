@@ -0,0 +1,270 @@
+package com.cenfotec.volumeapi.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped open addressing table from a conversation id hash to the log position of its latest snapshot.
+ * <p>
+ * The table lives in the page cache, so reopening it after a restart costs a single {@code mmap}
+ * instead of a replay of the log. The header keeps the log position up to which the table was last flushed,
+ * only the records after it need to be replayed.
+ */
+final class ChatMemoryIndex implements Closeable {
+
+    private static final int MAGIC = 0x43484d49;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 32;
+
+    private static final int H_MAGIC = 0;
+    private static final int H_CAPACITY = 4;
+    private static final int H_SIZE = 8;
+    private static final int H_USED = 12;
+    private static final int H_MESSAGES = 16;
+    private static final int H_CHECKPOINT_SEGMENT = 24;
+    private static final int H_CHECKPOINT_OFFSET = 32;
+
+    private static final int S_HASH = 0;
+    private static final int S_SEGMENT = 8;
+    private static final int S_OFFSET = 12;
+    private static final int S_LAST_ACCESS = 16;
+    private static final int S_MESSAGES = 24;
+
+    private static final int TOMBSTONE = -1;
+
+    private final Path file;
+    private final boolean recovered;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+
+    private ChatMemoryIndex(Path file, FileChannel channel, MappedByteBuffer buffer, int capacity, boolean recovered) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.recovered = recovered;
+    }
+
+    /**
+     * Maps the index file, or creates an empty one with {@code slots} slots when it is missing or unreadable.
+     */
+    static ChatMemoryIndex open(Path file, int slots) throws IOException {
+        if (Files.exists(file) && Files.size(file) >= HEADER_BYTES) {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int capacity = buffer.getInt(H_CAPACITY);
+            if (buffer.getInt(H_MAGIC) == MAGIC && Integer.bitCount(capacity) == 1
+                    && channel.size() == HEADER_BYTES + (long) capacity * SLOT_BYTES) {
+                return new ChatMemoryIndex(file, channel, buffer, capacity, true);
+            }
+            channel.close();
+        }
+        int capacity = Integer.highestOneBit(Math.max(slots, 16) - 1) << 1;
+        FileChannel channel = FileChannel.open(create(file, capacity, 0, 0), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new ChatMemoryIndex(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()), capacity, false);
+    }
+
+    /**
+     * Whether the table came from an existing file; a new table has to be rebuilt from the whole log.
+     */
+    boolean recovered() {
+        return recovered;
+    }
+
+    static long hash(String conversationId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : conversationId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        // 0 marks an empty slot
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Slot holding the live entry for {@code hash}, or -1.
+     */
+    int find(long hash) {
+        int mask = capacity - 1;
+        for (int i = start(hash), n = 0; n < capacity; i = (i + 1) & mask, n++) {
+            long slotHash = buffer.getLong(slot(i) + S_HASH);
+            if (slotHash == 0) {
+                return -1;
+            }
+            if (slotHash == hash && segment(i) != TOMBSTONE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    void put(long hash, int segment, int offset, long lastAccess, int messages) throws IOException {
+        if (used() + 1 > capacity / 4 * 3) {
+            grow();
+        }
+        int mask = capacity - 1;
+        int reusable = -1;
+        for (int i = start(hash), n = 0; n < capacity; i = (i + 1) & mask, n++) {
+            long slotHash = buffer.getLong(slot(i) + S_HASH);
+            if (slotHash == 0) {
+                if (reusable < 0) {
+                    reusable = i;
+                    buffer.putInt(H_USED, used() + 1);
+                }
+                break;
+            }
+            if (segment(i) == TOMBSTONE) {
+                if (reusable < 0) {
+                    reusable = i;
+                }
+            } else if (slotHash == hash) {
+                addMessages(messages - messages(i));
+                write(i, hash, segment, offset, lastAccess, messages);
+                return;
+            }
+        }
+        buffer.putInt(H_SIZE, size() + 1);
+        addMessages(messages);
+        write(reusable, hash, segment, offset, lastAccess, messages);
+    }
+
+    void move(int slot, int segment, int offset) {
+        buffer.putInt(slot(slot) + S_SEGMENT, segment);
+        buffer.putInt(slot(slot) + S_OFFSET, offset);
+    }
+
+    void remove(int slot) {
+        addMessages(-messages(slot));
+        buffer.putInt(slot(slot) + S_SEGMENT, TOMBSTONE);
+        buffer.putInt(H_SIZE, size() - 1);
+    }
+
+    void touch(int slot, long lastAccess) {
+        buffer.putLong(slot(slot) + S_LAST_ACCESS, lastAccess);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    boolean live(int slot) {
+        return buffer.getLong(slot(slot) + S_HASH) != 0 && segment(slot) != TOMBSTONE;
+    }
+
+    int segment(int slot) {
+        return buffer.getInt(slot(slot) + S_SEGMENT);
+    }
+
+    int offset(int slot) {
+        return buffer.getInt(slot(slot) + S_OFFSET);
+    }
+
+    long lastAccess(int slot) {
+        return buffer.getLong(slot(slot) + S_LAST_ACCESS);
+    }
+
+    int messages(int slot) {
+        return buffer.getInt(slot(slot) + S_MESSAGES);
+    }
+
+    int size() {
+        return buffer.getInt(H_SIZE);
+    }
+
+    long totalMessages() {
+        return buffer.getLong(H_MESSAGES);
+    }
+
+    int checkpointSegment() {
+        return buffer.getInt(H_CHECKPOINT_SEGMENT);
+    }
+
+    long checkpointOffset() {
+        return buffer.getLong(H_CHECKPOINT_OFFSET);
+    }
+
+    /**
+     * Flushes the table, then records that the log is indexed up to {@code segment}/{@code offset}.
+     */
+    void checkpoint(int segment, long offset) {
+        buffer.force();
+        buffer.putInt(H_CHECKPOINT_SEGMENT, segment);
+        buffer.putLong(H_CHECKPOINT_OFFSET, offset);
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void grow() throws IOException {
+        int newCapacity = capacity;
+        while (size() + 1 > newCapacity / 2) {
+            newCapacity <<= 1;
+        }
+        Path rebuilt = create(file.resolveSibling(file.getFileName() + ".tmp"), newCapacity, checkpointSegment(), checkpointOffset());
+        try (FileChannel target = FileChannel.open(rebuilt, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer rebuiltBuffer = target.map(FileChannel.MapMode.READ_WRITE, 0, target.size());
+            ChatMemoryIndex copy = new ChatMemoryIndex(rebuilt, target, rebuiltBuffer, newCapacity, false);
+            for (int i = 0; i < capacity; i++) {
+                if (live(i)) {
+                    copy.put(buffer.getLong(slot(i) + S_HASH), segment(i), offset(i), lastAccess(i), messages(i));
+                }
+            }
+            rebuiltBuffer.force();
+        }
+        channel.close();
+        Files.move(rebuilt, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        capacity = newCapacity;
+    }
+
+    private static Path create(Path file, int capacity, int checkpointSegment, long checkpointOffset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+            header.putInt(H_MAGIC, MAGIC);
+            header.putInt(H_CAPACITY, capacity);
+            header.putInt(H_CHECKPOINT_SEGMENT, checkpointSegment);
+            header.putLong(H_CHECKPOINT_OFFSET, checkpointOffset);
+            header.force();
+        }
+        return file;
+    }
+
+    private void write(int slot, long hash, int segment, int offset, long lastAccess, int messages) {
+        int position = slot(slot);
+        buffer.putLong(position + S_HASH, hash);
+        buffer.putInt(position + S_SEGMENT, segment);
+        buffer.putInt(position + S_OFFSET, offset);
+        buffer.putLong(position + S_LAST_ACCESS, lastAccess);
+        buffer.putInt(position + S_MESSAGES, messages);
+    }
+
+    private void addMessages(long delta) {
+        buffer.putLong(H_MESSAGES, totalMessages() + delta);
+    }
+
+    private int used() {
+        return buffer.getInt(H_USED);
+    }
+
+    private int start(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+
+    private static int slot(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+}
@@ -0,0 +1,514 @@
+package com.cenfotec.volumeapi.config;
+
+import com.cenfotec.volumeapi.models.ChatMemoryStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Chat memory that survives restarts.
+ * <p>
+ * Every change appends a snapshot of the conversation window to a segmented log, and a memory-mapped
+ * {@link ChatMemoryIndex} points each conversation to its latest snapshot, so a read is one index probe and
+ * one positional read. A background compaction drops idle conversations and rewrites sealed segments that
+ * are mostly superseded snapshots. Sealed segments never change, so compaction reads them without the lock
+ * and only takes it to re-check and move one index entry at a time; chat turns are never held up by it.
+ */
+@Slf4j
+public class FileChatMemory implements MonitoredChatMemory, Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String INDEX_FILE = "index.bin";
+    // record = payload length + crc32 + payload
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int CHARS_PER_TOKEN = 4;
+    // index slots checked for idle conversations per lock acquisition
+    private static final int EVICTION_BATCH = 4096;
+
+    private final Path directory;
+    private final int maxMessages;
+    private final int maxTokens;
+    private final long idleTtlMillis;
+    private final long segmentBytes;
+    private final Clock clock;
+
+    private final TreeMap<Integer, FileChannel> segments = new TreeMap<>();
+    private final ChatMemoryIndex index;
+    private final ScheduledExecutorService maintenance;
+    private int activeSegment;
+
+    private final AtomicLong expiredEvictions = new AtomicLong();
+    private final AtomicLong trimmedMessages = new AtomicLong();
+    private final AtomicLong hashCollisions = new AtomicLong();
+
+    public FileChatMemory(Path directory, int maxMessages, int maxTokens, Duration idleTtl, long segmentBytes, int indexSlots,
+                          Duration flushInterval, Duration compactionInterval) throws IOException {
+        this(directory, maxMessages, maxTokens, idleTtl, segmentBytes, indexSlots, flushInterval, compactionInterval, Clock.systemUTC());
+    }
+
+    FileChatMemory(Path directory, int maxMessages, int maxTokens, Duration idleTtl, long segmentBytes, int indexSlots,
+                   Duration flushInterval, Duration compactionInterval, Clock clock) throws IOException {
+        // record offsets are stored as int in the index
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("chat.memory.file.segment-size must be between 1 byte and 2GB, got " + segmentBytes);
+        }
+        this.directory = directory;
+        this.maxMessages = maxMessages;
+        this.maxTokens = maxTokens;
+        this.idleTtlMillis = idleTtl.toMillis();
+        this.segmentBytes = segmentBytes;
+        this.clock = clock;
+
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                segments.put(Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), open(file));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(0, open(segmentPath(0)));
+        }
+        activeSegment = segments.lastKey();
+        index = ChatMemoryIndex.open(directory.resolve(INDEX_FILE), indexSlots);
+        recover();
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("chat-memory-maintenance").daemon().factory());
+        maintenance.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::compact, compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void add(String conversationId, List<Message> messages) {
+        List<Message> window = new ArrayList<>(get(conversationId));
+        boolean known = !window.isEmpty();
+        for (Message message : messages) {
+            if (message.getMessageType() != MessageType.TOOL) {
+                window.add(message);
+            }
+        }
+        trim(window);
+        long hash = ChatMemoryIndex.hash(conversationId);
+        int slot = index.find(hash);
+        if (slot >= 0 && !known) {
+            warnOnCollision(conversationId, slot);
+        }
+        long now = clock.millis();
+        try {
+            long position = append(encode(conversationId, now, window));
+            index.put(hash, activeSegment, (int) position, now, window.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not persist conversation " + conversationId, e);
+        }
+    }
+
+    @Override
+    public synchronized List<Message> get(String conversationId) {
+        int slot = index.find(ChatMemoryIndex.hash(conversationId));
+        if (slot < 0) {
+            return List.of();
+        }
+        long now = clock.millis();
+        if (now - index.lastAccess(slot) >= idleTtlMillis) {
+            index.remove(slot);
+            expiredEvictions.incrementAndGet();
+            return List.of();
+        }
+        try {
+            Snapshot snapshot = read(index.segment(slot), index.offset(slot));
+            // a different id means a 64-bit hash collision, the slot belongs to another conversation
+            if (snapshot == null || !snapshot.conversationId().equals(conversationId)) {
+                return List.of();
+            }
+            index.touch(slot, now);
+            return snapshot.messages();
+        } catch (IOException e) {
+            log.warn("Could not read conversation {}: {}", conversationId, e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Override
+    public synchronized void clear(String conversationId) {
+        int slot = index.find(ChatMemoryIndex.hash(conversationId));
+        if (slot < 0) {
+            return;
+        }
+        try {
+            // an empty snapshot, so a replay of the log does not bring the conversation back
+            append(encode(conversationId, clock.millis(), List.of()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not clear conversation " + conversationId, e);
+        }
+        index.remove(slot);
+    }
+
+    @Override
+    public synchronized ChatMemoryStats getStats() {
+        long bytes = 0;
+        for (FileChannel segment : segments.values()) {
+            try {
+                bytes += segment.size();
+            } catch (IOException e) {
+                // closed while compacting, ignore it
+            }
+        }
+        return new ChatMemoryStats(index.size(), (int) index.totalMessages(), bytes,
+                0, 0, expiredEvictions.get(), trimmedMessages.get(), hashCollisions.get());
+    }
+
+    /**
+     * Forces the log to disk and moves the index checkpoint up to it. The fsync of the log runs without the lock.
+     */
+    void flush() {
+        try {
+            int segment;
+            FileChannel active;
+            long size;
+            synchronized (this) {
+                segment = activeSegment;
+                active = segments.get(segment);
+                size = active.size();
+            }
+            active.force(false);
+            synchronized (this) {
+                if (index.checkpointSegment() < segment
+                        || (index.checkpointSegment() == segment && index.checkpointOffset() < size)) {
+                    index.checkpoint(segment, size);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not flush chat memory: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drops idle conversations, then rewrites sealed segments where less than half of the bytes are still live.
+     */
+    void compact() {
+        long now = clock.millis();
+        for (int from = 0; ; from += EVICTION_BATCH) {
+            synchronized (this) {
+                if (from >= index.capacity()) {
+                    break;
+                }
+                for (int slot = from; slot < Math.min(from + EVICTION_BATCH, index.capacity()); slot++) {
+                    if (index.live(slot) && now - index.lastAccess(slot) >= idleTtlMillis) {
+                        index.remove(slot);
+                        expiredEvictions.incrementAndGet();
+                    }
+                }
+            }
+        }
+        List<Integer> sealed;
+        synchronized (this) {
+            sealed = List.copyOf(segments.headMap(activeSegment).keySet());
+        }
+        for (int segment : sealed) {
+            try {
+                compact(segment);
+            } catch (IOException e) {
+                log.warn("Could not compact chat memory segment {}: {}", segment, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        maintenance.shutdownNow();
+        flush();
+        index.close();
+        for (FileChannel segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    /**
+     * Sealed segments are never written again and index entries only ever move off them, so the segment is read
+     * without the lock; the lock is taken to check which records are live and to move each of them.
+     */
+    private void compact(int segment) throws IOException {
+        FileChannel channel;
+        synchronized (this) {
+            channel = segments.get(segment);
+        }
+        long size = channel.size();
+        List<Record> records = new ArrayList<>();
+        long position = 0;
+        while (position + RECORD_HEADER_BYTES <= size) {
+            ByteBuffer record = readRecord(channel, position);
+            if (record == null) {
+                break;
+            }
+            Snapshot snapshot = decode(record.position(RECORD_HEADER_BYTES), record.limit());
+            records.add(new Record(ChatMemoryIndex.hash(snapshot.conversationId()), position, snapshot.length()));
+            position += snapshot.length();
+        }
+        // the index may still point past a damaged record, so the segment is only compacted when fully readable
+        if (position != size) {
+            log.warn("Not compacting chat memory segment {}: unreadable record at byte {} of {}", segment, position, size);
+            return;
+        }
+        List<Record> live = new ArrayList<>();
+        long liveBytes = 0;
+        synchronized (this) {
+            for (Record record : records) {
+                if (pointsAt(record, segment)) {
+                    live.add(record);
+                    liveBytes += record.length();
+                }
+            }
+        }
+        if (liveBytes * 2 >= size) {
+            return;
+        }
+        for (Record record : live) {
+            ByteBuffer bytes = readRecord(channel, record.position());
+            synchronized (this) {
+                // the conversation may have moved on while the record was read
+                if (bytes != null && pointsAt(record, segment)) {
+                    long moved = append(bytes);
+                    index.move(index.find(record.hash()), activeSegment, (int) moved);
+                }
+            }
+        }
+        // the moved records must be durable and indexed before their old copies disappear
+        flush();
+        synchronized (this) {
+            segments.remove(segment).close();
+        }
+        Files.deleteIfExists(segmentPath(segment));
+        log.debug("Compacted chat memory segment {}: kept {} of {} bytes", segment, liveBytes, size);
+    }
+
+    private boolean pointsAt(Record record, int segment) {
+        int slot = index.find(record.hash());
+        return slot >= 0 && index.segment(slot) == segment && index.offset(slot) == record.position();
+    }
+
+    /**
+     * Two ids with the same 64-bit hash share an index slot, the newer one replaces the other's history.
+     */
+    private void warnOnCollision(String conversationId, int slot) {
+        try {
+            Snapshot current = read(index.segment(slot), index.offset(slot));
+            if (current != null && !current.conversationId().equals(conversationId)) {
+                hashCollisions.incrementAndGet();
+                log.warn("Conversation {} has the same index hash as {}, replacing its history", conversationId,
+                        current.conversationId());
+            }
+        } catch (IOException e) {
+            log.debug("Could not check the owner of slot {}: {}", slot, e.getMessage());
+        }
+    }
+
+    private void recover() throws IOException {
+        long start = System.nanoTime();
+        if (index.recovered()) {
+            // the index is current up to its checkpoint, replay only what was written after it
+            int from = index.checkpointSegment();
+            for (Map.Entry<Integer, FileChannel> segment : segments.tailMap(from, true).entrySet()) {
+                replay(segment.getKey(), segment.getKey() == from ? index.checkpointOffset() : 0);
+            }
+        } else {
+            for (int segment : segments.keySet()) {
+                replay(segment, 0);
+            }
+        }
+        flush();
+        log.info("Recovered {} conversations from {} in {} ms", index.size(), directory,
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    private void replay(int segment, long from) throws IOException {
+        FileChannel channel = segments.get(segment);
+        long size = channel.size();
+        long position = from;
+        while (position + RECORD_HEADER_BYTES <= size) {
+            Snapshot snapshot = read(segment, position);
+            if (snapshot == null) {
+                break;
+            }
+            long hash = ChatMemoryIndex.hash(snapshot.conversationId());
+            if (snapshot.messages().isEmpty()) {
+                int slot = index.find(hash);
+                if (slot >= 0) {
+                    index.remove(slot);
+                }
+            } else {
+                index.put(hash, segment, (int) position, snapshot.timestamp(), snapshot.messages().size());
+            }
+            position += snapshot.length();
+        }
+        if (position < size && segment == activeSegment) {
+            log.warn("Dropping {} bytes of a torn write at the end of chat memory segment {}", size - position, segment);
+            channel.truncate(position);
+        }
+    }
+
+    private void trim(List<Message> window) {
+        int tokens = 0;
+        for (Message message : window) {
+            tokens += tokens(message);
+        }
+        // a leading system message is the rolling summary of SummarizingChatMemory, only the turns after it go
+        int summary = !window.isEmpty() && window.get(0).getMessageType() == MessageType.SYSTEM ? 1 : 0;
+        while (window.size() - summary > 1 && (window.size() - summary > maxMessages || tokens > maxTokens
+                || window.get(summary).getMessageType() != MessageType.USER)) {
+            tokens -= tokens(window.remove(summary));
+            trimmedMessages.incrementAndGet();
+        }
+    }
+
+    private long append(ByteBuffer record) throws IOException {
+        FileChannel active = segments.get(activeSegment);
+        if (active.size() > 0 && active.size() + record.remaining() > segmentBytes) {
+            flush();
+            activeSegment++;
+            active = open(segmentPath(activeSegment));
+            segments.put(activeSegment, active);
+        }
+        long position = active.size();
+        for (long at = position; record.hasRemaining(); ) {
+            at += active.write(record, at);
+        }
+        return position;
+    }
+
+    private Snapshot read(int segment, long position) throws IOException {
+        FileChannel channel = segments.get(segment);
+        if (channel == null) {
+            return null;
+        }
+        ByteBuffer record = readRecord(channel, position);
+        return record == null ? null : decode(record.position(RECORD_HEADER_BYTES), record.limit());
+    }
+
+    /**
+     * Whole record at {@code position}, or null when it is truncated or fails its checksum.
+     */
+    private static ByteBuffer readRecord(FileChannel channel, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        if (readFully(channel, header, position) < RECORD_HEADER_BYTES) {
+            return null;
+        }
+        int length = header.getInt(0);
+        if (length <= 0 || position + RECORD_HEADER_BYTES + length > channel.size()) {
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + length);
+        readFully(channel, record, position);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_BYTES, length);
+        if ((int) crc.getValue() != record.getInt(4)) {
+            return null;
+        }
+        return record.clear();
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static ByteBuffer encode(String conversationId, long timestamp, List<Message> messages) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeUTF(conversationId);
+        out.writeLong(timestamp);
+        out.writeInt(messages.size());
+        for (Message message : messages) {
+            byte[] text = message.getText() == null ? new byte[0] : message.getText().getBytes(StandardCharsets.UTF_8);
+            out.writeByte(switch (message.getMessageType()) {
+                case USER -> 'U';
+                case SYSTEM -> 'S';
+                default -> 'A';
+            });
+            out.writeInt(text.length);
+            out.write(text);
+        }
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        int length = record.limit() - RECORD_HEADER_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_BYTES, length);
+        record.putInt(0, length);
+        record.putInt(4, (int) crc.getValue());
+        return record;
+    }
+
+    private static Snapshot decode(ByteBuffer payload, int recordLength) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                payload.array(), payload.position(), payload.remaining()));
+        String conversationId = in.readUTF();
+        long timestamp = in.readLong();
+        int count = in.readInt();
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte type = in.readByte();
+            String text = new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+            messages.add(switch (type) {
+                case 'U' -> new UserMessage(text);
+                case 'S' -> new SystemMessage(text);
+                default -> new AssistantMessage(text);
+            });
+        }
+        return new Snapshot(conversationId, timestamp, List.copyOf(messages), recordLength);
+    }
+
+    private static int tokens(Message message) {
+        String text = message.getText();
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve("%08d%s".formatted(segment, SEGMENT_SUFFIX));
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private record Snapshot(String conversationId, long timestamp, List<Message> messages, int length) {
+    }
+
+    private record Record(long hash, long position, int length) {
+    }
+}
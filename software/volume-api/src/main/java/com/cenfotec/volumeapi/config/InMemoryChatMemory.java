@@ -1,5 +1,198 @@
 package com.cenfotec.volumeapi.config;
 
-public class InMemoryChatMemory {
+import com.cenfotec.volumeapi.models.ChatMemoryStats;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded chat memory kept on the heap.
+ * <p>
+ * Each conversation keeps at most {@code maxMessages} messages and {@code maxTokens} estimated tokens,
+ * oldest first out. A leading system message is the rolling summary of {@link SummarizingChatMemory} and is
+ * never trimmed, only the turns after it. Across conversations the least recently used one is evicted when there are more than
+ * {@code maxConversations} or the estimated size goes over {@code maxBytes}, and conversations idle for
+ * longer than {@code idleTtl} are dropped.
+ */
+public class InMemoryChatMemory implements MonitoredChatMemory {
+
+    // rough sizes: ~4 characters per token, UTF-16 characters plus object overhead per message
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int MESSAGE_OVERHEAD_BYTES = 96;
+
+    private final int maxMessages;
+    private final int maxTokens;
+    private final int maxConversations;
+    private final long maxBytes;
+    private final long idleTtlMillis;
+    private final Clock clock;
+
+    // access ordered, so the head is both the least recently used and the longest idle conversation
+    private final LinkedHashMap<String, Conversation> conversations = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong lruEvictions = new AtomicLong();
+    private final AtomicLong heapEvictions = new AtomicLong();
+    private final AtomicLong expiredEvictions = new AtomicLong();
+    private final AtomicLong trimmedMessages = new AtomicLong();
+
+    public InMemoryChatMemory(int maxMessages, int maxTokens, int maxConversations, long maxBytes, Duration idleTtl) {
+        this(maxMessages, maxTokens, maxConversations, maxBytes, idleTtl, Clock.systemUTC());
+    }
+
+    InMemoryChatMemory(int maxMessages, int maxTokens, int maxConversations, long maxBytes, Duration idleTtl, Clock clock) {
+        this.maxMessages = maxMessages;
+        this.maxTokens = maxTokens;
+        this.maxConversations = maxConversations;
+        this.maxBytes = maxBytes;
+        this.idleTtlMillis = idleTtl.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized void add(String conversationId, List<Message> messages) {
+        long now = clock.millis();
+        expire(now);
+        Conversation conversation = conversations.computeIfAbsent(conversationId, id -> new Conversation());
+        conversation.lastAccess = now;
+        for (Message message : messages) {
+            conversation.append(message);
+        }
+        trim(conversation);
+        evict(conversationId);
+    }
+
+    @Override
+    public synchronized List<Message> get(String conversationId) {
+        long now = clock.millis();
+        expire(now);
+        Conversation conversation = conversations.get(conversationId);
+        if (conversation == null) {
+            return List.of();
+        }
+        conversation.lastAccess = now;
+        return List.copyOf(conversation.messages);
+    }
+
+    @Override
+    public synchronized void clear(String conversationId) {
+        remove(conversationId);
+    }
+
+    @Override
+    public synchronized ChatMemoryStats getStats() {
+        int messages = 0;
+        for (Conversation conversation : conversations.values()) {
+            messages += conversation.messages.size();
+        }
+        return new ChatMemoryStats(conversations.size(), messages, totalBytes,
+                lruEvictions.get(), heapEvictions.get(), expiredEvictions.get(), trimmedMessages.get(), 0);
+    }
+
+    private void trim(Conversation conversation) {
+        int summary = conversation.hasSummary() ? 1 : 0;
+        while (conversation.messages.size() - summary > maxMessages || conversation.tokens > maxTokens) {
+            if (conversation.messages.size() - summary <= 1) {
+                break;
+            }
+            conversation.removeOldestTurn();
+            trimmedMessages.incrementAndGet();
+        }
+        // never start a window with an orphaned answer or tool result
+        while (conversation.messages.size() - summary > 1 && conversation.oldestTurn().getMessageType() != MessageType.USER) {
+            conversation.removeOldestTurn();
+            trimmedMessages.incrementAndGet();
+        }
+    }
+
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, Conversation>> lru = conversations.entrySet().iterator();
+        while (lru.hasNext() && (conversations.size() > maxConversations || totalBytes > maxBytes)) {
+            Map.Entry<String, Conversation> eldest = lru.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            (conversations.size() > maxConversations ? lruEvictions : heapEvictions).incrementAndGet();
+            totalBytes -= eldest.getValue().bytes;
+            lru.remove();
+        }
+    }
+
+    private void expire(long now) {
+        Iterator<Conversation> lru = conversations.values().iterator();
+        while (lru.hasNext()) {
+            Conversation eldest = lru.next();
+            if (now - eldest.lastAccess < idleTtlMillis) {
+                return;
+            }
+            expiredEvictions.incrementAndGet();
+            totalBytes -= eldest.bytes;
+            lru.remove();
+        }
+    }
+
+    private void remove(String conversationId) {
+        Conversation removed = conversations.remove(conversationId);
+        if (removed != null) {
+            totalBytes -= removed.bytes;
+        }
+    }
+
+    private static int tokens(Message message) {
+        String text = message.getText();
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private static long bytes(Message message) {
+        String text = message.getText();
+        return MESSAGE_OVERHEAD_BYTES + (text == null ? 0 : 2L * text.length());
+    }
+
+    private final class Conversation {
+        private final Deque<Message> messages = new ArrayDeque<>();
+        private int tokens;
+        private long bytes;
+        private long lastAccess;
+
+        void append(Message message) {
+            messages.addLast(message);
+            tokens += tokens(message);
+            long size = bytes(message);
+            bytes += size;
+            totalBytes += size;
+        }
+
+        boolean hasSummary() {
+            return !messages.isEmpty() && messages.peekFirst().getMessageType() == MessageType.SYSTEM;
+        }
+
+        Message oldestTurn() {
+            Iterator<Message> iterator = messages.iterator();
+            if (hasSummary()) {
+                iterator.next();
+            }
+            return iterator.next();
+        }
+
+        void removeOldestTurn() {
+            Message summary = hasSummary() ? messages.removeFirst() : null;
+            Message message = messages.removeFirst();
+            if (summary != null) {
+                messages.addFirst(summary);
+            }
+            tokens -= tokens(message);
+            long size = bytes(message);
+            bytes -= size;
+            totalBytes -= size;
+        }
+    }
 }
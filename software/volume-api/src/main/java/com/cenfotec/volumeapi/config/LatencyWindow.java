@@ -0,0 +1,38 @@
+package com.cenfotec.volumeapi.config;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Latencies of the last {@code size} calls of one model, for percentiles over recent behaviour only.
+ */
+final class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    synchronized void record(Duration latency) {
+        samples[next] = latency.toNanos();
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    /**
+     * The {@code percentile} (0 to 1) of the window, empty until it holds {@code minSamples} samples.
+     */
+    synchronized Optional<Duration> percentile(double percentile, int minSamples) {
+        if (count == 0 || count < minSamples) {
+            return Optional.empty();
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * count) - 1;
+        return Optional.of(Duration.ofNanos(sorted[Math.max(0, Math.min(count - 1, index))]));
+    }
+}
@@ -0,0 +1,134 @@
+package com.cenfotec.volumeapi.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.mcp.SyncMcpToolCallback;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Single place that knows the MCP tools.
+ * <p>
+ * Tools are listed once, then kept current from the servers' tools list-changed notifications, rebuilding only
+ * the callbacks of tools that were added or changed. Each chat turn takes the current immutable {@link #snapshot()}.
+ * It is deliberately not a {@code ToolCallbackProvider}: Spring AI reads those once into a static resolver, which
+ * would keep the tools of startup after a list change.
+ */
+@Slf4j
+@Component
+public class McpToolRegistry {
+
+    private final List<McpSyncClient> mcpClients;
+
+    // client name -> tool name -> tool
+    private final Map<String, Map<String, RegisteredTool>> tools = new LinkedHashMap<>();
+    private volatile List<ToolCallback> snapshot;
+
+    // the clients are built with our tools-changed customizer, so they can only be looked up lazily
+    public McpToolRegistry(@Lazy List<McpSyncClient> mcpClients) {
+        this.mcpClients = mcpClients;
+    }
+
+    public List<ToolCallback> snapshot() {
+        List<ToolCallback> current = snapshot;
+        return current != null ? current : load();
+    }
+
+    /**
+     * Tool by its MCP name, with or without the {@code <client>_} prefix of the callback.
+     */
+    public Optional<ToolCallback> find(String name) {
+        for (ToolCallback callback : snapshot()) {
+            if (isTool(callback.getToolDefinition().name(), name)) {
+                return Optional.of(callback);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * JSON of a tool result. MCP callbacks return the content list of the result, whose only text entry holds it.
+     */
+    public static JsonNode readResult(ObjectMapper objectMapper, String result) throws JsonProcessingException {
+        JsonNode json = objectMapper.readTree(result);
+        if (json.isArray() && json.size() == 1 && json.get(0).has("text")) {
+            return objectMapper.readTree(json.get(0).get("text").asText());
+        }
+        return json;
+    }
+
+    /**
+     * Whether the callback name is the MCP tool {@code tool}, callbacks being named {@code <client>_<tool>}.
+     */
+    public static boolean isTool(String callbackName, String tool) {
+        return callbackName.equals(tool) || callbackName.endsWith("_" + tool);
+    }
+
+    /**
+     * Called by the MCP client of {@code connectionName} with its full tool list after a list-changed notification.
+     */
+    public synchronized void onToolsChanged(String connectionName, List<McpSchema.Tool> changed) {
+        Optional<McpSyncClient> client = mcpClients.stream()
+                .filter(candidate -> candidate.getClientInfo().name().endsWith(connectionName))
+                .findFirst()
+                .or(() -> mcpClients.size() == 1 ? Optional.of(mcpClients.get(0)) : Optional.empty());
+        if (client.isEmpty()) {
+            log.warn("Tools changed on unknown MCP connection {}", connectionName);
+            return;
+        }
+        if (snapshot == null) {
+            load();
+        }
+        update(client.get(), changed);
+        publish();
+    }
+
+    private synchronized List<ToolCallback> load() {
+        if (snapshot == null) {
+            for (McpSyncClient client : mcpClients) {
+                update(client, client.listTools().tools());
+            }
+            publish();
+        }
+        return snapshot;
+    }
+
+    private void update(McpSyncClient client, List<McpSchema.Tool> listed) {
+        String clientName = client.getClientInfo().name();
+        Map<String, RegisteredTool> previous = tools.getOrDefault(clientName, Map.of());
+        Map<String, RegisteredTool> next = new LinkedHashMap<>();
+        int rebuilt = 0;
+        for (McpSchema.Tool tool : listed) {
+            RegisteredTool known = previous.get(tool.name());
+            if (known != null && known.tool().equals(tool)) {
+                next.put(tool.name(), known);
+            } else {
+                next.put(tool.name(), new RegisteredTool(tool, new ToolProgressCallback(new SyncMcpToolCallback(client, tool))));
+                rebuilt++;
+            }
+        }
+        long removed = previous.keySet().stream().filter(name -> !next.containsKey(name)).count();
+        tools.put(clientName, next);
+        log.info("MCP tools of {}: {} total, {} added or changed, {} removed", clientName, next.size(), rebuilt, removed);
+    }
+
+    private void publish() {
+        snapshot = tools.values().stream()
+                .flatMap(byName -> byName.values().stream())
+                .map(RegisteredTool::callback)
+                .toList();
+    }
+
+    private record RegisteredTool(McpSchema.Tool tool, ToolCallback callback) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.cenfotec.volumeapi.config;
+
+import com.cenfotec.volumeapi.models.ChatMemoryStats;
+import org.springframework.ai.chat.memory.ChatMemory;
+
+/**
+ * Chat memory store that reports its size and evictions.
+ */
+public interface MonitoredChatMemory extends ChatMemory {
+
+    ChatMemoryStats getStats();
+}
@@ -0,0 +1,270 @@
+package com.cenfotec.volumeapi.config;
+
+import com.cenfotec.volumeapi.service.CommandParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs the tool calls of one model turn concurrently, at most {@code maxParallel} at a time, and gathers
+ * the responses in the order the model asked for them before the next model step.
+ * <p>
+ * Only calls that cannot affect each other overlap: reads, and writes to different instruments. A call
+ * waits for every earlier call of the turn that writes what it reads or writes, or reads what it writes, so
+ * "mute the guitar, then read the guitar" still runs in the model's order. Speaker-wide writes and tools
+ * this class does not know wait for, and hold up, everything.
+ * <p>
+ * The MCP server resolves instrument names by synonym and by spelling, which this class cannot repeat.
+ * So a name only counts as its own channel when, with case and accents folded, it is one of the names
+ * listed by {@code getAvailableInstruments}. Any other name, such as "drums" for "bateria", is taken as
+ * touching every instrument. The list is read once per turn, and only for turns that write.
+ * <p>
+ * Same contract as the default manager otherwise: tool context with the call history, exception processor
+ * for {@link ToolExecutionException}, and return direct only when every called tool asks for it.
+ */
+@Slf4j
+public class ParallelToolCallingManager implements ToolCallingManager {
+
+    private static final String EVERYTHING = "*";
+    private static final Set<String> READS_NOTHING = Set.of("getAvailableInstruments");
+    private static final Set<String> READS_EVERYTHING = Set.of("getSpeakerStatus", "getAllChannelsStatus");
+    private static final Set<String> READS_INSTRUMENT = Set.of("getStatusChannel");
+    private static final Set<String> WRITES_INSTRUMENT = Set.of("setVolume", "setMute");
+    private static final Set<String> WRITES_INSTRUMENTS = Set.of("applyMix");
+
+    private final ToolCallingManager delegate;
+    private final ToolExecutionExceptionProcessor exceptionProcessor;
+    private final ExecutorService executor;
+    private final int maxParallel;
+    private final ObjectMapper objectMapper;
+
+    public ParallelToolCallingManager(ToolCallingManager delegate, ToolExecutionExceptionProcessor exceptionProcessor,
+                                      ExecutorService executor, int maxParallel, ObjectMapper objectMapper) {
+        this.delegate = delegate;
+        this.exceptionProcessor = exceptionProcessor;
+        this.executor = executor;
+        this.maxParallel = maxParallel;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(AssistantMessage::hasToolCalls)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No tool call requested by the chat model"));
+        List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
+        if (toolCalls.size() == 1 || maxParallel <= 1) {
+            return delegate.executeToolCalls(prompt, chatResponse);
+        }
+
+        List<Message> history = new ArrayList<>(prompt.copy().getInstructions());
+        history.add(assistantMessage);
+        ToolContext toolContext = toolContext(prompt, history);
+        List<ToolCallback> callbacks = prompt.getOptions() instanceof ToolCallingChatOptions options
+                ? options.getToolCallbacks()
+                : List.of();
+
+        Set<String> known = toolCalls.stream().anyMatch(toolCall -> writesInstruments(toolCall.name()))
+                ? knownInstruments(callbacks)
+                : Set.of();
+        Semaphore permits = new Semaphore(maxParallel);
+        List<CompletableFuture<ToolResponseMessage.ToolResponse>> pending = new ArrayList<>(toolCalls.size());
+        List<Access> accesses = new ArrayList<>(toolCalls.size());
+        boolean returnDirect = true;
+        for (AssistantMessage.ToolCall toolCall : toolCalls) {
+            ToolCallback callback = callbacks.stream()
+                    .filter(candidate -> candidate.getToolDefinition().name().equals(toolCall.name()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No ToolCallback found for tool name: " + toolCall.name()));
+            returnDirect &= callback.getToolMetadata().returnDirect();
+
+            Access access = access(toolCall, known);
+            List<CompletableFuture<?>> earlier = new ArrayList<>();
+            for (int i = 0; i < accesses.size(); i++) {
+                if (access.conflictsWith(accesses.get(i))) {
+                    earlier.add(pending.get(i));
+                }
+            }
+            accesses.add(access);
+            pending.add(earlier.isEmpty()
+                    ? CompletableFuture.supplyAsync(() -> call(permits, callback, toolCall, toolContext), executor)
+                    : CompletableFuture.allOf(earlier.toArray(CompletableFuture[]::new))
+                            .thenApplyAsync(ignored -> call(permits, callback, toolCall, toolContext), executor));
+        }
+
+        List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(pending.size());
+        try {
+            for (CompletableFuture<ToolResponseMessage.ToolResponse> response : pending) {
+                responses.add(response.join());
+            }
+        } catch (CompletionException e) {
+            pending.forEach(response -> response.cancel(true));
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        log.debug("Executed {} tool calls with up to {} in parallel", toolCalls.size(), maxParallel);
+
+        history.add(new ToolResponseMessage(responses, Map.of()));
+        return ToolExecutionResult.builder()
+                .conversationHistory(history)
+                .returnDirect(returnDirect)
+                .build();
+    }
+
+    private ToolResponseMessage.ToolResponse call(Semaphore permits, ToolCallback callback, AssistantMessage.ToolCall toolCall,
+                                                  ToolContext toolContext) {
+        permits.acquireUninterruptibly();
+        try {
+            String result;
+            try {
+                result = callback.call(toolCall.arguments(), toolContext);
+            } catch (ToolExecutionException e) {
+                result = exceptionProcessor.process(e);
+            }
+            return new ToolResponseMessage.ToolResponse(toolCall.id(), toolCall.name(), result);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * What a call of the mixer tools reads and writes, by instrument name.
+     */
+    private Access access(AssistantMessage.ToolCall toolCall, Set<String> known) {
+        String tool = toolCall.name();
+        if (is(tool, READS_NOTHING)) {
+            return new Access(Set.of(), Set.of());
+        }
+        if (is(tool, READS_EVERYTHING)) {
+            return new Access(Set.of(EVERYTHING), Set.of());
+        }
+        if (is(tool, READS_INSTRUMENT)) {
+            return new Access(instruments(toolCall.arguments(), false, known), Set.of());
+        }
+        if (is(tool, WRITES_INSTRUMENT)) {
+            return new Access(Set.of(), instruments(toolCall.arguments(), false, known));
+        }
+        if (is(tool, WRITES_INSTRUMENTS)) {
+            return new Access(Set.of(), instruments(toolCall.arguments(), true, known));
+        }
+        return new Access(Set.of(), Set.of(EVERYTHING));
+    }
+
+    private Set<String> instruments(String arguments, boolean changes, Set<String> known) {
+        try {
+            JsonNode json = objectMapper.readTree(arguments);
+            Set<String> instruments = new HashSet<>();
+            if (changes) {
+                for (JsonNode change : json.path("changes")) {
+                    instruments.add(change.path("instrument").asText(""));
+                }
+            } else {
+                instruments.add(json.path("idInstrument").asText(""));
+            }
+            Set<String> resolved = new HashSet<>();
+            for (String instrument : instruments) {
+                String name = CommandParser.normalize(instrument);
+                // a call without a readable or listed instrument may touch any of them
+                if (!known.contains(name)) {
+                    return Set.of(EVERYTHING);
+                }
+                resolved.add(name);
+            }
+            return resolved.isEmpty() ? Set.of(EVERYTHING) : resolved;
+        } catch (IOException e) {
+            return Set.of(EVERYTHING);
+        }
+    }
+
+    /**
+     * Instrument names listed by the server, folded like {@link CommandParser#normalize}, empty when the
+     * list cannot be read.
+     */
+    private Set<String> knownInstruments(List<ToolCallback> callbacks) {
+        ToolCallback listing = callbacks.stream()
+                .filter(callback -> is(callback.getToolDefinition().name(), READS_NOTHING))
+                .findFirst()
+                .orElse(null);
+        if (listing == null) {
+            return Set.of();
+        }
+        try {
+            JsonNode json = McpToolRegistry.readResult(objectMapper, listing.call("{}"));
+            Set<String> known = new HashSet<>();
+            for (JsonNode name : json) {
+                if (name.isTextual()) {
+                    known.add(CommandParser.normalize(name.asText()));
+                }
+            }
+            return known;
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not list the instruments, every write runs on its own: {}", e.getMessage());
+            return Set.of();
+        }
+    }
+
+    private static boolean writesInstruments(String tool) {
+        return is(tool, WRITES_INSTRUMENT) || is(tool, WRITES_INSTRUMENTS);
+    }
+
+    private static boolean is(String tool, Set<String> names) {
+        return names.stream().anyMatch(name -> McpToolRegistry.isTool(tool, name));
+    }
+
+    private record Access(Set<String> reads, Set<String> writes) {
+
+        boolean conflictsWith(Access other) {
+            return overlap(writes, other.reads) || overlap(writes, other.writes) || overlap(reads, other.writes);
+        }
+
+        private static boolean overlap(Set<String> a, Set<String> b) {
+            if (a.isEmpty() || b.isEmpty()) {
+                return false;
+            }
+            return a.contains(EVERYTHING) || b.contains(EVERYTHING) || !Collections.disjoint(a, b);
+        }
+    }
+
+    private static ToolContext toolContext(Prompt prompt, List<Message> history) {
+        Map<String, Object> context = new HashMap<>();
+        if (prompt.getOptions() instanceof ToolCallingChatOptions options && options.getToolContext() != null
+                && !options.getToolContext().isEmpty()) {
+            context.putAll(options.getToolContext());
+            context.put(ToolContext.TOOL_CALL_HISTORY, List.copyOf(history));
+        }
+        return new ToolContext(context);
+    }
+}
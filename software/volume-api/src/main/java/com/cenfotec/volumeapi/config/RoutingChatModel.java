@@ -0,0 +1,277 @@
+package com.cenfotec.volumeapi.config;
+
+import com.cenfotec.volumeapi.models.RoutingStats;
+import com.cenfotec.volumeapi.service.ModelAdmission;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Sends short, single-step prompts to the local model and everything else to the remote one.
+ * <p>
+ * When the chosen model takes longer than its recent p95, the same prompt also goes to the other model and the
+ * first answer wins. Streams hedge the same way on the time to the first token. Only the first model step is
+ * hedged, and it runs with tool execution disabled: the winner's tool calls are executed here, once, and the
+ * rest of the turn stays on the winning model, so the loser never touches the mixer. A hedge takes its own
+ * {@link ModelAdmission} permit and is skipped when none is free.
+ */
+@Slf4j
+public class RoutingChatModel implements ChatModel, AutoCloseable {
+
+    private static final int WINDOW = 256;
+    private static final double HEDGE_PERCENTILE = 0.95;
+    // more than one instruction in the same message: "sube la voz y baja la guitarra"
+    private static final Pattern COMPOUND = Pattern.compile("[,;]|\\b(y|e|and|then|luego|después|despues|pero|but)\\b");
+
+    private final Route local;
+    private final Route remote;
+    private final int simpleMaxChars;
+    private final boolean hedge;
+    private final int minSamples;
+    private final ToolCallingManager toolCallingManager;
+    private final ModelAdmission admission;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("model-call-", 0).factory());
+
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong hedgesSkipped = new AtomicLong();
+
+    public RoutingChatModel(ChatModel local, ChatModel remote, int simpleMaxChars, boolean hedge, int minSamples,
+                            ToolCallingManager toolCallingManager, ModelAdmission admission) {
+        this.local = new Route("local", local);
+        this.remote = new Route("remote", remote);
+        this.simpleMaxChars = simpleMaxChars;
+        this.hedge = hedge;
+        this.minSamples = minSamples;
+        this.toolCallingManager = toolCallingManager;
+        this.admission = admission;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        Route primary = route(prompt);
+        Route secondary = primary == local ? remote : local;
+        Prompt step = withoutToolExecution(prompt);
+        CompletableFuture<ChatResponse> first = primary.call(step, executor);
+        Optional<Duration> hedgeAfter = hedge ? primary.latency.percentile(HEDGE_PERCENTILE, minSamples) : Optional.empty();
+        if (hedgeAfter.isEmpty()) {
+            return runTools(primary, prompt, join(first));
+        }
+        try {
+            return runTools(primary, prompt, first.get(hedgeAfter.get().toNanos(), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            log.debug("{} model slower than its p95 of {} ms, hedging to the {} model", primary.name,
+                    hedgeAfter.get().toMillis(), secondary.name);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+
+        Optional<ModelAdmission.Permit> permit = admission.tryAcquire();
+        if (permit.isEmpty()) {
+            hedgesSkipped.incrementAndGet();
+            return runTools(primary, prompt, join(first));
+        }
+        hedged.incrementAndGet();
+        CompletableFuture<ChatResponse> second = secondary.call(step, executor);
+        second.whenComplete((response, error) -> permit.get().release(error != null));
+        CompletableFuture<ChatResponse> winner = new CompletableFuture<>();
+        AtomicReference<Route> winningRoute = new AtomicReference<>();
+        first.whenComplete((response, error) -> settle(winner, winningRoute, primary, response, error, second));
+        second.whenComplete((response, error) -> settle(winner, winningRoute, secondary, response, error, first));
+        ChatResponse response = join(winner);
+        if (winningRoute.get() == secondary) {
+            hedgeWins.incrementAndGet();
+        }
+        // the losing step keeps running on its virtual thread, its latency still feeds the window
+        return runTools(winningRoute.get(), prompt, response);
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        Route primary = route(prompt);
+        Route secondary = primary == local ? remote : local;
+        Prompt step = withoutToolExecution(prompt);
+        Optional<Duration> hedgeAfter = hedge ? primary.firstToken.percentile(HEDGE_PERCENTILE, minSamples) : Optional.empty();
+        AtomicReference<Route> winningRoute = new AtomicReference<>(hedgeAfter.isEmpty() ? primary : null);
+        Flux<ChatResponse> steps = primary.stream(step).doOnNext(response -> winningRoute.compareAndSet(null, primary));
+        if (hedgeAfter.isPresent()) {
+            Flux<ChatResponse> second = Flux.defer(() -> admission.tryAcquire()
+                            .map(permit -> {
+                                hedged.incrementAndGet();
+                                return secondary.stream(step)
+                                        .doOnNext(response -> {
+                                            if (winningRoute.compareAndSet(null, secondary)) {
+                                                hedgeWins.incrementAndGet();
+                                            }
+                                        })
+                                        .doFinally(signal -> permit.release(signal == SignalType.ON_ERROR));
+                            })
+                            .orElseGet(() -> {
+                                hedgesSkipped.incrementAndGet();
+                                return Flux.empty();
+                            }))
+                    .delaySubscription(hedgeAfter.get());
+            steps = Flux.firstWithValue(steps, second);
+        }
+        return steps.concatMap(response -> streamTools(winningRoute.get(), prompt, response));
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        // tool callbacks and context are set per turn, each model merges them into its own defaults
+        return ToolCallingChatOptions.builder().build();
+    }
+
+    public RoutingStats getStats() {
+        long hedges = hedged.get();
+        return new RoutingStats(local.routed.get(), remote.routed.get(), hedges, hedgeWins.get(), hedgesSkipped.get(),
+                hedges == 0 ? 0 : (double) hedgeWins.get() / hedges,
+                millis(local.latency.percentile(HEDGE_PERCENTILE, 1)), millis(remote.latency.percentile(HEDGE_PERCENTILE, 1)));
+    }
+
+    /**
+     * Waits for the model calls still running, hedges included, then stops their threads.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    private Route route(Prompt prompt) {
+        UserMessage message = prompt.getUserMessage();
+        String text = message == null || message.getText() == null ? "" : message.getText().strip();
+        Route route = text.length() <= simpleMaxChars && !COMPOUND.matcher(text.toLowerCase()).find() ? local : remote;
+        route.routed.incrementAndGet();
+        return route;
+    }
+
+    /**
+     * Runs the tool calls the winning step asked for, then finishes the turn on the model that asked for them.
+     */
+    private ChatResponse runTools(Route route, Prompt prompt, ChatResponse step) {
+        if (!runsTools(prompt, step)) {
+            return step;
+        }
+        ToolExecutionResult result = toolCallingManager.executeToolCalls(prompt, step);
+        if (result.returnDirect()) {
+            return ChatResponse.builder().from(step).generations(ToolExecutionResult.buildGenerations(result)).build();
+        }
+        return route.model.call(new Prompt(result.conversationHistory(), prompt.getOptions()));
+    }
+
+    private Flux<ChatResponse> streamTools(Route route, Prompt prompt, ChatResponse step) {
+        if (!runsTools(prompt, step)) {
+            return Flux.just(step);
+        }
+        return Flux.defer(() -> {
+            ToolExecutionResult result = toolCallingManager.executeToolCalls(prompt, step);
+            if (result.returnDirect()) {
+                return Flux.just(ChatResponse.builder().from(step).generations(ToolExecutionResult.buildGenerations(result)).build());
+            }
+            return route.model.stream(new Prompt(result.conversationHistory(), prompt.getOptions()));
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static boolean runsTools(Prompt prompt, ChatResponse step) {
+        return prompt.getOptions() instanceof ToolCallingChatOptions
+                && ToolCallingChatOptions.isInternalToolExecutionEnabled(prompt.getOptions())
+                && step != null && step.hasToolCalls();
+    }
+
+    /**
+     * The same prompt, with the tool calls returned to the caller instead of executed by the model.
+     */
+    private static Prompt withoutToolExecution(Prompt prompt) {
+        if (!(prompt.getOptions() instanceof ToolCallingChatOptions options)) {
+            return prompt;
+        }
+        ToolCallingChatOptions step = options.copy();
+        step.setInternalToolExecutionEnabled(false);
+        return new Prompt(prompt.getInstructions(), step);
+    }
+
+    private static void settle(CompletableFuture<ChatResponse> winner, AtomicReference<Route> winningRoute, Route route,
+                               ChatResponse response, Throwable error, CompletableFuture<ChatResponse> other) {
+        if (error == null) {
+            if (winningRoute.compareAndSet(null, route)) {
+                winner.complete(response);
+            }
+        } else if (other.isCompletedExceptionally()) {
+            winner.completeExceptionally(error);
+        }
+    }
+
+    private static ChatResponse join(CompletableFuture<ChatResponse> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static double millis(Optional<Duration> latency) {
+        return latency.map(duration -> duration.toNanos() / 1_000_000.0).orElse(0.0);
+    }
+
+    private static final class Route {
+        private final String name;
+        private final ChatModel model;
+        private final LatencyWindow latency = new LatencyWindow(WINDOW);
+        private final LatencyWindow firstToken = new LatencyWindow(WINDOW);
+        private final AtomicLong routed = new AtomicLong();
+
+        Route(String name, ChatModel model) {
+            this.name = name;
+            this.model = model;
+        }
+
+        CompletableFuture<ChatResponse> call(Prompt prompt, ExecutorService executor) {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                ChatResponse response = model.call(prompt);
+                latency.record(Duration.ofNanos(System.nanoTime() - start));
+                return response;
+            }, executor);
+        }
+
+        Flux<ChatResponse> stream(Prompt prompt) {
+            return Flux.defer(() -> {
+                long start = System.nanoTime();
+                AtomicBoolean first = new AtomicBoolean(true);
+                return model.stream(prompt)
+                        .doOnNext(response -> {
+                            if (first.compareAndSet(true, false)) {
+                                firstToken.record(Duration.ofNanos(System.nanoTime() - start));
+                            }
+                        })
+                        .doOnComplete(() -> latency.record(Duration.ofNanos(System.nanoTime() - start)));
+            });
+        }
+    }
+}
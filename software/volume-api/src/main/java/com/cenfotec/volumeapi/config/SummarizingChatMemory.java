@@ -0,0 +1,230 @@
+package com.cenfotec.volumeapi.config;
+
+import com.cenfotec.volumeapi.models.ChatMemoryStats;
+import com.cenfotec.volumeapi.models.SummaryStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Folds the older turns of long conversations into a short rolling summary, so the prompt stays about the same size.
+ * <p>
+ * Once a conversation goes over {@code tokenBudget} estimated tokens, everything but the last {@code keepRecent}
+ * messages is summarized in the background by the summarizer model, together with the previous summary.
+ * The store then keeps the summary as a leading system message followed by the recent messages, so a durable
+ * store keeps the folded turns across restarts. The stores never trim that leading message.
+ */
+@Slf4j
+public class SummarizingChatMemory implements MonitoredChatMemory, AutoCloseable {
+
+    static final String SUMMARY_PREFIX = "Resumen de la conversación anterior: ";
+    private static final String INSTRUCTIONS = "Resume en pocas líneas esta conversación con un asistente de mezcla de audio. "
+            + "Conserva los niveles y el estado de mute que el usuario quiere para cada canal y sus preferencias. "
+            + "Responde solo con el resumen, en español.";
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final MonitoredChatMemory store;
+    private final ChatModel summarizer;
+    private final boolean enabled;
+    private final int tokenBudget;
+    private final int keepRecent;
+    private final int maxConversations;
+    private final Executor executor;
+
+    // estimated tokens of the turns behind each summary, only for the stats: unknown after a restart
+    // access ordered, the entries of conversations the store already evicted fall off the head
+    private final LinkedHashMap<String, Integer> foldedTokens = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong summarized = new AtomicLong();
+    private final AtomicLong foldedMessages = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong turns = new AtomicLong();
+    private final AtomicLong tokensBefore = new AtomicLong();
+    private final AtomicLong tokensAfter = new AtomicLong();
+
+    public SummarizingChatMemory(MonitoredChatMemory store, ChatModel summarizer, boolean enabled, int tokenBudget,
+                                 int keepRecent, int maxConversations) {
+        this(store, summarizer, enabled, tokenBudget, keepRecent, maxConversations,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chat-summary-", 0).factory()));
+    }
+
+    SummarizingChatMemory(MonitoredChatMemory store, ChatModel summarizer, boolean enabled, int tokenBudget,
+                          int keepRecent, int maxConversations, Executor executor) {
+        this.store = store;
+        this.summarizer = summarizer;
+        this.enabled = enabled;
+        this.tokenBudget = tokenBudget;
+        this.keepRecent = keepRecent;
+        this.maxConversations = maxConversations;
+        this.executor = executor;
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        List<Message> window;
+        synchronized (this) {
+            store.add(conversationId, messages);
+            window = enabled ? store.get(conversationId) : List.of();
+        }
+        if (tokens(turns(window)) > tokenBudget && pending.add(conversationId)) {
+            executor.execute(() -> summarize(conversationId));
+        }
+    }
+
+    @Override
+    public List<Message> get(String conversationId) {
+        List<Message> messages;
+        Integer folded;
+        synchronized (this) {
+            messages = store.get(conversationId);
+            folded = messages.isEmpty() ? foldedTokens.remove(conversationId) : foldedTokens.get(conversationId);
+        }
+        if (messages.isEmpty()) {
+            return messages;
+        }
+        int recent = tokens(turns(messages));
+        int summary = tokens(messages) - recent;
+        turns.incrementAndGet();
+        tokensBefore.addAndGet(recent + (folded == null ? summary : folded));
+        tokensAfter.addAndGet(recent + summary);
+        return messages;
+    }
+
+    @Override
+    public synchronized void clear(String conversationId) {
+        store.clear(conversationId);
+        foldedTokens.remove(conversationId);
+    }
+
+    @Override
+    public ChatMemoryStats getStats() {
+        return store.getStats();
+    }
+
+    public SummaryStats getSummaryStats() {
+        long count = turns.get();
+        return new SummaryStats(summarized.get(), foldedMessages.get(), failures.get(), count,
+                count == 0 ? 0 : (double) tokensBefore.get() / count, count == 0 ? 0 : (double) tokensAfter.get() / count);
+    }
+
+    /**
+     * Lets the running summaries finish, so they reach the store before it closes, then stops their threads.
+     */
+    @Override
+    public void close() {
+        if (executor instanceof ExecutorService service) {
+            service.close();
+        }
+    }
+
+    private void summarize(String conversationId) {
+        try {
+            List<Message> messages;
+            Integer previouslyFolded;
+            synchronized (this) {
+                messages = store.get(conversationId);
+                previouslyFolded = foldedTokens.get(conversationId);
+            }
+            List<Message> history = turns(messages);
+            int fold = foldPoint(history);
+            if (fold == 0) {
+                return;
+            }
+            // the previous summary, if any, and the turns folded into the new one
+            List<Message> folded = messages.subList(0, messages.size() - history.size() + fold);
+            String previous = messages.size() > history.size() ? summaryText(messages.get(0)) : null;
+            String text = summarizer.call(new Prompt(List.of(new SystemMessage(INSTRUCTIONS),
+                    new UserMessage(transcript(previous, history.subList(0, fold)))))).getResult().getOutput().getText();
+
+            synchronized (this) {
+                List<Message> current = store.get(conversationId);
+                // turns added meanwhile stay, only the prefix that was summarized is replaced
+                if (current.size() < folded.size() || !current.subList(0, folded.size()).equals(folded)) {
+                    log.debug("Conversation {} changed its older turns while summarizing, trying again on the next turn", conversationId);
+                    return;
+                }
+                List<Message> window = new ArrayList<>(current.size() - folded.size() + 1);
+                window.add(new SystemMessage(SUMMARY_PREFIX + text));
+                window.addAll(current.subList(folded.size(), current.size()));
+                store.clear(conversationId);
+                store.add(conversationId, window);
+                int previousTokens = previouslyFolded != null ? previouslyFolded : previous == null ? 0 : tokens(previous);
+                foldedTokens.put(conversationId, tokens(history.subList(0, fold)) + previousTokens);
+                if (foldedTokens.size() > maxConversations) {
+                    foldedTokens.remove(foldedTokens.keySet().iterator().next());
+                }
+            }
+            summarized.incrementAndGet();
+            foldedMessages.addAndGet(fold);
+            log.debug("Folded {} messages of conversation {} into its summary", fold, conversationId);
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            log.warn("Could not summarize conversation {}: {}", conversationId, e.getMessage());
+        } finally {
+            pending.remove(conversationId);
+        }
+    }
+
+    /**
+     * Number of older messages to fold, so that the recent ones start at a user message.
+     */
+    private int foldPoint(List<Message> messages) {
+        int fold = Math.max(0, messages.size() - keepRecent);
+        while (fold < messages.size() && messages.get(fold).getMessageType() != MessageType.USER) {
+            fold++;
+        }
+        return fold == messages.size() ? 0 : fold;
+    }
+
+    /**
+     * The messages after the leading summary, if there is one.
+     */
+    private static List<Message> turns(List<Message> messages) {
+        return !messages.isEmpty() && summaryText(messages.get(0)) != null ? messages.subList(1, messages.size()) : messages;
+    }
+
+    private static String summaryText(Message message) {
+        return message.getMessageType() == MessageType.SYSTEM && message.getText() != null
+                && message.getText().startsWith(SUMMARY_PREFIX) ? message.getText().substring(SUMMARY_PREFIX.length()) : null;
+    }
+
+    private static String transcript(String previous, List<Message> messages) {
+        StringBuilder transcript = new StringBuilder();
+        if (previous != null) {
+            transcript.append(SUMMARY_PREFIX).append(previous).append('\n');
+        }
+        for (Message message : messages) {
+            transcript.append(message.getMessageType() == MessageType.USER ? "Usuario: " : "Asistente: ")
+                    .append(message.getText())
+                    .append('\n');
+        }
+        return transcript.toString();
+    }
+
+    private static int tokens(List<Message> messages) {
+        int tokens = 0;
+        for (Message message : messages) {
+            tokens += tokens(message.getText());
+        }
+        return tokens;
+    }
+
+    private static int tokens(String text) {
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+}
@@ -0,0 +1,53 @@
+package com.cenfotec.volumeapi.config;
+
+import com.cenfotec.volumeapi.models.ChatStreamEvent;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+import java.util.function.Consumer;
+
+/**
+ * Reports tool calls to the listener found in the tool context, so streamed chats can show progress.
+ */
+public class ToolProgressCallback implements ToolCallback {
+
+    public static final String LISTENER = "tool_progress_listener";
+
+    private final ToolCallback delegate;
+
+    public ToolProgressCallback(ToolCallback delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return delegate.call(toolInput);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public String call(String toolInput, ToolContext toolContext) {
+        if (toolContext == null || !(toolContext.getContext().get(LISTENER) instanceof Consumer<?> listener)) {
+            return delegate.call(toolInput);
+        }
+        Consumer<ChatStreamEvent> progress = (Consumer<ChatStreamEvent>) listener;
+        String name = getToolDefinition().name();
+        progress.accept(ChatStreamEvent.toolCall(name));
+        // the MCP callbacks do not take a tool context, the listener is ours only
+        String result = delegate.call(toolInput);
+        progress.accept(ChatStreamEvent.toolResult(name));
+        return result;
+    }
+}
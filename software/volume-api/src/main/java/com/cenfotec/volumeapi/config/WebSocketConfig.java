@@ -0,0 +1,27 @@
+package com.cenfotec.volumeapi.config;
+
+import com.cenfotec.volumeapi.controller.AudioWebSocketHandler;
+import com.cenfotec.volumeapi.controller.ChatWebSocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final ChatWebSocketHandler chatWebSocketHandler;
+    private final AudioWebSocketHandler audioWebSocketHandler;
+
+    public WebSocketConfig(ChatWebSocketHandler chatWebSocketHandler, AudioWebSocketHandler audioWebSocketHandler) {
+        this.chatWebSocketHandler = chatWebSocketHandler;
+        this.audioWebSocketHandler = audioWebSocketHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(chatWebSocketHandler, "/chat/ws").setAllowedOrigins("http://localhost:3000");
+        registry.addHandler(audioWebSocketHandler, "/chat/audio").setAllowedOrigins("http://localhost:3000");
+    }
+}
@@ -0,0 +1,131 @@
+package com.cenfotec.volumeapi.controller;
+
+import com.cenfotec.volumeapi.models.ChatStreamEvent;
+import com.cenfotec.volumeapi.service.AudioSegmenter;
+import com.cenfotec.volumeapi.service.VoiceCommandService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Voice commands streamed while they are recorded, at {@code /chat/audio?chatId=...&sampleRate=16000}.
+ * <p>
+ * Binary frames carry 16-bit little endian mono PCM, optionally starting with a WAV header, in chunks of any size;
+ * partial frames are handed over as they arrive instead of being aggregated. The text frame {@code end} marks the
+ * end of the recording. Every utterance is answered with a {@code transcript} event followed by the events of
+ * {@code /chat/stream}.
+ */
+@Slf4j
+@Component
+public class AudioWebSocketHandler extends AbstractWebSocketHandler {
+
+    private static final String VOICE_SESSION = "voiceSession";
+    private static final int SEND_TIME_LIMIT_MILLIS = 10_000;
+    private static final int SEND_BUFFER_LIMIT_BYTES = 64 * 1024;
+
+    private final VoiceCommandService voiceCommandService;
+    private final ObjectMapper objectMapper;
+    private final int defaultSampleRate;
+    private final int chunkSize;
+
+    public AudioWebSocketHandler(VoiceCommandService voiceCommandService, ObjectMapper objectMapper,
+                                 @Value("${chat.audio.sample-rate:16000}") int defaultSampleRate,
+                                 @Value("${chat.audio.chunk-size:8192}") int chunkSize) {
+        this.voiceCommandService = voiceCommandService;
+        this.objectMapper = objectMapper;
+        this.defaultSampleRate = defaultSampleRate;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        session.setBinaryMessageSizeLimit(chunkSize);
+        MultiValueMap<String, String> query = session.getUri() == null ? null
+                : UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+        UUID chatId = parse(query == null ? null : query.getFirst("chatId"), UUID::fromString, UUID.randomUUID());
+        int sampleRate = parse(query == null ? null : query.getFirst("sampleRate"), Integer::valueOf, defaultSampleRate);
+
+        if (!AudioSegmenter.supportsSampleRate(sampleRate)) {
+            reject(session, "sampleRate must be between " + AudioSegmenter.MIN_SAMPLE_RATE + " and "
+                    + AudioSegmenter.MAX_SAMPLE_RATE + " Hz");
+            return;
+        }
+
+        WebSocketSession outbox = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MILLIS, SEND_BUFFER_LIMIT_BYTES);
+        session.getAttributes().put(VOICE_SESSION, voiceCommandService.open(chatId, sampleRate, event -> send(outbox, event)));
+        send(outbox, ChatStreamEvent.session(chatId));
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws IOException {
+        try {
+            voiceSession(session).accept(message.getPayload());
+        } catch (IllegalArgumentException e) {
+            reject(session, e.getMessage());
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        if ("end".equals(message.getPayload().strip())) {
+            voiceSession(session).finish();
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Object voiceSession = session.getAttributes().get(VOICE_SESSION);
+        if (voiceSession instanceof VoiceCommandService.VoiceSession open) {
+            open.close();
+        }
+    }
+
+    @Override
+    public boolean supportsPartialMessages() {
+        return true;
+    }
+
+    private void reject(WebSocketSession session, String reason) throws IOException {
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(ChatStreamEvent.error(reason))));
+        session.close(CloseStatus.NOT_ACCEPTABLE);
+    }
+
+    private static VoiceCommandService.VoiceSession voiceSession(WebSocketSession session) {
+        return (VoiceCommandService.VoiceSession) session.getAttributes().get(VOICE_SESSION);
+    }
+
+    private void send(WebSocketSession outbox, ChatStreamEvent event) {
+        if (!outbox.isOpen()) {
+            return;
+        }
+        try {
+            outbox.sendMessage(new TextMessage(objectMapper.writeValueAsString(event)));
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not send {} to audio session {}: {}", event.type(), outbox.getId(), e.getMessage());
+        }
+    }
+
+    private static <T> T parse(String value, Function<String, T> parser, T fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -1,26 +1,38 @@
 package com.cenfotec.volumeapi.controller;
 
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.cenfotec.volumeapi.models.ChatBatchItem;
 import com.cenfotec.volumeapi.models.ChatRequest;
 import com.cenfotec.volumeapi.models.ChatResponse;
+import com.cenfotec.volumeapi.models.ChatStreamEvent;
+import com.cenfotec.volumeapi.service.ChatBatchService;
 import com.cenfotec.volumeapi.service.VolumeService;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
 @RestController
 @CrossOrigin(origins = "http://localhost:3000")
 @RequestMapping("/chat")
 public class ChatRestController {
 
     private final VolumeService volumeService;
+    private final ChatBatchService chatBatchService;
 
-    public ChatRestController(VolumeService volumeService) {
+    public ChatRestController(VolumeService volumeService, ChatBatchService chatBatchService) {
         this.volumeService = volumeService;
+        this.chatBatchService = chatBatchService;
     }
 
     @PostMapping
@@ -28,4 +40,25 @@ public class ChatRestController {
         ChatResponse answer = volumeService.chat(chatRequest);
         return ResponseEntity.ok(answer);
     }
+
+    @PostMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<ChatStreamEvent>> chatStream(@RequestBody ChatRequest chatRequest){
+        return volumeService.chatStream(chatRequest)
+                .map(event -> ServerSentEvent.builder(event).event(event.type()).build());
+    }
+
+    @PostMapping(path = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    Flux<ChatStreamEvent> chatStreamNdjson(@RequestBody ChatRequest chatRequest){
+        return volumeService.chatStream(chatRequest);
+    }
+
+    @PostMapping(path = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    Mono<List<ChatBatchItem>> chatBatch(@RequestBody List<ChatRequest> chatRequests){
+        return chatBatchService.run(chatRequests);
+    }
+
+    @PostMapping(path = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    Flux<ChatBatchItem> chatBatchNdjson(@RequestBody List<ChatRequest> chatRequests){
+        return chatBatchService.stream(chatRequests);
+    }
 }
@@ -0,0 +1,86 @@
+package com.cenfotec.volumeapi.controller;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.cenfotec.volumeapi.config.RoutingChatModel;
+import com.cenfotec.volumeapi.config.SummarizingChatMemory;
+import com.cenfotec.volumeapi.models.AdmissionStats;
+import com.cenfotec.volumeapi.models.AnswerCacheStats;
+import com.cenfotec.volumeapi.models.AudioStats;
+import com.cenfotec.volumeapi.models.ChatMemoryStats;
+import com.cenfotec.volumeapi.models.ConversationQueueStats;
+import com.cenfotec.volumeapi.models.FastPathStats;
+import com.cenfotec.volumeapi.models.RoutingStats;
+import com.cenfotec.volumeapi.models.SummaryStats;
+import com.cenfotec.volumeapi.service.AnswerCache;
+import com.cenfotec.volumeapi.service.ConversationExecutor;
+import com.cenfotec.volumeapi.service.FastPathService;
+import com.cenfotec.volumeapi.service.ModelAdmission;
+import com.cenfotec.volumeapi.service.VoiceCommandService;
+
+@RestController
+@RequestMapping("/chat")
+public class ChatStatsController {
+
+    private final SummarizingChatMemory chatMemory;
+    private final FastPathService fastPathService;
+    private final AnswerCache answerCache;
+    private final ConversationExecutor conversationExecutor;
+    private final ModelAdmission modelAdmission;
+    private final RoutingChatModel routingChatModel;
+    private final VoiceCommandService voiceCommandService;
+
+    public ChatStatsController(SummarizingChatMemory chatMemory, FastPathService fastPathService, AnswerCache answerCache,
+                               ConversationExecutor conversationExecutor, ModelAdmission modelAdmission,
+                               RoutingChatModel routingChatModel, VoiceCommandService voiceCommandService) {
+        this.chatMemory = chatMemory;
+        this.fastPathService = fastPathService;
+        this.answerCache = answerCache;
+        this.conversationExecutor = conversationExecutor;
+        this.modelAdmission = modelAdmission;
+        this.routingChatModel = routingChatModel;
+        this.voiceCommandService = voiceCommandService;
+    }
+
+    @GetMapping("/memory")
+    ChatMemoryStats memory(){
+        return chatMemory.getStats();
+    }
+
+    @GetMapping("/memory/summary")
+    SummaryStats memorySummary(){
+        return chatMemory.getSummaryStats();
+    }
+
+    @GetMapping("/fast-path")
+    FastPathStats fastPath(){
+        return fastPathService.getStats();
+    }
+
+    @GetMapping("/answer-cache")
+    AnswerCacheStats answerCache(){
+        return answerCache.getStats();
+    }
+
+    @GetMapping("/conversations")
+    ConversationQueueStats conversations(){
+        return conversationExecutor.getStats();
+    }
+
+    @GetMapping("/admission")
+    AdmissionStats admission(){
+        return modelAdmission.getStats();
+    }
+
+    @GetMapping("/routing")
+    RoutingStats routing(){
+        return routingChatModel.getStats();
+    }
+
+    @GetMapping("/audio")
+    AudioStats audio(){
+        return voiceCommandService.getStats();
+    }
+}
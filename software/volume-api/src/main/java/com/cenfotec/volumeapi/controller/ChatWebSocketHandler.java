@@ -0,0 +1,147 @@
+package com.cenfotec.volumeapi.controller;
+
+import com.cenfotec.volumeapi.models.ChatRequest;
+import com.cenfotec.volumeapi.models.ChatStreamEvent;
+import com.cenfotec.volumeapi.service.MixerStateFeed;
+import com.cenfotec.volumeapi.service.VolumeService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One WebSocket session per conversation, at {@code /chat/ws?chatId=...}.
+ * <p>
+ * Every text frame {@code {"question": "..."}} is answered with the same events as {@code /chat/stream},
+ * one frame each, and mixer changes are pushed as {@code mixer_state} frames in between. An idle session holds
+ * no more than its socket, a send buffer decorator and its share of the mixer state feed.
+ */
+@Slf4j
+@Component
+public class ChatWebSocketHandler extends TextWebSocketHandler {
+
+    private static final String CHAT_ID = "chatId";
+    private static final String SUBSCRIPTIONS = "subscriptions";
+    private static final String OUTBOX = "outbox";
+    private static final int SEND_TIME_LIMIT_MILLIS = 10_000;
+    private static final int SEND_BUFFER_LIMIT_BYTES = 64 * 1024;
+
+    private final VolumeService volumeService;
+    private final MixerStateFeed mixerStateFeed;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final long idleTimeoutMillis;
+
+    public ChatWebSocketHandler(VolumeService volumeService, MixerStateFeed mixerStateFeed, ObjectMapper objectMapper,
+                                @Value("${chat.ws.buffer-size:4096}") int bufferSize,
+                                @Value("${chat.ws.idle-timeout:30m}") Duration idleTimeout) {
+        this.volumeService = volumeService;
+        this.mixerStateFeed = mixerStateFeed;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        UUID chatId = requestedChatId(session).orElseGet(UUID::randomUUID);
+        // a question is a short sentence, small buffers keep idle sessions cheap
+        session.setTextMessageSizeLimit(bufferSize);
+        session.setBinaryMessageSizeLimit(bufferSize);
+        if (session instanceof NativeWebSocketSession nativeSession
+                && nativeSession.getNativeSession() instanceof Session webSocket) {
+            webSocket.setMaxIdleTimeout(idleTimeoutMillis);
+        }
+        // sends from the model stream and the mixer feed may overlap, the decorator queues them
+        WebSocketSession outbox = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MILLIS, SEND_BUFFER_LIMIT_BYTES);
+        Disposable.Composite subscriptions = Disposables.composite();
+        session.getAttributes().put(CHAT_ID, chatId);
+        session.getAttributes().put(OUTBOX, outbox);
+        session.getAttributes().put(SUBSCRIPTIONS, subscriptions);
+
+        send(outbox, ChatStreamEvent.session(chatId));
+        subscriptions.add(mixerStateFeed.deltas().subscribe(delta -> send(outbox, ChatStreamEvent.mixerState(delta))));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        WebSocketSession outbox = (WebSocketSession) session.getAttributes().get(OUTBOX);
+        UUID chatId = (UUID) session.getAttributes().get(CHAT_ID);
+        String question;
+        try {
+            JsonNode frame = objectMapper.readTree(message.getPayload());
+            question = frame.path("question").asText("");
+        } catch (JsonProcessingException e) {
+            question = "";
+        }
+        if (question.isBlank()) {
+            send(outbox, ChatStreamEvent.error("Expected {\"question\": \"...\"}"));
+            return;
+        }
+        Disposable.Composite subscriptions = (Disposable.Composite) session.getAttributes().get(SUBSCRIPTIONS);
+        // a long session sends many questions, each one leaves the composite when its answer ends
+        AtomicReference<Disposable> turn = new AtomicReference<>();
+        Disposable answer = volumeService.chatStream(new ChatRequest(chatId, question))
+                .doFinally(signal -> Optional.ofNullable(turn.get()).ifPresent(subscriptions::remove))
+                .subscribe(event -> send(outbox, event), error -> send(outbox, ChatStreamEvent.error(reason(error))));
+        turn.set(answer);
+        subscriptions.add(answer);
+        if (answer.isDisposed()) {
+            subscriptions.remove(answer);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Object subscriptions = session.getAttributes().get(SUBSCRIPTIONS);
+        if (subscriptions instanceof Disposable disposable) {
+            disposable.dispose();
+        }
+    }
+
+    private void send(WebSocketSession outbox, ChatStreamEvent event) {
+        if (!outbox.isOpen()) {
+            return;
+        }
+        try {
+            outbox.sendMessage(new TextMessage(objectMapper.writeValueAsString(event)));
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not send {} to WebSocket session {}: {}", event.type(), outbox.getId(), e.getMessage());
+        }
+    }
+
+    private static Optional<UUID> requestedChatId(WebSocketSession session) {
+        if (session.getUri() == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst(CHAT_ID))
+                    .map(UUID::fromString);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static String reason(Throwable error) {
+        return error instanceof ResponseStatusException status && status.getReason() != null ? status.getReason() : "No se pudo procesar el mensaje";
+    }
+}
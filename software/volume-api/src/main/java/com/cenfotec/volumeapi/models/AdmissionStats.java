@@ -0,0 +1,5 @@
+package com.cenfotec.volumeapi.models;
+
+public record AdmissionStats(int limit, int inFlight, int queued, long admitted, long rejectedQueueFull,
+                             long rejectedDeadline, double averageLatencyMillis) {
+}
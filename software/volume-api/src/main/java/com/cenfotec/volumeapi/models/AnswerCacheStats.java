@@ -0,0 +1,4 @@
+package com.cenfotec.volumeapi.models;
+
+public record AnswerCacheStats(int size, long hits, long misses, long stores, long invalidations, double hitRate) {
+}
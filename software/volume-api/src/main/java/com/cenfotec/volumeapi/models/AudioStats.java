@@ -0,0 +1,5 @@
+package com.cenfotec.volumeapi.models;
+
+public record AudioStats(int activeSessions, long utterances, long emptyTranscripts, long droppedUtterances,
+                         int buffersAllocated, int buffersInUse, double averageTranscribeMillis) {
+}
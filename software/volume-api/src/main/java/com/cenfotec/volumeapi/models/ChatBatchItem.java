@@ -0,0 +1,19 @@
+package com.cenfotec.volumeapi.models;
+
+import org.springframework.lang.Nullable;
+
+import java.util.UUID;
+
+/**
+ * Outcome of one request of a batch; {@code index} is its position in the batch, {@code error} is set when it failed.
+ */
+public record ChatBatchItem(int index, @Nullable UUID chatId, int status, @Nullable String answer, @Nullable String error) {
+
+    public static ChatBatchItem answered(int index, ChatResponse response) {
+        return new ChatBatchItem(index, response.chatId(), 200, response.answer(), null);
+    }
+
+    public static ChatBatchItem failed(int index, @Nullable UUID chatId, int status, String error) {
+        return new ChatBatchItem(index, chatId, status, null, error);
+    }
+}
@@ -0,0 +1,12 @@
+package com.cenfotec.volumeapi.models;
+
+public record ChatMemoryStats(
+        int conversations,
+        int messages,
+        long estimatedBytes,
+        long lruEvictions,
+        long heapEvictions,
+        long expiredEvictions,
+        long trimmedMessages,
+        long hashCollisions) {
+}
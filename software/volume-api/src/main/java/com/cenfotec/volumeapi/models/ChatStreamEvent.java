@@ -0,0 +1,46 @@
+package com.cenfotec.volumeapi.models;
+
+import org.springframework.lang.Nullable;
+
+import java.util.UUID;
+
+/**
+ * One event of a streamed chat answer: {@code token}, {@code tool_call}, {@code tool_result} and a final {@code done}.
+ * <p>
+ * WebSocket sessions also get {@code session} when they open, {@code mixer_state} for every mixer change and
+ * {@code error} when a message fails; audio sessions get a {@code transcript} before each answer.
+ */
+public record ChatStreamEvent(String type, @Nullable String content, @Nullable UUID chatId) {
+
+    public static ChatStreamEvent token(String content) {
+        return new ChatStreamEvent("token", content, null);
+    }
+
+    public static ChatStreamEvent toolCall(String toolName) {
+        return new ChatStreamEvent("tool_call", toolName, null);
+    }
+
+    public static ChatStreamEvent toolResult(String toolName) {
+        return new ChatStreamEvent("tool_result", toolName, null);
+    }
+
+    public static ChatStreamEvent done(UUID chatId) {
+        return new ChatStreamEvent("done", null, chatId);
+    }
+
+    public static ChatStreamEvent session(UUID chatId) {
+        return new ChatStreamEvent("session", null, chatId);
+    }
+
+    public static ChatStreamEvent mixerState(String delta) {
+        return new ChatStreamEvent("mixer_state", delta, null);
+    }
+
+    public static ChatStreamEvent error(String reason) {
+        return new ChatStreamEvent("error", reason, null);
+    }
+
+    public static ChatStreamEvent transcript(String text) {
+        return new ChatStreamEvent("transcript", text, null);
+    }
+}
@@ -0,0 +1,5 @@
+package com.cenfotec.volumeapi.models;
+
+public record ConversationQueueStats(int activeConversations, int queuedTurns, long turns, long rejected,
+                                     double averageWaitMillis, double maxWaitMillis) {
+}
@@ -0,0 +1,4 @@
+package com.cenfotec.volumeapi.models;
+
+public record FastPathStats(long handled, long fallbacks, long toolErrors, double averageMillis) {
+}
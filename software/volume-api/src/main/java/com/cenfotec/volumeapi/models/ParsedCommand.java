@@ -0,0 +1,19 @@
+package com.cenfotec.volumeapi.models;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * A simple mixer command recognized without the LLM. A null instrument means every channel.
+ */
+public record ParsedCommand(Action action, @Nullable String instrument, @Nullable Integer value) {
+
+    public enum Action {
+        SET_VOLUME,
+        MUTE,
+        UNMUTE
+    }
+
+    public boolean allChannels() {
+        return instrument == null;
+    }
+}
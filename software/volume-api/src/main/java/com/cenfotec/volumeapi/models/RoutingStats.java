@@ -0,0 +1,5 @@
+package com.cenfotec.volumeapi.models;
+
+public record RoutingStats(long localRouted, long remoteRouted, long hedged, long hedgeWins, long hedgesSkipped,
+                           double hedgeWinRate, double localP95Millis, double remoteP95Millis) {
+}
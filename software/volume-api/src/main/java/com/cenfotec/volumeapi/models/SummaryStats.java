@@ -0,0 +1,5 @@
+package com.cenfotec.volumeapi.models;
+
+public record SummaryStats(long summaries, long foldedMessages, long failures, long turns,
+                           double averagePromptTokensBefore, double averagePromptTokensAfter) {
+}
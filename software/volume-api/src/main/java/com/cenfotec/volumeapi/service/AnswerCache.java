@@ -0,0 +1,135 @@
+package com.cenfotec.volumeapi.service;
+
+import com.cenfotec.volumeapi.config.McpToolRegistry;
+import com.cenfotec.volumeapi.models.AnswerCacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers to read-only questions, keyed by the normalized question and valid for one mixer state.
+ * <p>
+ * Only turns that used read tools and nothing else are stored, so a write command is never answered from here.
+ * Any write, ours through {@link #onWrite()} or another client's through {@link MixerStateVersion}, changes the
+ * state version and drops every stored answer.
+ */
+@Service
+public class AnswerCache {
+
+    static final Set<String> READ_ONLY_TOOLS = Set.of(
+            "getAvailableInstruments", "getSpeakerStatus", "getStatusChannel", "getAllChannelsStatus");
+
+    private final MixerStateVersion mixerStateVersion;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    // access ordered, the head is the least recently used answer
+    private final LinkedHashMap<String, Answer> answers = new LinkedHashMap<>(16, 0.75f, true);
+    private String stateVersion = "";
+    private long localWrites;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public AnswerCache(MixerStateVersion mixerStateVersion,
+                       @Value("${chat.answer-cache.enabled:true}") boolean enabled,
+                       @Value("${chat.answer-cache.max-entries:500}") int maxEntries,
+                       @Value("${chat.answer-cache.ttl:10m}") Duration ttl) {
+        this(mixerStateVersion, enabled, maxEntries, ttl, Clock.systemUTC());
+    }
+
+    AnswerCache(MixerStateVersion mixerStateVersion, boolean enabled, int maxEntries, Duration ttl, Clock clock) {
+        this.mixerStateVersion = mixerStateVersion;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Version of the current mixer state, empty when it is unknown and nothing may be cached.
+     */
+    public Optional<String> currentVersion() {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Optional<String> remote = mixerStateVersion.current();
+        synchronized (this) {
+            Optional<String> version = remote.map(state -> state + "#" + localWrites);
+            version.ifPresent(this::moveTo);
+            return version;
+        }
+    }
+
+    public synchronized Optional<String> get(String question, String version) {
+        moveTo(version);
+        Answer answer = answers.get(CommandParser.normalize(question));
+        if (answer == null || clock.millis() - answer.storedAt() >= ttlMillis) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(answer.text());
+    }
+
+    /**
+     * Stores the answer if the turn only read the mixer; a turn that wrote counts as a write.
+     */
+    public synchronized void put(String question, String version, String text, Collection<String> toolsUsed) {
+        if (toolsUsed.stream().anyMatch(tool -> !isReadOnly(tool))) {
+            onWrite();
+            return;
+        }
+        if (toolsUsed.isEmpty() || !version.equals(stateVersion)) {
+            return;
+        }
+        answers.put(CommandParser.normalize(question), new Answer(text, clock.millis()));
+        stores.incrementAndGet();
+        if (answers.size() > maxEntries) {
+            answers.pollFirstEntry();
+        }
+    }
+
+    public synchronized void onWrite() {
+        localWrites++;
+        invalidate();
+    }
+
+    public synchronized AnswerCacheStats getStats() {
+        long lookups = hits.get() + misses.get();
+        return new AnswerCacheStats(answers.size(), hits.get(), misses.get(), stores.get(), invalidations.get(),
+                lookups == 0 ? 0 : (double) hits.get() / lookups);
+    }
+
+    private void moveTo(String version) {
+        if (!version.equals(stateVersion)) {
+            stateVersion = version;
+            invalidate();
+        }
+    }
+
+    private void invalidate() {
+        if (!answers.isEmpty()) {
+            answers.clear();
+            invalidations.incrementAndGet();
+        }
+    }
+
+    private static boolean isReadOnly(String tool) {
+        return READ_ONLY_TOOLS.stream().anyMatch(name -> McpToolRegistry.isTool(tool, name));
+    }
+
+    private record Answer(String text, long storedAt) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.cenfotec.volumeapi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed size buffers for utterances being recorded, shared by every audio session.
+ * <p>
+ * A session only holds a buffer while someone is speaking. Buffers are allocated on first use, at most
+ * {@code maxBuffers}, and reused afterwards, so audio memory never grows past {@code maxBuffers * bufferSize}.
+ */
+@Component
+public class AudioBufferPool {
+
+    private final int bufferBytes;
+    private final int maxBuffers;
+    private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger allocated = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+
+    public AudioBufferPool(@Value("${chat.audio.buffer-size:512KB}") DataSize bufferSize,
+                           @Value("${chat.audio.max-buffers:64}") int maxBuffers) {
+        this.bufferBytes = (int) bufferSize.toBytes();
+        this.maxBuffers = maxBuffers;
+    }
+
+    /**
+     * An empty buffer, or null when all of them are taken.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null) {
+            if (allocated.incrementAndGet() > maxBuffers) {
+                allocated.decrementAndGet();
+                return null;
+            }
+            buffer = ByteBuffer.allocateDirect(bufferBytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        inUse.incrementAndGet();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        buffer.clear();
+        inUse.decrementAndGet();
+        free.offer(buffer);
+    }
+
+    public int allocated() {
+        return allocated.get();
+    }
+
+    public int inUse() {
+        return inUse.get();
+    }
+}
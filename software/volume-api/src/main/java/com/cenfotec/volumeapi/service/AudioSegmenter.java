@@ -0,0 +1,217 @@
+package com.cenfotec.volumeapi.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Cuts a live stream of 16-bit little endian mono PCM into utterances with an energy based voice activity detector.
+ * <p>
+ * Audio is looked at in 20 ms frames. Speech starts after {@code startFrames} voiced frames in a row and ends
+ * after {@code endSilence} without voice, or when the utterance buffer is full. Voiced audio is copied into a
+ * buffer borrowed from the {@link AudioBufferPool}; the utterance consumer owns it and gives it back with
+ * {@link AudioBufferPool#release}. A WAV header at the start of the stream sets the sample rate and is skipped.
+ * Sample rates outside {@value #MIN_SAMPLE_RATE}-{@value #MAX_SAMPLE_RATE} Hz are rejected with
+ * {@link IllegalArgumentException}. Not thread safe, one instance per stream.
+ */
+public final class AudioSegmenter {
+
+    public static final int MIN_SAMPLE_RATE = 8_000;
+    public static final int MAX_SAMPLE_RATE = 48_000;
+
+    private static final int FRAME_MILLIS = 20;
+    private static final int WAV_HEADER_MIN_BYTES = 44;
+    // chunk ids of a WAV file, read big endian
+    private static final int RIFF = 0x52494646;
+    private static final int FMT = 0x666d7420;
+    private static final int DATA = 0x64617461;
+
+    private final AudioBufferPool pool;
+    private final double threshold;
+    private final int startFrames;
+    private final Duration endSilence;
+    private final Duration minSpeech;
+    private final Consumer<ByteBuffer> onUtterance;
+
+    private int sampleRate;
+    private int endFrames;
+    private int minSpeechFrames;
+    private ByteBuffer frame;
+    private boolean headerChecked;
+
+    private ByteBuffer utterance;
+    private boolean speaking;
+    private int voicedRun;
+    private int silentRun;
+    private int speechFrames;
+    private long dropped;
+
+    public AudioSegmenter(AudioBufferPool pool, int sampleRate, double threshold, int startFrames, Duration endSilence,
+                          Duration minSpeech, Consumer<ByteBuffer> onUtterance) {
+        this.pool = pool;
+        this.threshold = threshold;
+        this.startFrames = startFrames;
+        this.endSilence = endSilence;
+        this.minSpeech = minSpeech;
+        this.onUtterance = onUtterance;
+        setSampleRate(sampleRate);
+    }
+
+    /**
+     * Feeds the next chunk of the stream, of any size.
+     */
+    public void accept(ByteBuffer chunk) {
+        chunk = chunk.duplicate();
+        if (!headerChecked) {
+            headerChecked = true;
+            skipWavHeader(chunk);
+        }
+        while (chunk.hasRemaining()) {
+            int length = Math.min(frame.remaining(), chunk.remaining());
+            frame.put(chunk.slice(chunk.position(), length));
+            chunk.position(chunk.position() + length);
+            if (!frame.hasRemaining()) {
+                frame.flip();
+                onFrame(frame);
+                frame.clear();
+            }
+        }
+    }
+
+    /**
+     * Ends the stream: an utterance in progress is delivered, a false start gives its buffer back.
+     */
+    public void close() {
+        if (speaking) {
+            finish();
+        } else if (utterance != null) {
+            pool.release(utterance);
+            utterance = null;
+        }
+    }
+
+    /**
+     * Ends the stream without delivering the utterance in progress, its buffer goes back to the pool.
+     */
+    public void discard() {
+        if (utterance != null) {
+            pool.release(utterance);
+            utterance = null;
+        }
+        speaking = false;
+        voicedRun = 0;
+        silentRun = 0;
+        speechFrames = 0;
+    }
+
+    public static boolean supportsSampleRate(int sampleRate) {
+        return sampleRate >= MIN_SAMPLE_RATE && sampleRate <= MAX_SAMPLE_RATE;
+    }
+
+    public int sampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Utterances lost because no buffer was free.
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    private void onFrame(ByteBuffer frame) {
+        boolean voiced = rms(frame) >= threshold;
+        if (!speaking) {
+            if (!voiced) {
+                voicedRun = 0;
+                if (utterance != null) {
+                    // false start, the buffer goes back until someone really speaks
+                    pool.release(utterance);
+                    utterance = null;
+                }
+                return;
+            }
+            if (utterance == null && (utterance = pool.acquire()) == null) {
+                dropped++;
+                return;
+            }
+            append(frame);
+            speaking = ++voicedRun >= startFrames;
+            speechFrames = voicedRun;
+            return;
+        }
+        append(frame);
+        speechFrames++;
+        silentRun = voiced ? 0 : silentRun + 1;
+        if (silentRun >= endFrames || utterance.remaining() < frame.capacity()) {
+            finish();
+        }
+    }
+
+    private void append(ByteBuffer frame) {
+        utterance.put(frame.duplicate());
+    }
+
+    private void finish() {
+        ByteBuffer done = utterance;
+        // trailing silence carries no words
+        done.limit(done.position() - silentRun * frame.capacity());
+        done.position(0);
+        boolean longEnough = speechFrames - silentRun >= minSpeechFrames;
+        utterance = null;
+        speaking = false;
+        voicedRun = 0;
+        silentRun = 0;
+        speechFrames = 0;
+        if (longEnough) {
+            onUtterance.accept(done);
+        } else {
+            pool.release(done);
+        }
+    }
+
+    private void skipWavHeader(ByteBuffer chunk) {
+        ByteBuffer ids = chunk.slice();
+        ByteBuffer fields = chunk.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (ids.remaining() < WAV_HEADER_MIN_BYTES || ids.getInt(0) != RIFF) {
+            return;
+        }
+        int position = 12;
+        while (position + 8 <= ids.limit()) {
+            int id = ids.getInt(position);
+            int size = fields.getInt(position + 4);
+            if (id == FMT) {
+                if (fields.getShort(position + 8) != 1 || fields.getShort(position + 10) != 1 || fields.getShort(position + 22) != 16) {
+                    throw new IllegalArgumentException("Only 16-bit mono PCM is supported");
+                }
+                setSampleRate(fields.getInt(position + 12));
+            } else if (id == DATA) {
+                chunk.position(chunk.position() + position + 8);
+                return;
+            }
+            position += 8 + size + (size & 1);
+        }
+    }
+
+    private void setSampleRate(int sampleRate) {
+        if (!supportsSampleRate(sampleRate)) {
+            throw new IllegalArgumentException("Sample rate must be between " + MIN_SAMPLE_RATE + " and "
+                    + MAX_SAMPLE_RATE + " Hz, got " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+        this.frame = ByteBuffer.allocate(sampleRate * FRAME_MILLIS / 1000 * 2).order(ByteOrder.LITTLE_ENDIAN);
+        this.endFrames = (int) Math.max(1, endSilence.toMillis() / FRAME_MILLIS);
+        this.minSpeechFrames = (int) (minSpeech.toMillis() / FRAME_MILLIS);
+    }
+
+    private static double rms(ByteBuffer frame) {
+        long sum = 0;
+        int samples = frame.remaining() / 2;
+        for (int i = 0; i < samples; i++) {
+            int sample = frame.getShort(frame.position() + 2 * i);
+            sum += (long) sample * sample;
+        }
+        return Math.sqrt((double) sum / Math.max(1, samples));
+    }
+}
@@ -0,0 +1,105 @@
+package com.cenfotec.volumeapi.service;
+
+import com.cenfotec.volumeapi.models.ChatBatchItem;
+import com.cenfotec.volumeapi.models.ChatRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs a batch of chat requests with at most {@code maxParallel} conversations at a time.
+ * <p>
+ * Requests of the same chatId run one after another in batch order, requests without a chatId are each a
+ * conversation of their own. A failed request becomes a failed item and the rest of the batch goes on.
+ */
+@Slf4j
+@Service
+public class ChatBatchService {
+
+    private final VolumeService volumeService;
+    private final int maxParallel;
+    private final int maxItems;
+    private final Scheduler scheduler = Schedulers.fromExecutorService(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chat-batch-", 0).factory()), "chat-batch");
+
+    public ChatBatchService(VolumeService volumeService,
+                            @Value("${chat.batch.max-parallel:8}") int maxParallel,
+                            @Value("${chat.batch.max-items:100}") int maxItems) {
+        this.volumeService = volumeService;
+        this.maxParallel = maxParallel;
+        this.maxItems = maxItems;
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.dispose();
+    }
+
+    /**
+     * Items in the order they finish.
+     */
+    public Flux<ChatBatchItem> stream(List<ChatRequest> requests) {
+        if (requests.size() > maxItems) {
+            return Flux.error(new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "A batch holds at most " + maxItems + " requests"));
+        }
+        return Flux.fromIterable(conversations(requests))
+                .flatMap(conversation -> Flux.fromIterable(conversation)
+                        .concatMap(index -> Mono.fromCallable(() -> run(index, requests.get(index))).subscribeOn(scheduler)),
+                        maxParallel);
+    }
+
+    /**
+     * Items in the order of the requests.
+     */
+    public Mono<List<ChatBatchItem>> run(List<ChatRequest> requests) {
+        return stream(requests).collectSortedList(Comparator.comparingInt(ChatBatchItem::index));
+    }
+
+    private ChatBatchItem run(int index, ChatRequest request) {
+        try {
+            return ChatBatchItem.answered(index, volumeService.chat(request));
+        } catch (ResponseStatusException e) {
+            return ChatBatchItem.failed(index, request.chatId(), e.getStatusCode().value(), e.getReason());
+        } catch (RuntimeException e) {
+            log.warn("Batch request {} failed: {}", index, e.getMessage());
+            return ChatBatchItem.failed(index, request.chatId(), HttpStatus.INTERNAL_SERVER_ERROR.value(), e.getMessage());
+        }
+    }
+
+    /**
+     * Request positions grouped by chatId, in batch order.
+     */
+    private static List<List<Integer>> conversations(List<ChatRequest> requests) {
+        Map<UUID, List<Integer>> byChat = new LinkedHashMap<>();
+        List<List<Integer>> conversations = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            UUID chatId = requests.get(i).chatId();
+            if (chatId == null) {
+                conversations.add(List.of(i));
+            } else {
+                byChat.computeIfAbsent(chatId, id -> {
+                    List<Integer> conversation = new ArrayList<>();
+                    conversations.add(conversation);
+                    return conversation;
+                }).add(i);
+            }
+        }
+        return conversations;
+    }
+}
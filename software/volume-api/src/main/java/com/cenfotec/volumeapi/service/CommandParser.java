@@ -0,0 +1,69 @@
+package com.cenfotec.volumeapi.service;
+
+import com.cenfotec.volumeapi.models.ParsedCommand;
+import com.cenfotec.volumeapi.models.ParsedCommand.Action;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recognizes single volume and mute commands in Spanish and English.
+ * <p>
+ * A pattern has to match the whole question, anything with more than one instrument, a question or
+ * extra words is left to the LLM.
+ */
+@Component
+public class CommandParser {
+
+    private static final String ARTICLE = "(?:(?:la|el|los|las|the|a|al)\\s+)?";
+    private static final String TARGET = "(?<target>[a-z0-9]+)";
+    private static final String VALUE = "(?<value>\\d{1,3})(?:\\s*%|\\s+por\\s*ciento|\\s+percent)?";
+
+    private static final Set<String> ALL_CHANNELS = Set.of(
+            "all", "everything", "master", "speaker", "general", "todo", "todos", "parlante", "altavoz");
+
+    private static final List<Rule> RULES = List.of(
+            new Rule(Action.SET_VOLUME, "(?:(?:sube|baja|pon|ponle|ajusta|cambia|configura|deja|establece)\\s+)?"
+                    + ARTICLE + "(?:volumen\\s+(?:de\\s+|del\\s+)?)?" + ARTICLE + TARGET + "\\s+(?:a|al|en)\\s+" + VALUE),
+            new Rule(Action.SET_VOLUME, "(?:set|turn|put|change|raise|lower)\\s+" + ARTICLE + "(?:volume\\s+of\\s+)?" + ARTICLE
+                    + TARGET + "(?:\\s+volume)?\\s+(?:(?:up|down)\\s+)?to\\s+" + VALUE),
+            new Rule(Action.UNMUTE, "(?:quita(?:le)?\\s+el\\s+(?:mute|silencio)\\s+(?:a|de|del)\\s+|desmutea\\s+|unmute\\s+)"
+                    + ARTICLE + TARGET),
+            new Rule(Action.MUTE, "(?:silencia|mutea|calla|mute|silence)\\s+" + ARTICLE + TARGET));
+
+    public Optional<ParsedCommand> parse(String question) {
+        if (question == null) {
+            return Optional.empty();
+        }
+        String normalized = normalize(question);
+        for (Rule rule : RULES) {
+            Matcher matcher = rule.pattern().matcher(normalized);
+            if (!matcher.matches()) {
+                continue;
+            }
+            Integer value = rule.action() == Action.SET_VOLUME ? Integer.valueOf(matcher.group("value")) : null;
+            if (value != null && value > 100) {
+                return Optional.empty();
+            }
+            String target = matcher.group("target");
+            return Optional.of(new ParsedCommand(rule.action(), ALL_CHANNELS.contains(target) ? null : target, value));
+        }
+        return Optional.empty();
+    }
+
+    public static String normalize(String question) {
+        String withoutAccents = Normalizer.normalize(question.toLowerCase(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return withoutAccents.replaceAll("[¿?¡!.,;:]", " ").trim().replaceAll("\\s+", " ");
+    }
+
+    private record Rule(Action action, Pattern pattern) {
+        Rule(Action action, String regex) {
+            this(action, Pattern.compile(regex));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.cenfotec.volumeapi.service;
+
+import com.cenfotec.volumeapi.models.ConversationQueueStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Runs the turns of one conversation one at a time, in arrival order, while different conversations run in parallel.
+ * <p>
+ * Each chatId gets a mailbox that only exists while it has a turn running or waiting. A mailbox holds at most
+ * {@code maxQueued} waiting turns, more are rejected with 429. Waiting turns block their own request thread,
+ * which is virtual, so a waiting turn costs no platform thread.
+ */
+@Slf4j
+@Component
+public class ConversationExecutor {
+
+    private final int maxQueued;
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private final AtomicLong turns = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public ConversationExecutor(@Value("${chat.conversation.max-queued:8}") int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Runs {@code turn} once every earlier turn of {@code chatId} is done.
+     */
+    public <T> T call(String chatId, Supplier<T> turn) {
+        Runnable release = await(acquire(chatId));
+        try {
+            return turn.get();
+        } finally {
+            release.run();
+        }
+    }
+
+    /**
+     * Subscribes to {@code turn} once every earlier turn of {@code chatId} is done, the next one starts when it terminates.
+     * Cancelling while queued cancels the wait, so the turn gives up its place instead of holding the conversation.
+     */
+    public <T> Flux<T> stream(String chatId, Supplier<Flux<T>> turn) {
+        return Flux.usingWhen(Mono.fromFuture(() -> acquire(chatId)),
+                release -> turn.get(),
+                release -> Mono.fromRunnable(release));
+    }
+
+    public ConversationQueueStats getStats() {
+        int queued = 0;
+        for (Mailbox mailbox : mailboxes.values()) {
+            queued += mailbox.waiting.size();
+        }
+        long count = turns.get();
+        return new ConversationQueueStats(mailboxes.size(), queued, count, rejected.get(),
+                count == 0 ? 0 : waitNanos.get() / 1_000_000.0 / count, maxWaitNanos.get() / 1_000_000.0);
+    }
+
+    /**
+     * Future completed with the release of the turn once it is the head of the mailbox.
+     */
+    CompletableFuture<Runnable> acquire(String chatId) {
+        Turn turn = new Turn(chatId);
+        AtomicReference<Admission> admission = new AtomicReference<>(Admission.REJECTED);
+        mailboxes.compute(chatId, (id, mailbox) -> {
+            if (mailbox == null) {
+                admission.set(Admission.RUN);
+                return new Mailbox();
+            }
+            if (mailbox.waiting.size() < maxQueued) {
+                admission.set(Admission.QUEUED);
+                mailbox.waiting.addLast(turn);
+            }
+            return mailbox;
+        });
+        if (admission.get() == Admission.REJECTED) {
+            rejected.incrementAndGet();
+            log.warn("Rejected a turn for chat {}, {} turns already waiting", chatId, maxQueued);
+            return CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many pending messages for this conversation"));
+        }
+        if (admission.get() == Admission.RUN) {
+            grant(turn);
+        } else {
+            turn.future.whenComplete((release, error) -> {
+                if (turn.future.isCancelled()) {
+                    leave(turn);
+                }
+            });
+        }
+        return turn.future;
+    }
+
+    private void grant(Turn turn) {
+        long waited = System.nanoTime() - turn.enqueuedAt;
+        turns.incrementAndGet();
+        waitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        if (!turn.future.complete(turn::release)) {
+            // the caller went away while waiting
+            turn.release();
+        }
+    }
+
+    private void leave(Turn turn) {
+        mailboxes.computeIfPresent(turn.chatId, (id, mailbox) -> {
+            mailbox.waiting.remove(turn);
+            return mailbox;
+        });
+    }
+
+    private void next(String chatId) {
+        AtomicReference<Turn> granted = new AtomicReference<>();
+        mailboxes.computeIfPresent(chatId, (id, mailbox) -> {
+            Turn head = mailbox.waiting.pollFirst();
+            if (head == null) {
+                return null;
+            }
+            granted.set(head);
+            return mailbox;
+        });
+        if (granted.get() != null) {
+            grant(granted.get());
+        }
+    }
+
+    private static Runnable await(CompletableFuture<Runnable> release) {
+        try {
+            return release.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        } catch (CancellationException e) {
+            throw new IllegalStateException("Turn cancelled while waiting", e);
+        }
+    }
+
+    private enum Admission { RUN, QUEUED, REJECTED }
+
+    private static final class Mailbox {
+        private final Deque<Turn> waiting = new ArrayDeque<>();
+    }
+
+    private final class Turn {
+        private final String chatId;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Runnable> future = new CompletableFuture<>();
+        private boolean released;
+
+        Turn(String chatId) {
+            this.chatId = chatId;
+        }
+
+        synchronized void release() {
+            if (!released) {
+                released = true;
+                next(chatId);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.cenfotec.volumeapi.service;
+
+import com.cenfotec.volumeapi.config.McpToolRegistry;
+import com.cenfotec.volumeapi.models.FastPathStats;
+import com.cenfotec.volumeapi.models.ParsedCommand;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs commands recognized by {@link CommandParser} straight against the MCP tools, without the LLM.
+ * <p>
+ * The answer and the question are added to the chat memory, so a later LLM turn still sees them.
+ * When the tool fails or answers with a non-2xx status, such as a channel no device owns, the question
+ * goes to the LLM as usual. When the tool only simulated the change
+ * because the mixer is offline, the answer says that nothing changed.
+ */
+@Slf4j
+@Service
+public class FastPathService {
+
+    private final CommandParser commandParser;
+    private final McpToolRegistry toolRegistry;
+    private final ChatMemory chatMemory;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    private final AtomicLong handled = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong toolErrors = new AtomicLong();
+    private final AtomicLong handledNanos = new AtomicLong();
+
+    public FastPathService(CommandParser commandParser, McpToolRegistry toolRegistry, ChatMemory chatMemory,
+                           ObjectMapper objectMapper, @Value("${chat.fast-path.enabled:true}") boolean enabled) {
+        this.commandParser = commandParser;
+        this.toolRegistry = toolRegistry;
+        this.chatMemory = chatMemory;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Answer for the question when it is a simple command, empty when it has to go to the LLM.
+     */
+    public Optional<String> tryHandle(UUID chatId, String question) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        Optional<ParsedCommand> command = commandParser.parse(question);
+        if (command.isEmpty()) {
+            fallbacks.incrementAndGet();
+            return Optional.empty();
+        }
+        boolean offline;
+        try {
+            offline = execute(command.get());
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.debug("Fast path failed for '{}', falling back to the LLM: {}", question, e.getMessage());
+            toolErrors.incrementAndGet();
+            fallbacks.incrementAndGet();
+            return Optional.empty();
+        }
+        if (offline) {
+            toolErrors.incrementAndGet();
+        }
+        String answer = offline ? offlineAnswer(command.get()) : answer(command.get());
+        chatMemory.add(chatId.toString(), List.of(new UserMessage(question), new AssistantMessage(answer)));
+
+        long elapsed = System.nanoTime() - start;
+        handled.incrementAndGet();
+        handledNanos.addAndGet(elapsed);
+        log.info("Fast path handled {} for chat {} in {} ms", command.get(), chatId, elapsed / 1_000_000);
+        return Optional.of(answer);
+    }
+
+    public FastPathStats getStats() {
+        long count = handled.get();
+        return new FastPathStats(count, fallbacks.get(), toolErrors.get(),
+                count == 0 ? 0 : handledNanos.get() / 1_000_000.0 / count);
+    }
+
+    /**
+     * Runs the command, true when the mixer did not answer and the tool only simulated it.
+     */
+    private boolean execute(ParsedCommand command) throws JsonProcessingException {
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        String tool;
+        if (command.allChannels()) {
+            if (command.action() == ParsedCommand.Action.SET_VOLUME) {
+                tool = "changeVolumeSpeaker";
+                arguments.put("value", command.value());
+            } else {
+                tool = "setMuteSpeaker";
+                arguments.put("mute", command.action() == ParsedCommand.Action.MUTE);
+            }
+        } else {
+            arguments.put("idInstrument", command.instrument());
+            if (command.action() == ParsedCommand.Action.SET_VOLUME) {
+                tool = "setVolume";
+                arguments.put("value", command.value());
+            } else {
+                tool = "setMute";
+                arguments.put("mute", command.action() == ParsedCommand.Action.MUTE);
+            }
+        }
+        String result = toolRegistry.find(tool)
+                .orElseThrow(() -> new IllegalStateException("Tool " + tool + " is not available"))
+                .call(objectMapper.writeValueAsString(arguments));
+        // a device error or a channel without a device: nothing was changed
+        if (!succeeded(McpToolRegistry.readResult(objectMapper, result))) {
+            throw new IllegalStateException(result);
+        }
+        return result.contains("simulated - device offline");
+    }
+
+    /**
+     * Whether the serialized {@code ResponseEntity} of a mixer tool has a 2xx status.
+     */
+    private static boolean succeeded(JsonNode result) {
+        JsonNode statusCodeValue = result.path("statusCodeValue");
+        if (statusCodeValue.isInt()) {
+            return HttpStatusCode.valueOf(statusCodeValue.asInt()).is2xxSuccessful();
+        }
+        JsonNode statusCode = result.path("statusCode");
+        if (statusCode.isTextual()) {
+            return HttpStatus.valueOf(statusCode.asText()).is2xxSuccessful();
+        }
+        return false;
+    }
+
+    private static String answer(ParsedCommand command) {
+        String target = command.allChannels() ? "todos los canales" : command.instrument();
+        return switch (command.action()) {
+            case SET_VOLUME -> String.format("¡Listo! El volumen de %s quedó en %d.", target, command.value());
+            case MUTE -> String.format("¡Listo! Silencié %s.", target);
+            case UNMUTE -> String.format("¡Listo! Quité el silencio de %s.", target);
+        };
+    }
+
+    private static String offlineAnswer(ParsedCommand command) {
+        String target = command.allChannels() ? "todos los canales" : command.instrument();
+        return switch (command.action()) {
+            case SET_VOLUME -> String.format("El mezclador no responde, no pude cambiar el volumen de %s.", target);
+            case MUTE -> String.format("El mezclador no responde, no pude silenciar %s.", target);
+            case UNMUTE -> String.format("El mezclador no responde, no pude quitar el silencio de %s.", target);
+        };
+    }
+}
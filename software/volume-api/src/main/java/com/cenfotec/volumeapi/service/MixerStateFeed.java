@@ -0,0 +1,48 @@
+package com.cenfotec.volumeapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Mixer changes from the {@code /mixer/state/stream} of the MCP server, shared by every subscriber.
+ * <p>
+ * There is one upstream connection while at least one subscriber is listening, reconnected with backoff
+ * when the server goes away.
+ */
+@Slf4j
+@Service
+public class MixerStateFeed {
+
+    private final Flux<String> deltas;
+
+    public MixerStateFeed(WebClient.Builder webClientBuilder,
+                          @Value("${chat.mixer-state.stream-url:http://localhost:8081/mixer/state/stream}") String streamUrl) {
+        this.deltas = webClientBuilder.build()
+                .get()
+                .uri(streamUrl)
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                })
+                .filter(event -> "delta".equals(event.event()) && event.data() != null)
+                .map(ServerSentEvent::data)
+                .doOnError(error -> log.debug("Mixer state stream {} failed: {}", streamUrl, error.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .repeatWhen(completed -> completed.delayElements(Duration.ofSeconds(1)))
+                .share();
+    }
+
+    /**
+     * JSON of every mixer state delta, from the moment of the subscription on.
+     */
+    public Flux<String> deltas() {
+        return deltas;
+    }
+}
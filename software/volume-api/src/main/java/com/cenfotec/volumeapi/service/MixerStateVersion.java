@@ -0,0 +1,56 @@
+package com.cenfotec.volumeapi.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Fingerprint of the mixer state, read from the {@code mixer://state} resource of the MCP server.
+ * <p>
+ * It changes whenever the server sees a write or its poller sees the device change.
+ */
+@Slf4j
+@Service
+public class MixerStateVersion {
+
+    static final String STATE_RESOURCE = "mixer://state";
+
+    private final List<McpSyncClient> mcpClients;
+    private final ObjectMapper objectMapper;
+
+    public MixerStateVersion(List<McpSyncClient> mcpClients, ObjectMapper objectMapper) {
+        this.mcpClients = mcpClients;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Current fingerprint, empty when no MCP server publishes the mixer state.
+     */
+    public Optional<String> current() {
+        for (McpSyncClient client : mcpClients) {
+            try {
+                McpSchema.ReadResourceResult result = client.readResource(new McpSchema.ReadResourceRequest(STATE_RESOURCE));
+                StringBuilder fingerprint = new StringBuilder();
+                for (McpSchema.ResourceContents contents : result.contents()) {
+                    if (contents instanceof McpSchema.TextResourceContents text) {
+                        for (JsonNode snapshot : objectMapper.readTree(text.text())) {
+                            fingerprint.append(snapshot.path("device").asText()).append(':')
+                                    .append(snapshot.path("version").asLong()).append(':')
+                                    .append(snapshot.path("generation").asLong()).append(';');
+                        }
+                    }
+                }
+                return Optional.of(fingerprint.toString());
+            } catch (Exception e) {
+                log.debug("No mixer state from MCP client {}: {}", client.getClientInfo().name(), e.getMessage());
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,226 @@
+package com.cenfotec.volumeapi.service;
+
+import com.cenfotec.volumeapi.models.AdmissionStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Limits how many LLM calls run at once, with a bounded wait queue in front.
+ * <p>
+ * A call over the limit waits at most {@code maxWait}; a full queue is answered with 429 right away and an
+ * expired wait with 503, both with a {@code Retry-After} estimated from the observed latency.
+ * The limit adapts to the model: it grows by one per round of calls while they keep the usual latency and
+ * shrinks by a tenth when a call takes more than {@code latencyTolerance} times the usual, or fails.
+ */
+@Slf4j
+@Component
+public class ModelAdmission {
+
+    // weight of a new sample in the usual latency, small so a slow burst stands out against it
+    private static final double BASELINE_WEIGHT = 0.05;
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+    private final long maxWaitNanos;
+    private final double latencyTolerance;
+
+    private double limit;
+    private int inFlight;
+    private double baselineNanos;
+    private final Deque<CompletableFuture<Permit>> waiting = new ArrayDeque<>();
+
+    private long admitted;
+    private long rejectedQueueFull;
+    private long rejectedDeadline;
+
+    public ModelAdmission(@Value("${chat.admission.initial-limit:8}") int initialLimit,
+                          @Value("${chat.admission.min-limit:1}") int minLimit,
+                          @Value("${chat.admission.max-limit:64}") int maxLimit,
+                          @Value("${chat.admission.max-queued:32}") int maxQueued,
+                          @Value("${chat.admission.max-wait:5s}") Duration maxWait,
+                          @Value("${chat.admission.latency-tolerance:2.0}") double latencyTolerance) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueued = maxQueued;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    public <T> T call(Supplier<T> modelCall) {
+        Permit permit = await(acquire());
+        boolean failed = true;
+        try {
+            T result = modelCall.get();
+            failed = false;
+            return result;
+        } finally {
+            permit.release(failed);
+        }
+    }
+
+    public <T> Flux<T> stream(Supplier<Flux<T>> modelCall) {
+        return Flux.usingWhen(Mono.fromFuture(this::acquire),
+                permit -> modelCall.get(),
+                permit -> Mono.fromRunnable(() -> permit.release(false)),
+                (permit, error) -> Mono.fromRunnable(() -> permit.release(true)),
+                permit -> Mono.fromRunnable(() -> permit.release(false)));
+    }
+
+    /**
+     * A permit only if one is free right now and nobody is waiting, for optional calls such as a hedge.
+     */
+    public synchronized Optional<Permit> tryAcquire() {
+        if (inFlight >= (int) limit || !waiting.isEmpty()) {
+            return Optional.empty();
+        }
+        inFlight++;
+        admitted++;
+        return Optional.of(new Permit());
+    }
+
+    public synchronized AdmissionStats getStats() {
+        return new AdmissionStats((int) limit, inFlight, waiting.size(), admitted, rejectedQueueFull, rejectedDeadline,
+                baselineNanos / 1_000_000);
+    }
+
+    CompletableFuture<Permit> acquire() {
+        CompletableFuture<Permit> permit = new CompletableFuture<>();
+        synchronized (this) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                admitted++;
+                return CompletableFuture.completedFuture(new Permit());
+            }
+            if (waiting.size() >= maxQueued) {
+                rejectedQueueFull++;
+                log.warn("Model calls saturated: {} running, {} waiting", inFlight, waiting.size());
+                return CompletableFuture.failedFuture(new ModelSaturatedException(HttpStatus.TOO_MANY_REQUESTS,
+                        "Too many requests waiting for the model", retryAfterSeconds()));
+            }
+            waiting.addLast(permit);
+        }
+        CompletableFuture<Permit> admission = permit.orTimeout(maxWaitNanos, TimeUnit.NANOSECONDS).exceptionallyCompose(e -> {
+            synchronized (this) {
+                waiting.remove(permit);
+                if (!(e instanceof TimeoutException)) {
+                    return CompletableFuture.failedFuture(e);
+                }
+                rejectedDeadline++;
+                return CompletableFuture.failedFuture(new ModelSaturatedException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Timed out waiting for the model", retryAfterSeconds()));
+            }
+        });
+        // a stream cancelled while waiting cancels the future it was given, not the queued one
+        admission.whenComplete((granted, error) -> {
+            if (admission.isCancelled()) {
+                abandon(permit);
+            }
+        });
+        return admission;
+    }
+
+    private void abandon(CompletableFuture<Permit> permit) {
+        synchronized (this) {
+            waiting.remove(permit);
+        }
+        if (!permit.cancel(false) && !permit.isCompletedExceptionally()) {
+            // granted just before the cancel arrived
+            permit.join().abandon();
+        }
+    }
+
+    private void release(long latencyNanos, boolean failed) {
+        synchronized (this) {
+            if (failed || (baselineNanos > 0 && latencyNanos > latencyTolerance * baselineNanos)) {
+                limit = Math.max(minLimit, limit * BACKOFF);
+            } else if (inFlight >= (int) limit) {
+                // one more per round of calls at the current limit
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            if (!failed) {
+                baselineNanos = baselineNanos == 0 ? latencyNanos : baselineNanos + BASELINE_WEIGHT * (latencyNanos - baselineNanos);
+            }
+            inFlight--;
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        List<CompletableFuture<Permit>> granted = new ArrayList<>();
+        synchronized (this) {
+            while (inFlight < (int) limit && !waiting.isEmpty()) {
+                granted.add(waiting.pollFirst());
+                inFlight++;
+                admitted++;
+            }
+        }
+        // completed outside the lock, the waiter may start its model call right here
+        for (CompletableFuture<Permit> waiter : granted) {
+            if (!waiter.complete(new Permit())) {
+                // the waiter already timed out or went away
+                synchronized (this) {
+                    inFlight--;
+                    admitted--;
+                }
+                dispatch();
+            }
+        }
+    }
+
+    private long retryAfterSeconds() {
+        double seconds = baselineNanos / 1e9 * (waiting.size() + 1) / Math.max(1, (int) limit);
+        return Math.max(1, Math.min(60, (long) Math.ceil(seconds)));
+    }
+
+    private static Permit await(CompletableFuture<Permit> permit) {
+        try {
+            return permit.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public final class Permit {
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void release(boolean failed) {
+            if (released.compareAndSet(false, true)) {
+                ModelAdmission.this.release(System.nanoTime() - start, failed);
+            }
+        }
+
+        /**
+         * Gives back a permit that never ran a model call, without touching the limit or the latency baseline.
+         */
+        void abandon() {
+            if (released.compareAndSet(false, true)) {
+                synchronized (ModelAdmission.this) {
+                    inFlight--;
+                    admitted--;
+                }
+                dispatch();
+            }
+        }
+    }
+}
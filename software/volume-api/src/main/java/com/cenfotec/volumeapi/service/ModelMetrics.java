@@ -0,0 +1,131 @@
+package com.cenfotec.volumeapi.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Latency and token usage of the model calls, published as histograms so p99 can be read from Prometheus.
+ * <p>
+ * {@code chat.model.latency} is tagged with the mode ({@code call} or {@code stream}) and the outcome,
+ * {@code chat.model.first-token} measures streams up to their first chunk and {@code chat.model.tokens}
+ * counts prompt and completion tokens per turn, as reported by the model.
+ */
+@Component
+public class ModelMetrics {
+
+    private static final Duration MAX_EXPECTED_LATENCY = Duration.ofMinutes(2);
+    private static final double MAX_EXPECTED_TOKENS = 32_768;
+
+    private final MeterRegistry meterRegistry;
+
+    public ModelMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public ChatResponse call(Supplier<ChatResponse> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            ChatResponse response = call.get();
+            outcome = "success";
+            recordUsage("call", response == null ? null : response.getMetadata().getUsage());
+            return response;
+        } finally {
+            sample.stop(latency("call", outcome));
+        }
+    }
+
+    public Flux<ChatResponse> stream(Supplier<Flux<ChatResponse>> stream) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            long start = System.nanoTime();
+            AtomicBoolean first = new AtomicBoolean(true);
+            // usage comes with the last chunk, earlier chunks report none or running totals
+            AtomicReference<Usage> usage = new AtomicReference<>();
+            AtomicBoolean finished = new AtomicBoolean();
+            Consumer<String> finish = outcome -> {
+                if (finished.compareAndSet(false, true)) {
+                    sample.stop(latency("stream", outcome));
+                    recordUsage("stream", usage.get());
+                }
+            };
+            return stream.get()
+                    .doOnNext(response -> {
+                        if (first.compareAndSet(true, false)) {
+                            firstToken().record(Duration.ofNanos(System.nanoTime() - start));
+                        }
+                        Usage chunkUsage = response.getMetadata().getUsage();
+                        if (chunkUsage != null && chunkUsage.getTotalTokens() != null && chunkUsage.getTotalTokens() > 0) {
+                            usage.set(chunkUsage);
+                        }
+                    })
+                    // recorded before the terminal signal reaches the subscriber, which doFinally would not be
+                    .doOnComplete(() -> finish.accept("success"))
+                    .doOnError(error -> finish.accept("error"))
+                    .doOnCancel(() -> finish.accept("cancelled"));
+        });
+    }
+
+    /**
+     * The text of a response, empty when the model sent none, the same way {@code ChatClient} reads it.
+     */
+    public static String text(ChatResponse response) {
+        if (response == null || response.getResult() == null || response.getResult().getOutput() == null
+                || response.getResult().getOutput().getText() == null) {
+            return "";
+        }
+        return response.getResult().getOutput().getText();
+    }
+
+    private void recordUsage(String mode, Usage usage) {
+        if (usage == null) {
+            return;
+        }
+        if (usage.getPromptTokens() != null) {
+            tokens(mode, "prompt").record(usage.getPromptTokens());
+        }
+        if (usage.getCompletionTokens() != null) {
+            tokens(mode, "completion").record(usage.getCompletionTokens());
+        }
+    }
+
+    private Timer latency(String mode, String outcome) {
+        return Timer.builder("chat.model.latency")
+                .description("Time spent in the model for one turn, tool calls included")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(MAX_EXPECTED_LATENCY)
+                .register(meterRegistry);
+    }
+
+    private Timer firstToken() {
+        return Timer.builder("chat.model.first-token")
+                .description("Time until the first streamed chunk of a turn")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(MAX_EXPECTED_LATENCY)
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary tokens(String mode, String type) {
+        return DistributionSummary.builder("chat.model.tokens")
+                .description("Tokens used by one turn")
+                .baseUnit("tokens")
+                .tag("mode", mode)
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(MAX_EXPECTED_TOKENS)
+                .register(meterRegistry);
+    }
+}
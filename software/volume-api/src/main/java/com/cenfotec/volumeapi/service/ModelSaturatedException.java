@@ -0,0 +1,29 @@
+package com.cenfotec.volumeapi.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Model call refused by {@link ModelAdmission}, answered with its status and a {@code Retry-After} header.
+ */
+public class ModelSaturatedException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public ModelSaturatedException(HttpStatus status, String reason, long retryAfterSeconds) {
+        super(status, reason);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -0,0 +1,111 @@
+package com.cenfotec.volumeapi.service;
+
+import com.cenfotec.volumeapi.config.RoutingChatModel;
+import com.cenfotec.volumeapi.config.SummarizingChatMemory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the counters behind the {@code /chat/*} stats endpoints as meters, so they reach Prometheus next to
+ * {@link ModelMetrics}.
+ * <p>
+ * The components keep counting in their own {@code AtomicLong}s and the meters read them through
+ * {@code getStats()}, so nothing is counted twice. The endpoints stay for a quick look without a metrics
+ * backend. Averages and percentiles are left out: Prometheus derives them from the counters and the
+ * {@code chat.model.latency} histograms.
+ */
+@Component
+public class StatsMetrics implements MeterBinder {
+
+    private final SummarizingChatMemory chatMemory;
+    private final FastPathService fastPathService;
+    private final AnswerCache answerCache;
+    private final ConversationExecutor conversationExecutor;
+    private final ModelAdmission modelAdmission;
+    private final RoutingChatModel routingChatModel;
+    private final VoiceCommandService voiceCommandService;
+
+    public StatsMetrics(SummarizingChatMemory chatMemory, FastPathService fastPathService, AnswerCache answerCache,
+                        ConversationExecutor conversationExecutor, ModelAdmission modelAdmission,
+                        RoutingChatModel routingChatModel, VoiceCommandService voiceCommandService) {
+        this.chatMemory = chatMemory;
+        this.fastPathService = fastPathService;
+        this.answerCache = answerCache;
+        this.conversationExecutor = conversationExecutor;
+        this.modelAdmission = modelAdmission;
+        this.routingChatModel = routingChatModel;
+        this.voiceCommandService = voiceCommandService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        gauge(registry, "chat.memory.conversations", "Conversations held in memory", chatMemory::getStats, stats -> stats.conversations());
+        gauge(registry, "chat.memory.messages", "Messages held in memory", chatMemory::getStats, stats -> stats.messages());
+        gauge(registry, "chat.memory.bytes", "Estimated size of the held messages", chatMemory::getStats, stats -> stats.estimatedBytes());
+        counter(registry, "chat.memory.evictions", "Conversations evicted", chatMemory::getStats, stats -> stats.lruEvictions(), "cause", "lru");
+        counter(registry, "chat.memory.evictions", "Conversations evicted", chatMemory::getStats, stats -> stats.heapEvictions(), "cause", "heap");
+        counter(registry, "chat.memory.evictions", "Conversations evicted", chatMemory::getStats, stats -> stats.expiredEvictions(), "cause", "expired");
+        counter(registry, "chat.memory.trimmed-messages", "Messages trimmed from long conversations", chatMemory::getStats, stats -> stats.trimmedMessages());
+        counter(registry, "chat.memory.hash-collisions", "Conversation ids sharing a file index slot", chatMemory::getStats, stats -> stats.hashCollisions());
+
+        counter(registry, "chat.memory.summaries", "Summaries written", chatMemory::getSummaryStats, stats -> stats.summaries());
+        counter(registry, "chat.memory.summary.folded-messages", "Messages folded into summaries", chatMemory::getSummaryStats, stats -> stats.foldedMessages());
+        counter(registry, "chat.memory.summary.failures", "Summaries that failed", chatMemory::getSummaryStats, stats -> stats.failures());
+
+        counter(registry, "chat.fast-path.turns", "Turns seen by the fast path", fastPathService::getStats, stats -> stats.handled(), "outcome", "handled");
+        counter(registry, "chat.fast-path.turns", "Turns seen by the fast path", fastPathService::getStats, stats -> stats.fallbacks(), "outcome", "fallback");
+        counter(registry, "chat.fast-path.tool-errors", "Fast path tool calls that failed or found the mixer offline", fastPathService::getStats, stats -> stats.toolErrors());
+
+        gauge(registry, "chat.answer-cache.size", "Cached answers", answerCache::getStats, stats -> stats.size());
+        counter(registry, "chat.answer-cache.requests", "Answer cache lookups", answerCache::getStats, stats -> stats.hits(), "result", "hit");
+        counter(registry, "chat.answer-cache.requests", "Answer cache lookups", answerCache::getStats, stats -> stats.misses(), "result", "miss");
+        counter(registry, "chat.answer-cache.stores", "Answers stored", answerCache::getStats, stats -> stats.stores());
+        counter(registry, "chat.answer-cache.invalidations", "Answer cache clears after a mixer write", answerCache::getStats, stats -> stats.invalidations());
+
+        gauge(registry, "chat.conversations.active", "Conversations with a running turn", conversationExecutor::getStats, stats -> stats.activeConversations());
+        gauge(registry, "chat.conversations.queued", "Turns waiting for their conversation", conversationExecutor::getStats, stats -> stats.queuedTurns());
+        counter(registry, "chat.conversations.turns", "Turns run", conversationExecutor::getStats, stats -> stats.turns());
+        counter(registry, "chat.conversations.rejected", "Turns rejected because their conversation queue was full", conversationExecutor::getStats, stats -> stats.rejected());
+
+        gauge(registry, "chat.admission.in-flight", "Model calls running", modelAdmission::getStats, stats -> stats.inFlight());
+        gauge(registry, "chat.admission.queued", "Model calls waiting for a permit", modelAdmission::getStats, stats -> stats.queued());
+        counter(registry, "chat.admission.admitted", "Model calls admitted", modelAdmission::getStats, stats -> stats.admitted());
+        counter(registry, "chat.admission.rejected", "Model calls rejected", modelAdmission::getStats, stats -> stats.rejectedQueueFull(), "reason", "queue-full");
+        counter(registry, "chat.admission.rejected", "Model calls rejected", modelAdmission::getStats, stats -> stats.rejectedDeadline(), "reason", "deadline");
+
+        counter(registry, "chat.routing.requests", "Model calls by route", routingChatModel::getStats, stats -> stats.localRouted(), "route", "local");
+        counter(registry, "chat.routing.requests", "Model calls by route", routingChatModel::getStats, stats -> stats.remoteRouted(), "route", "remote");
+        counter(registry, "chat.routing.hedges", "Hedged calls sent", routingChatModel::getStats, stats -> stats.hedged());
+        counter(registry, "chat.routing.hedge-wins", "Hedged calls that answered first", routingChatModel::getStats, stats -> stats.hedgeWins());
+        counter(registry, "chat.routing.hedges-skipped", "Hedges skipped because no model permit was free", routingChatModel::getStats, stats -> stats.hedgesSkipped());
+
+        gauge(registry, "chat.audio.sessions", "Open voice sessions", voiceCommandService::getStats, stats -> stats.activeSessions());
+        gauge(registry, "chat.audio.buffers", "Audio buffers", voiceCommandService::getStats, stats -> stats.buffersAllocated(), "state", "allocated");
+        gauge(registry, "chat.audio.buffers", "Audio buffers", voiceCommandService::getStats, stats -> stats.buffersInUse(), "state", "in-use");
+        counter(registry, "chat.audio.utterances", "Utterances transcribed", voiceCommandService::getStats, stats -> stats.utterances());
+        counter(registry, "chat.audio.empty-transcripts", "Utterances with an empty transcript", voiceCommandService::getStats, stats -> stats.emptyTranscripts());
+        counter(registry, "chat.audio.dropped-utterances", "Utterances lost because no audio buffer was free", voiceCommandService::getStats, stats -> stats.droppedUtterances());
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, String description, Supplier<T> stats,
+                                    ToDoubleFunction<T> value, String... tags) {
+        FunctionCounter.builder(name, stats, current -> value.applyAsDouble(current.get()))
+                .description(description)
+                .tags(tags)
+                .register(registry);
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String name, String description, Supplier<T> stats,
+                                  ToDoubleFunction<T> value, String... tags) {
+        Gauge.builder(name, stats, current -> value.applyAsDouble(current.get()))
+                .description(description)
+                .tags(tags)
+                .register(registry);
+    }
+}
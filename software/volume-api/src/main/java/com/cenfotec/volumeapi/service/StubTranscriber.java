@@ -0,0 +1,29 @@
+package com.cenfotec.volumeapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Local stand-in until a speech model is wired in: answers every utterance with a fixed text.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "chat.audio.transcriber", havingValue = "stub", matchIfMissing = true)
+public class StubTranscriber implements Transcriber {
+
+    private final String text;
+
+    public StubTranscriber(@Value("${chat.audio.stub.text:}") String text) {
+        this.text = text;
+    }
+
+    @Override
+    public String transcribe(ByteBuffer pcm, int sampleRate) {
+        log.debug("Stub transcription of {} ms of audio", pcm.remaining() / 2 * 1000L / sampleRate);
+        return text;
+    }
+}
@@ -0,0 +1,15 @@
+package com.cenfotec.volumeapi.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Speech to text for one utterance.
+ */
+public interface Transcriber {
+
+    /**
+     * Text said in {@code pcm}, 16-bit little endian mono samples at {@code sampleRate}; blank when nothing was understood.
+     * The buffer is reused for the next utterance once this returns, so it must not be kept.
+     */
+    String transcribe(ByteBuffer pcm, int sampleRate);
+}
@@ -0,0 +1,174 @@
+package com.cenfotec.volumeapi.service;
+
+import com.cenfotec.volumeapi.models.AudioStats;
+import com.cenfotec.volumeapi.models.ChatRequest;
+import com.cenfotec.volumeapi.models.ChatStreamEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Turns live audio into chat turns: each utterance found by the {@link AudioSegmenter} is transcribed and
+ * sent to {@link VolumeService} as soon as it ends.
+ * <p>
+ * The utterances of one session are transcribed one at a time in order, on virtual threads, so the recording
+ * thread never waits for the {@link Transcriber}.
+ */
+@Slf4j
+@Service
+public class VoiceCommandService {
+
+    private final VolumeService volumeService;
+    private final Transcriber transcriber;
+    private final AudioBufferPool bufferPool;
+    private final double threshold;
+    private final int startFrames;
+    private final Duration endSilence;
+    private final Duration minSpeech;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("transcribe-", 0).factory());
+
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final AtomicLong utterances = new AtomicLong();
+    private final AtomicLong emptyTranscripts = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong transcribeNanos = new AtomicLong();
+
+    public VoiceCommandService(VolumeService volumeService, Transcriber transcriber, AudioBufferPool bufferPool,
+                               @Value("${chat.audio.vad.threshold:500}") double threshold,
+                               @Value("${chat.audio.vad.start-frames:3}") int startFrames,
+                               @Value("${chat.audio.vad.end-silence:600ms}") Duration endSilence,
+                               @Value("${chat.audio.vad.min-speech:200ms}") Duration minSpeech) {
+        this.volumeService = volumeService;
+        this.transcriber = transcriber;
+        this.bufferPool = bufferPool;
+        this.threshold = threshold;
+        this.startFrames = startFrames;
+        this.endSilence = endSilence;
+        this.minSpeech = minSpeech;
+    }
+
+    /**
+     * Starts a stream for {@code chatId}; transcripts and answers go to {@code events}.
+     */
+    public VoiceSession open(UUID chatId, int sampleRate, Consumer<ChatStreamEvent> events) {
+        activeSessions.incrementAndGet();
+        return new VoiceSession(chatId, sampleRate, events);
+    }
+
+    public AudioStats getStats() {
+        long count = utterances.get();
+        return new AudioStats(activeSessions.get(), count, emptyTranscripts.get(), dropped.get(),
+                bufferPool.allocated(), bufferPool.inUse(), count == 0 ? 0 : transcribeNanos.get() / 1_000_000.0 / count);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.close();
+    }
+
+    public final class VoiceSession {
+
+        private final UUID chatId;
+        private final Consumer<ChatStreamEvent> events;
+        private final AudioSegmenter segmenter;
+        private final Disposable.Composite answers = Disposables.composite();
+        private CompletableFuture<Void> transcriptions = CompletableFuture.completedFuture(null);
+        private boolean closed;
+
+        private VoiceSession(UUID chatId, int sampleRate, Consumer<ChatStreamEvent> events) {
+            this.chatId = chatId;
+            this.events = events;
+            this.segmenter = new AudioSegmenter(bufferPool, sampleRate, threshold, startFrames, endSilence, minSpeech, this::onUtterance);
+        }
+
+        public UUID chatId() {
+            return chatId;
+        }
+
+        /**
+         * Next chunk of audio as it is recorded.
+         */
+        public synchronized void accept(ByteBuffer chunk) {
+            if (!closed) {
+                long before = segmenter.dropped();
+                segmenter.accept(chunk);
+                dropped.addAndGet(segmenter.dropped() - before);
+            }
+        }
+
+        /**
+         * End of the recording: a pending utterance is still transcribed and answered.
+         */
+        public synchronized void finish() {
+            if (!closed) {
+                segmenter.close();
+            }
+        }
+
+        /**
+         * The client is gone: the utterance in progress is discarded and pending answers are dropped.
+         */
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                // a half sentence is not a command, only finish() delivers it
+                segmenter.discard();
+                transcriptions.whenComplete((done, error) -> answers.dispose());
+                activeSessions.decrementAndGet();
+            }
+        }
+
+        private void onUtterance(ByteBuffer pcm) {
+            utterances.incrementAndGet();
+            int sampleRate = segmenter.sampleRate();
+            transcriptions = transcriptions.thenRunAsync(() -> answer(pcm, sampleRate), executor);
+        }
+
+        private void answer(ByteBuffer pcm, int sampleRate) {
+            String text;
+            long start = System.nanoTime();
+            try {
+                text = transcriber.transcribe(pcm.asReadOnlyBuffer().order(pcm.order()), sampleRate);
+            } catch (RuntimeException e) {
+                log.warn("Transcription failed for chat {}: {}", chatId, e.getMessage());
+                text = null;
+            } finally {
+                transcribeNanos.addAndGet(System.nanoTime() - start);
+                bufferPool.release(pcm);
+            }
+            if (text == null || text.isBlank()) {
+                emptyTranscripts.incrementAndGet();
+                return;
+            }
+            events.accept(ChatStreamEvent.transcript(text));
+            if (answers.isDisposed()) {
+                return;
+            }
+            // each answer leaves the composite when it ends, a long session answers many utterances
+            AtomicReference<Disposable> turn = new AtomicReference<>();
+            Disposable answer = volumeService.chatStream(new ChatRequest(chatId, text))
+                    .doFinally(signal -> Optional.ofNullable(turn.get()).ifPresent(answers::remove))
+                    .subscribe(events, error -> events.accept(ChatStreamEvent.error(error.getMessage())));
+            turn.set(answer);
+            answers.add(answer);
+            if (answer.isDisposed()) {
+                answers.remove(answer);
+            }
+        }
+    }
+}
@@ -1,30 +1,153 @@
 package com.cenfotec.volumeapi.service;
 
+import com.cenfotec.volumeapi.config.McpToolRegistry;
+import com.cenfotec.volumeapi.config.ToolProgressCallback;
 import com.cenfotec.volumeapi.models.ChatRequest;
 import com.cenfotec.volumeapi.models.ChatResponse;
+import com.cenfotec.volumeapi.models.ChatStreamEvent;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
+@Slf4j
 @Service
 public class VolumeService {
 
     private final ChatClient chatClient;
+    private final FastPathService fastPathService;
+    private final AnswerCache answerCache;
+    private final ChatMemory chatMemory;
+    private final McpToolRegistry toolRegistry;
+    private final ConversationExecutor conversationExecutor;
+    private final ModelAdmission modelAdmission;
+    private final ModelMetrics modelMetrics;
 
-    public VolumeService(ChatClient chatClient) {
+    public VolumeService(ChatClient chatClient, FastPathService fastPathService, AnswerCache answerCache, ChatMemory chatMemory,
+                         McpToolRegistry toolRegistry, ConversationExecutor conversationExecutor, ModelAdmission modelAdmission,
+                         ModelMetrics modelMetrics) {
         this.chatClient = chatClient;
+        this.modelAdmission = modelAdmission;
+        this.modelMetrics = modelMetrics;
+        this.toolRegistry = toolRegistry;
+        this.conversationExecutor = conversationExecutor;
+        this.fastPathService = fastPathService;
+        this.answerCache = answerCache;
+        this.chatMemory = chatMemory;
     }
 
     public ChatResponse chat(ChatRequest chatRequest){
         UUID chatId = Optional.ofNullable(chatRequest.chatId()).orElse(UUID.randomUUID());
-        String answer = chatClient
+        return conversationExecutor.call(chatId.toString(), () -> answer(chatId, chatRequest));
+    }
+
+    /**
+     * Streams the answer token by token, with tool call progress in between, and ends with the chatId.
+     */
+    public Flux<ChatStreamEvent> chatStream(ChatRequest chatRequest){
+        UUID chatId = Optional.ofNullable(chatRequest.chatId()).orElse(UUID.randomUUID());
+        return conversationExecutor.stream(chatId.toString(), () -> streamAnswer(chatId, chatRequest));
+    }
+
+    private ChatResponse answer(UUID chatId, ChatRequest chatRequest){
+        Optional<String> command = fastPathService.tryHandle(chatId, chatRequest.question());
+        if (command.isPresent()) {
+            answerCache.onWrite();
+            return new ChatResponse(chatId, command.get());
+        }
+        Optional<String> stateVersion = answerCache.currentVersion();
+        Optional<String> cached = cachedAnswer(chatId, chatRequest.question(), stateVersion);
+        if (cached.isPresent()) {
+            return new ChatResponse(chatId, cached.get());
+        }
+
+        List<String> toolsUsed = new CopyOnWriteArrayList<>();
+        String answer = ModelMetrics.text(modelAdmission.call(() -> modelMetrics.call(() -> chatClient
                 .prompt()
                 .user(chatRequest.question())
                 .advisors(advisorSpec -> advisorSpec.param("chat_memory_conversation_id", chatId))
+                .toolCallbacks(toolRegistry.snapshot())
+                .toolContext(Map.of(ToolProgressCallback.LISTENER, toolRecorder(toolsUsed)))
                 .call()
-                .content();
+                .chatResponse())));
+        stateVersion.ifPresent(version -> answerCache.put(chatRequest.question(), version, answer, toolsUsed));
         return new ChatResponse(chatId, answer);
     }
-}
\ No newline at end of file
+
+    private Flux<ChatStreamEvent> streamAnswer(UUID chatId, ChatRequest chatRequest){
+        Optional<String> command = fastPathService.tryHandle(chatId, chatRequest.question());
+        if (command.isPresent()) {
+            answerCache.onWrite();
+            return Flux.just(ChatStreamEvent.token(command.get()), ChatStreamEvent.done(chatId));
+        }
+        Optional<String> stateVersion = answerCache.currentVersion();
+        Optional<String> cached = cachedAnswer(chatId, chatRequest.question(), stateVersion);
+        if (cached.isPresent()) {
+            return Flux.just(ChatStreamEvent.token(cached.get()), ChatStreamEvent.done(chatId));
+        }
+
+        Sinks.Many<ChatStreamEvent> toolEvents = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> toolsUsed = new CopyOnWriteArrayList<>();
+        Consumer<ChatStreamEvent> toolRecorder = toolRecorder(toolsUsed);
+        Consumer<ChatStreamEvent> toolListener = event -> {
+            toolRecorder.accept(event);
+            toolEvents.emitNext(event, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+        };
+
+        long start = System.nanoTime();
+        AtomicBoolean first = new AtomicBoolean(true);
+        StringBuilder answer = new StringBuilder();
+        Flux<ChatStreamEvent> tokens = modelAdmission.stream(() -> modelMetrics.stream(() -> chatClient
+                        .prompt()
+                        .user(chatRequest.question())
+                        .advisors(advisorSpec -> advisorSpec.param("chat_memory_conversation_id", chatId))
+                        .toolCallbacks(toolRegistry.snapshot())
+                        .toolContext(Map.of(ToolProgressCallback.LISTENER, toolListener))
+                        .stream()
+                        .chatResponse()))
+                .map(ModelMetrics::text)
+                .filter(token -> !token.isEmpty())
+                .doOnNext(token -> {
+                    if (first.compareAndSet(true, false)) {
+                        log.debug("First token for chat {} after {} ms", chatId, Duration.ofNanos(System.nanoTime() - start).toMillis());
+                    }
+                    answer.append(token);
+                })
+                .doOnComplete(() -> stateVersion.ifPresent(version ->
+                        answerCache.put(chatRequest.question(), version, answer.toString(), toolsUsed)))
+                .map(ChatStreamEvent::token)
+                .doFinally(signal -> toolEvents.tryEmitComplete());
+
+        return Flux.merge(toolEvents.asFlux(), tokens)
+                .concatWith(Mono.just(ChatStreamEvent.done(chatId)));
+    }
+
+    private Optional<String> cachedAnswer(UUID chatId, String question, Optional<String> stateVersion) {
+        Optional<String> cached = stateVersion.flatMap(version -> answerCache.get(question, version));
+        // the LLM is skipped, keep the turn in the conversation anyway
+        cached.ifPresent(answer -> chatMemory.add(chatId.toString(), List.of(new UserMessage(question), new AssistantMessage(answer))));
+        return cached;
+    }
+
+    private static Consumer<ChatStreamEvent> toolRecorder(List<String> toolsUsed) {
+        return event -> {
+            if ("tool_call".equals(event.type())) {
+                toolsUsed.add(event.content());
+            }
+        };
+    }
+}
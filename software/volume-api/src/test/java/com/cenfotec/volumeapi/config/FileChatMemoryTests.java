@@ -0,0 +1,169 @@
+package com.cenfotec.volumeapi.config;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileChatMemoryTests {
+
+    private static final Duration NEVER = Duration.ofDays(1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void conversationsSurviveARestart() throws IOException {
+        try (FileChatMemory memory = open(Duration.ofHours(1))) {
+            memory.add("a", turn("sube la guitarra", "listo"));
+            memory.add("a", turn("baja el bajo", "hecho"));
+            memory.add("b", turn("silencia la voz", "silenciada"));
+            memory.clear("b");
+        }
+
+        try (FileChatMemory memory = open(Duration.ofHours(1))) {
+            assertThat(memory.get("a")).extracting(Message::getText)
+                    .containsExactly("sube la guitarra", "listo", "baja el bajo", "hecho");
+            assertThat(memory.get("b")).isEmpty();
+        }
+    }
+
+    @Test
+    void rebuildsTheIndexFromTheLogWhenItIsLost() throws IOException {
+        try (FileChatMemory memory = open(Duration.ofHours(1))) {
+            memory.add("a", turn("sube la guitarra", "listo"));
+        }
+        Files.delete(directory.resolve("index.bin"));
+
+        try (FileChatMemory memory = open(Duration.ofHours(1))) {
+            assertThat(memory.get("a")).hasSize(2);
+        }
+    }
+
+    @Test
+    void compactionDropsSupersededSnapshots() throws IOException {
+        try (FileChatMemory memory = new FileChatMemory(directory, 4, 10_000, Duration.ofHours(1), 4 * 1024, 1024, NEVER, NEVER)) {
+            for (int i = 0; i < 200; i++) {
+                memory.add("a", turn("pregunta " + i, "respuesta " + i));
+            }
+            long before = logBytes();
+            memory.compact();
+
+            assertThat(logBytes()).isLessThan(before / 4);
+            assertThat(memory.get("a")).extracting(Message::getText)
+                    .containsExactly("pregunta 198", "respuesta 198", "pregunta 199", "respuesta 199");
+        }
+    }
+
+    @Test
+    void turnsWrittenDuringACompactionAreKept() throws Exception {
+        try (FileChatMemory memory = new FileChatMemory(directory, 4, 10_000, Duration.ofHours(1), 4 * 1024, 1024, NEVER, NEVER)) {
+            for (int i = 0; i < 200; i++) {
+                memory.add("a", turn("pregunta " + i, "respuesta " + i));
+                memory.add("b", turn("pregunta " + i, "respuesta " + i));
+            }
+            Thread compaction = Thread.ofPlatform().start(memory::compact);
+            for (int i = 200; i < 400; i++) {
+                memory.add("a", turn("pregunta " + i, "respuesta " + i));
+            }
+            compaction.join();
+            memory.compact();
+
+            assertThat(memory.get("a")).extracting(Message::getText)
+                    .containsExactly("pregunta 398", "respuesta 398", "pregunta 399", "respuesta 399");
+            assertThat(memory.get("b")).extracting(Message::getText)
+                    .containsExactly("pregunta 198", "respuesta 198", "pregunta 199", "respuesta 199");
+        }
+    }
+
+    @Test
+    void rejectsSegmentsTooLargeForTheIndexOffsets() {
+        assertThatThrownBy(() -> new FileChatMemory(directory, 20, 10_000, Duration.ofHours(1), 3L * 1024 * 1024 * 1024, 1024, NEVER, NEVER))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("chat.memory.file.segment-size");
+    }
+
+    @Test
+    void compactionKeepsASegmentWithADamagedRecord() throws IOException {
+        try (FileChatMemory memory = new FileChatMemory(directory, 4, 10_000, Duration.ofHours(1), 4 * 1024, 1024, NEVER, NEVER)) {
+            memory.add("a", turn("pregunta 0", "respuesta 0"));
+            memory.add("b", turn("silencia la voz", "silenciada"));
+            for (int i = 1; i < 200; i++) {
+                memory.add("a", turn("pregunta " + i, "respuesta " + i));
+            }
+            // the first, superseded, snapshot of "a" no longer matches its checksum
+            try (FileChannel segment = FileChannel.open(directory.resolve("00000000.log"), StandardOpenOption.WRITE)) {
+                segment.write(ByteBuffer.wrap(new byte[] {'X'}), 20);
+            }
+
+            memory.compact();
+
+            assertThat(memory.get("b")).extracting(Message::getText).containsExactly("silencia la voz", "silenciada");
+            assertThat(directory.resolve("00000000.log")).exists();
+        }
+    }
+
+    @Test
+    void everyConversationIsReadableAfterReopening() throws IOException {
+        int conversations = 10_000;
+        try (FileChatMemory memory = open(Duration.ofHours(1))) {
+            for (int i = 0; i < conversations; i++) {
+                memory.add("chat-" + i, turn("sube la guitarra a " + i, "listo"));
+            }
+        }
+
+        try (FileChatMemory memory = open(Duration.ofHours(1))) {
+            assertThat(memory.getStats().conversations()).isEqualTo(conversations);
+            for (int i = 0; i < conversations; i++) {
+                assertThat(memory.get("chat-" + i)).extracting(Message::getText).containsExactly("sube la guitarra a " + i, "listo");
+            }
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void recovers100kConversationsWithoutReplayingTheLog() throws IOException {
+        int conversations = 100_000;
+        try (FileChatMemory memory = open(Duration.ofHours(1))) {
+            for (int i = 0; i < conversations; i++) {
+                memory.add("chat-" + i, turn("sube la guitarra a " + i, "listo"));
+            }
+        }
+
+        long start = System.nanoTime();
+        try (FileChatMemory memory = open(Duration.ofHours(1))) {
+            long recoveryMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            assertThat(memory.getStats().conversations()).isEqualTo(conversations);
+            assertThat(recoveryMs).isLessThan(3_000);
+        }
+    }
+
+    private FileChatMemory open(Duration idleTtl) throws IOException {
+        return new FileChatMemory(directory, 20, 10_000, idleTtl, 64 * 1024 * 1024, 262_144, NEVER, NEVER);
+    }
+
+    private long logBytes() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.toString().endsWith(".log")).mapToLong(f -> f.toFile().length()).sum();
+        }
+    }
+
+    private static List<Message> turn(String question, String answer) {
+        return List.of(new UserMessage(question), new AssistantMessage(answer));
+    }
+}
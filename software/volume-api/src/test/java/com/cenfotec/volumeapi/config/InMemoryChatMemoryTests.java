@@ -0,0 +1,90 @@
+package com.cenfotec.volumeapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryChatMemoryTests {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void keepsTheNewestMessagesStartingWithAUserTurn() {
+        InMemoryChatMemory memory = new InMemoryChatMemory(3, 10_000, 10, Long.MAX_VALUE, Duration.ofHours(1), clock);
+
+        memory.add("a", turn("sube la guitarra", "listo"));
+        memory.add("a", turn("baja el bajo", "hecho"));
+
+        List<Message> messages = memory.get("a");
+        assertThat(messages).extracting(Message::getText).containsExactly("baja el bajo", "hecho");
+        assertThat(memory.getStats().trimmedMessages()).isEqualTo(2);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedConversation() {
+        InMemoryChatMemory memory = new InMemoryChatMemory(20, 10_000, 2, Long.MAX_VALUE, Duration.ofHours(1), clock);
+
+        memory.add("a", turn("uno", "1"));
+        memory.add("b", turn("dos", "2"));
+        memory.get("a");
+        memory.add("c", turn("tres", "3"));
+
+        assertThat(memory.get("a")).isNotEmpty();
+        assertThat(memory.get("b")).isEmpty();
+        assertThat(memory.getStats().lruEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    void dropsIdleConversationsAndStaysUnderTheSizeCap() {
+        InMemoryChatMemory memory = new InMemoryChatMemory(20, 10_000, 100, 1_000, Duration.ofMinutes(30), clock);
+
+        memory.add("idle", turn("hola", "hola"));
+        clock.advance(Duration.ofMinutes(31));
+        assertThat(memory.get("idle")).isEmpty();
+        assertThat(memory.getStats().expiredEvictions()).isEqualTo(1);
+
+        for (int i = 0; i < 10; i++) {
+            memory.add("chat-" + i, turn("mensaje " + i, "respuesta " + i));
+        }
+        assertThat(memory.getStats().estimatedBytes()).isLessThanOrEqualTo(1_000);
+        assertThat(memory.getStats().heapEvictions()).isPositive();
+        assertThat(memory.get("chat-9")).hasSize(2);
+    }
+
+    private static List<Message> turn(String question, String answer) {
+        return List.of(new UserMessage(question), new AssistantMessage(answer));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.cenfotec.volumeapi.config;
+
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class McpToolRegistryTests {
+
+    private static final String SCHEMA = "{\"type\":\"object\",\"properties\":{}}";
+
+    private final McpSyncClient client = mock(McpSyncClient.class);
+    private final McpToolRegistry registry = new McpToolRegistry(List.of(client));
+
+    @Test
+    void listsOnceAndRebuildsOnlyChangedToolsOnNotification() {
+        when(client.getClientInfo()).thenReturn(new McpSchema.Implementation("spring-ai-mcp-client - volume-tool-server", "1.0.0"));
+        when(client.listTools()).thenReturn(new McpSchema.ListToolsResult(List.of(
+                tool("setVolume", "Sets the volume"), tool("setMute", "Mutes a channel"), tool("getSpeakerStatus", "Status")), null));
+
+        List<ToolCallback> first = registry.snapshot();
+        assertThat(registry.snapshot()).isSameAs(first);
+        verify(client, times(1)).listTools();
+
+        registry.onToolsChanged("volume-tool-server", List.of(
+                tool("setVolume", "Sets the volume"), tool("setMute", "Mutes a channel. Available instruments: voz."),
+                tool("applyMix", "Applies a mix")));
+
+        List<ToolCallback> second = registry.snapshot();
+        assertThat(second).hasSize(3);
+        assertThat(second.get(0)).isSameAs(first.get(0));
+        assertThat(second.get(1)).isNotSameAs(first.get(1));
+        assertThat(registry.find("getSpeakerStatus")).isEmpty();
+        assertThat(registry.find("applyMix")).isPresent();
+        assertThat(first).hasSize(3);
+        verify(client, times(1)).listTools();
+    }
+
+    private static McpSchema.Tool tool(String name, String description) {
+        return new McpSchema.Tool(name, description, SCHEMA);
+    }
+}
@@ -0,0 +1,195 @@
+package com.cenfotec.volumeapi.config;
+
+import org.junit.jupiter.api.Test;
+import com.cenfotec.volumeapi.service.ModelAdmission;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoutingChatModelTests {
+
+    private final StubModel ollama = new StubModel("ollama", 10);
+    private final StubModel gemini = new StubModel("gemini", 20);
+    private final ModelAdmission admission = new ModelAdmission(8, 1, 8, 8, Duration.ofSeconds(5), 2.0);
+    private final RoutingChatModel model = new RoutingChatModel(ollama, gemini, 60, true, 20,
+            ToolCallingManager.builder().build(), admission);
+    private final AtomicInteger mixerWrites = new AtomicInteger();
+    private final ToolCallback setVolume = new ToolCallback() {
+        @Override
+        public ToolDefinition getToolDefinition() {
+            return ToolDefinition.builder().name("setVolume").description("setVolume").inputSchema("{}").build();
+        }
+
+        @Override
+        public String call(String toolInput) {
+            mixerWrites.incrementAndGet();
+            return "volume set";
+        }
+    };
+
+    @Test
+    void sendsShortSingleCommandsToTheLocalModel() {
+        assertThat(model.call(new Prompt("sube la voz a 80")).getResult().getOutput().getText()).isEqualTo("ollama");
+        assertThat(model.call(new Prompt("sube la voz a 80 y baja la guitarra")).getResult().getOutput().getText()).isEqualTo("gemini");
+        assertThat(model.call(new Prompt("¿Qué canal está más fuerte comparado con lo que había en la primera canción del set?"))
+                .getResult().getOutput().getText()).isEqualTo("gemini");
+
+        assertThat(model.getStats().localRouted()).isEqualTo(1);
+        assertThat(model.getStats().remoteRouted()).isEqualTo(2);
+    }
+
+    @Test
+    void hedgesToTheOtherModelWhenThePrimaryIsSlowerThanItsP95() {
+        warmUp();
+        gemini.millis = 1000;
+
+        long start = System.nanoTime();
+        String answer = model.call(new Prompt("sube la voz y baja la guitarra")).getResult().getOutput().getText();
+
+        assertThat(answer).isEqualTo("ollama");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+        assertThat(model.getStats().hedged()).isEqualTo(1);
+        assertThat(model.getStats().hedgeWins()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsThePrimaryAnswerWhenItIsOnTime() {
+        warmUp();
+
+        assertThat(model.call(new Prompt("sube la voz y baja la guitarra")).getResult().getOutput().getText()).isEqualTo("gemini");
+        assertThat(model.getStats().hedgeWins()).isZero();
+    }
+
+    @Test
+    void hedgesStreamsOnTheFirstToken() {
+        for (int i = 0; i < 20; i++) {
+            model.stream(new Prompt("sube la voz y baja la guitarra")).blockLast();
+        }
+        gemini.millis = 1000;
+
+        List<String> tokens = model.stream(new Prompt("sube la voz y baja la guitarra"))
+                .map(response -> response.getResult().getOutput().getText())
+                .collectList()
+                .block();
+
+        assertThat(tokens).containsExactly("ollama");
+        assertThat(model.getStats().hedgeWins()).isEqualTo(1);
+    }
+
+    @Test
+    void runsOnlyTheToolCallsOfTheWinningModel() {
+        warmUp();
+        gemini.millis = 1000;
+
+        String answer = model.call(withTools("sube la voz y baja la guitarra")).getResult().getOutput().getText();
+
+        assertThat(answer).isEqualTo("ollama");
+        assertThat(model.getStats().hedgeWins()).isEqualTo(1);
+        assertThat(mixerWrites).hasValue(1);
+    }
+
+    @Test
+    void runsOnlyTheToolCallsOfTheWinningStream() {
+        for (int i = 0; i < 20; i++) {
+            model.stream(new Prompt("sube la voz y baja la guitarra")).blockLast();
+        }
+        gemini.millis = 1000;
+
+        List<String> tokens = model.stream(withTools("sube la voz y baja la guitarra"))
+                .map(response -> response.getResult().getOutput().getText())
+                .collectList()
+                .block();
+
+        assertThat(tokens).containsExactly("ollama");
+        assertThat(mixerWrites).hasValue(1);
+    }
+
+    @Test
+    void skipsTheHedgeWhenAdmissionHasNoFreePermit() {
+        ModelAdmission full = new ModelAdmission(1, 1, 1, 8, Duration.ofSeconds(5), 2.0);
+        RoutingChatModel bounded = new RoutingChatModel(ollama, gemini, 60, true, 20, ToolCallingManager.builder().build(), full);
+        for (int i = 0; i < 20; i++) {
+            bounded.call(new Prompt("sube la voz y baja la guitarra"));
+        }
+        ModelAdmission.Permit running = full.tryAcquire().orElseThrow();
+        gemini.millis = 200;
+
+        String answer = bounded.call(withTools("sube la voz y baja la guitarra")).getResult().getOutput().getText();
+        running.release(false);
+
+        assertThat(answer).isEqualTo("gemini");
+        assertThat(bounded.getStats().hedged()).isZero();
+        assertThat(bounded.getStats().hedgesSkipped()).isEqualTo(1);
+        assertThat(mixerWrites).hasValue(1);
+    }
+
+    private void warmUp() {
+        for (int i = 0; i < 20; i++) {
+            model.call(new Prompt("sube la voz y baja la guitarra"));
+        }
+    }
+
+    private Prompt withTools(String text) {
+        return new Prompt(text, ToolCallingChatOptions.builder().toolCallbacks(setVolume).build());
+    }
+
+    /**
+     * Answers with its name. With tools it first asks for a setVolume call, and runs it itself when tool
+     * execution is left to the model, like the real models do.
+     */
+    private static final class StubModel implements ChatModel {
+        private final String name;
+        private volatile long millis;
+
+        StubModel(String name, long millis) {
+            this.name = name;
+            this.millis = millis;
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response(prompt);
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return Flux.defer(() -> Flux.just(response(prompt)).delayElements(Duration.ofMillis(millis)));
+        }
+
+        private ChatResponse response(Prompt prompt) {
+            List<Message> messages = prompt.getInstructions();
+            if (prompt.getOptions() instanceof ToolCallingChatOptions options && !options.getToolCallbacks().isEmpty()
+                    && !(messages.get(messages.size() - 1) instanceof ToolResponseMessage)) {
+                if (ToolCallingChatOptions.isInternalToolExecutionEnabled(options)) {
+                    options.getToolCallbacks().forEach(tool -> tool.call("{}"));
+                } else {
+                    AssistantMessage toolCall = new AssistantMessage("", Map.of(),
+                            List.of(new AssistantMessage.ToolCall(name + "-call", "function", "setVolume", "{}")));
+                    return new ChatResponse(List.of(new Generation(toolCall)));
+                }
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(name))));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.cenfotec.volumeapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SummarizingChatMemoryTests {
+
+    private final ChatModel summarizer = new ChatModel() {
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            return new ChatResponse(List.of(new Generation(new AssistantMessage("Voz en 80, guitarra muteada, prefiere cambios suaves."))));
+        }
+    };
+    private final InMemoryChatMemory store = new InMemoryChatMemory(100, 100_000, 100, 64L << 20, Duration.ofMinutes(30));
+    // summaries run inline so the test sees them right after the turn
+    private final SummarizingChatMemory memory = new SummarizingChatMemory(store, summarizer, true, 300, 4, 100, Runnable::run);
+
+    @Test
+    void keepsThePromptFlatOverALongSession() {
+        for (int turn = 0; turn < 40; turn++) {
+            memory.get("soundcheck");
+            memory.add("soundcheck", List.of(
+                    new UserMessage("Turno " + turn + ": sube la voz un poco y deja la guitarra como estaba antes del coro"),
+                    new AssistantMessage("Listo, subí la voz al " + (60 + turn) + " y la guitarra sigue igual que en el coro anterior.")));
+        }
+
+        List<Message> prompt = memory.get("soundcheck");
+        assertThat(prompt.get(0).getMessageType()).isEqualTo(MessageType.SYSTEM);
+        assertThat(prompt.get(0).getText()).contains("Voz en 80");
+        assertThat(prompt.get(1).getMessageType()).isEqualTo(MessageType.USER);
+        assertThat(prompt.get(prompt.size() - 1).getText()).contains("al 99");
+        assertThat(store.get("soundcheck").size()).isLessThanOrEqualTo(12);
+
+        var stats = memory.getSummaryStats();
+        assertThat(stats.summaries()).isGreaterThan(1);
+        assertThat(stats.averagePromptTokensAfter()).isLessThan(stats.averagePromptTokensBefore() / 2);
+    }
+
+    @Test
+    void shortConversationsAreLeftAlone() {
+        memory.add("short", List.of(new UserMessage("silencia la batería"), new AssistantMessage("Listo.")));
+
+        assertThat(memory.get("short")).extracting(Message::getMessageType).containsExactly(MessageType.USER, MessageType.ASSISTANT);
+        assertThat(memory.getSummaryStats().summaries()).isZero();
+    }
+
+    @Test
+    void aFileStoreKeepsTheSummaryAcrossARestart(@TempDir Path directory) throws IOException {
+        List<Message> before;
+        try (FileChatMemory file = new FileChatMemory(directory, 100, 100_000, Duration.ofHours(1), 1 << 20, 1024,
+                Duration.ofDays(1), Duration.ofDays(1))) {
+            SummarizingChatMemory durable = new SummarizingChatMemory(file, summarizer, true, 300, 4, 100, Runnable::run);
+            for (int turn = 0; turn < 20; turn++) {
+                durable.add("soundcheck", List.of(
+                        new UserMessage("Turno " + turn + ": sube la voz un poco y deja la guitarra como estaba antes del coro"),
+                        new AssistantMessage("Listo, subí la voz y la guitarra sigue igual que en el coro anterior.")));
+            }
+            before = durable.get("soundcheck");
+            assertThat(durable.getSummaryStats().summaries()).isPositive();
+        }
+
+        try (FileChatMemory file = new FileChatMemory(directory, 100, 100_000, Duration.ofHours(1), 1 << 20, 1024,
+                Duration.ofDays(1), Duration.ofDays(1))) {
+            List<Message> after = new SummarizingChatMemory(file, summarizer, true, 300, 4, 100, Runnable::run).get("soundcheck");
+
+            assertThat(after).extracting(Message::getText).isEqualTo(before.stream().map(Message::getText).toList());
+            assertThat(after.get(0).getMessageType()).isEqualTo(MessageType.SYSTEM);
+            assertThat(after.get(0).getText()).contains("Voz en 80");
+        }
+    }
+
+    @Test
+    void storesNeverTrimTheSummary() {
+        InMemoryChatMemory small = new InMemoryChatMemory(4, 100_000, 100, 64L << 20, Duration.ofMinutes(30));
+        small.add("a", List.of(new SystemMessage(SummarizingChatMemory.SUMMARY_PREFIX + "voz en 80")));
+        for (int turn = 0; turn < 5; turn++) {
+            small.add("a", List.of(new UserMessage("pregunta " + turn), new AssistantMessage("respuesta " + turn)));
+        }
+
+        assertThat(small.get("a")).extracting(Message::getText).containsExactly(
+                SummarizingChatMemory.SUMMARY_PREFIX + "voz en 80", "pregunta 3", "respuesta 3", "pregunta 4", "respuesta 4");
+    }
+
+    @Test
+    void clearDropsTheSummary() {
+        for (int turn = 0; turn < 20; turn++) {
+            memory.add("soundcheck", List.of(
+                    new UserMessage("Turno " + turn + ": sube la voz un poco y deja la guitarra como estaba antes del coro"),
+                    new AssistantMessage("Listo, subí la voz y la guitarra sigue igual que en el coro anterior.")));
+        }
+
+        memory.clear("soundcheck");
+
+        assertThat(memory.get("soundcheck")).isEmpty();
+    }
+}
@@ -0,0 +1,260 @@
+package com.cenfotec.volumeapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.DefaultToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.DefaultToolExecutionExceptionProcessor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tool calls of one turn run by {@link ParallelToolCallingManager}: which calls overlap and which keep the model's order.
+ * <p>
+ * The benchmark-tagged test times turns of 1, 4 and 8 calls of 50 ms each (one MCP round trip plus the firmware call),
+ * run one after another by the default manager and concurrently by the parallel one.
+ */
+class ToolCallLatencyBenchmarkTests {
+
+    private static final Duration TOOL_LATENCY = Duration.ofMillis(50);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger timedOut = new AtomicInteger();
+    private volatile CountDownLatch overlap;
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 8})
+    void writesToDifferentInstrumentsOverlap(int calls) {
+        // every call waits until all of them are running, so calls run one by one would time out
+        overlap = new CountDownLatch(calls);
+
+        parallel(8).executeToolCalls(prompt(), response(setVolumeOnChannels(calls)));
+
+        assertThat(timedOut.get()).isZero();
+        assertThat(events).hasSize(2 * calls);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 8})
+    @Tag("benchmark")
+    void parallelToolCallsKeepTurnLatencyFlat(int calls) {
+        long sequentialMs = turnMillis(ToolCallingManager.builder().build(), setVolumeOnChannels(calls));
+        long parallelMs = turnMillis(parallel(8), setVolumeOnChannels(calls));
+
+        assertThat(sequentialMs).isGreaterThanOrEqualTo(calls * TOOL_LATENCY.toMillis());
+        assertThat(parallelMs).isLessThan(2 * TOOL_LATENCY.toMillis());
+    }
+
+    @Test
+    void responsesKeepTheOrderOfTheToolCalls() {
+        ToolExecutionResult result = parallel(2).executeToolCalls(prompt(), response(setVolumeOnChannels(4)));
+
+        ToolResponseMessage toolResponses = (ToolResponseMessage) result.conversationHistory().get(result.conversationHistory().size() - 1);
+        assertThat(toolResponses.getResponses()).extracting(ToolResponseMessage.ToolResponse::id)
+                .containsExactly("call-0", "call-1", "call-2", "call-3");
+        assertThat(toolResponses.getResponses()).extracting(ToolResponseMessage.ToolResponse::responseData)
+                .containsExactly("done setVolume channel-0", "done setVolume channel-1", "done setVolume channel-2", "done setVolume channel-3");
+    }
+
+    @Test
+    void callsOnTheSameInstrumentRunInTheModelsOrder() {
+        parallel(8).executeToolCalls(prompt(), response(List.of(
+                call(0, "setVolume", "{\"idInstrument\":\"guitarra\",\"value\":80}"),
+                call(1, "setMute", "{\"idInstrument\":\"Guitarra\",\"mute\":true}"),
+                call(2, "getStatusChannel", "{\"idInstrument\":\"guitarra\"}"))));
+
+        assertThat(events).containsExactly(
+                "start setVolume guitarra", "end setVolume guitarra",
+                "start setMute Guitarra", "end setMute Guitarra",
+                "start getStatusChannel guitarra", "end getStatusChannel guitarra");
+    }
+
+    @Test
+    void spellingsAndSynonymsOfOneInstrumentRunInTheModelsOrder() {
+        parallel(8).executeToolCalls(prompt(), response(List.of(
+                call(0, "setVolume", "{\"idInstrument\":\"bateria\",\"value\":80}"),
+                call(1, "setVolume", "{\"idInstrument\":\"Batería\",\"value\":20}"),
+                call(2, "setMute", "{\"idInstrument\":\"drums\",\"mute\":true}"))));
+
+        assertThat(events).containsExactly(
+                "start setVolume bateria", "end setVolume bateria",
+                "start setVolume Batería", "end setVolume Batería",
+                "start setMute drums", "end setMute drums");
+    }
+
+    @Test
+    void writesRunOneByOneWhenTheInstrumentsCannotBeListed() {
+        ToolCallingChatOptions options = DefaultToolCallingChatOptions.builder()
+                .toolCallbacks(List.of(tool("setVolume")))
+                .build();
+        parallel(8).executeToolCalls(new Prompt(List.of(new UserMessage("sube todo")), options), response(setVolumeOnChannels(2)));
+
+        assertThat(events).containsExactly(
+                "start setVolume channel-0", "end setVolume channel-0",
+                "start setVolume channel-1", "end setVolume channel-1");
+    }
+
+    @Test
+    void speakerWideWritesWaitForEarlierCallsAndHoldUpLaterOnes() {
+        parallel(8).executeToolCalls(prompt(), response(List.of(
+                call(0, "getStatusChannel", "{\"idInstrument\":\"voz\"}"),
+                call(1, "changeVolumeSpeaker", "{\"value\":40}"),
+                call(2, "setVolume", "{\"idInstrument\":\"bajo\",\"value\":80}"))));
+
+        assertThat(events).containsExactly(
+                "start getStatusChannel voz", "end getStatusChannel voz",
+                "start changeVolumeSpeaker null", "end changeVolumeSpeaker null",
+                "start setVolume bajo", "end setVolume bajo");
+    }
+
+    @Test
+    void readsRunTogether() {
+        parallel(8).executeToolCalls(prompt(), response(List.of(
+                call(0, "getStatusChannel", "{\"idInstrument\":\"voz\"}"),
+                call(1, "getAllChannelsStatus", "{}"),
+                call(2, "getSpeakerStatus", "{}"))));
+
+        assertThat(events.subList(0, 3)).allMatch(event -> event.startsWith("start"));
+    }
+
+    private ToolCallingManager parallel(int maxParallel) {
+        return new ParallelToolCallingManager(ToolCallingManager.builder().build(),
+                DefaultToolExecutionExceptionProcessor.builder().build(), executor, maxParallel, JSON);
+    }
+
+    private long turnMillis(ToolCallingManager manager, List<AssistantMessage.ToolCall> calls) {
+        manager.executeToolCalls(prompt(), response(calls));
+        long start = System.nanoTime();
+        manager.executeToolCalls(prompt(), response(calls));
+        return Duration.ofNanos(System.nanoTime() - start).toMillis();
+    }
+
+    private Prompt prompt() {
+        ToolCallingChatOptions options = DefaultToolCallingChatOptions.builder()
+                .toolCallbacks(List.of(tool("setVolume"), tool("setMute"), tool("getStatusChannel"),
+                        tool("getAllChannelsStatus"), tool("getSpeakerStatus"), tool("changeVolumeSpeaker"), instrumentList()))
+                .toolContext(Map.of("chat", "benchmark"))
+                .build();
+        return new Prompt(List.of(new UserMessage("sube todo")), options);
+    }
+
+    private static List<AssistantMessage.ToolCall> setVolumeOnChannels(int calls) {
+        return IntStream.range(0, calls)
+                .mapToObj(i -> call(i, "setVolume", "{\"idInstrument\":\"channel-" + i + "\",\"value\":80}"))
+                .toList();
+    }
+
+    private static AssistantMessage.ToolCall call(int id, String tool, String arguments) {
+        return new AssistantMessage.ToolCall("call-" + id, "function", "volume_tool_server_" + tool, arguments);
+    }
+
+    private static ChatResponse response(List<AssistantMessage.ToolCall> toolCalls) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage("", Map.of(), toolCalls))));
+    }
+
+    private ToolCallback tool(String name) {
+        ToolDefinition definition = ToolDefinition.builder().name("volume_tool_server_" + name).description(name).inputSchema("{}").build();
+        return new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return definition;
+            }
+
+            @Override
+            public String call(String toolInput) {
+                String target = name + " " + instrument(toolInput);
+                events.add("start " + target);
+                try {
+                    CountDownLatch running = overlap;
+                    if (running == null) {
+                        Thread.sleep(TOOL_LATENCY);
+                    } else {
+                        running.countDown();
+                        if (!running.await(5, TimeUnit.SECONDS)) {
+                            timedOut.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                events.add("end " + target);
+                return "done " + target;
+            }
+
+            @Override
+            public String call(String toolInput, ToolContext toolContext) {
+                return call(toolInput);
+            }
+        };
+    }
+
+    /**
+     * {@code getAvailableInstruments} as the MCP callback returns it: the JSON list is the text content of the result.
+     */
+    private static ToolCallback instrumentList() {
+        ToolDefinition definition = ToolDefinition.builder().name("volume_tool_server_getAvailableInstruments")
+                .description("getAvailableInstruments").inputSchema("{}").build();
+        List<String> names = new ArrayList<>(List.of("guitarra", "voz", "bajo", "bateria"));
+        IntStream.range(0, 8).forEach(i -> names.add("channel-" + i));
+        return new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return definition;
+            }
+
+            @Override
+            public String call(String toolInput) {
+                try {
+                    String list = JSON.writeValueAsString(names);
+                    return JSON.writeValueAsString(List.of(Map.of("type", "text", "text", list)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    private static String instrument(String toolInput) {
+        try {
+            return JSON.readTree(toolInput).path("idInstrument").asText(null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.cenfotec.volumeapi.controller;
+
+import com.cenfotec.volumeapi.models.ChatStreamEvent;
+import com.cenfotec.volumeapi.service.VoiceCommandService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AudioWebSocketHandlerTests {
+
+    private final VoiceCommandService voiceCommandService = mock(VoiceCommandService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AudioWebSocketHandler handler = new AudioWebSocketHandler(voiceCommandService, objectMapper, 16_000, 8192);
+
+    private final WebSocketSession session = mock(WebSocketSession.class);
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final List<ChatStreamEvent> sent = new CopyOnWriteArrayList<>();
+
+    AudioWebSocketHandlerTests() throws Exception {
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            sent.add(objectMapper.readValue((String) message.getPayload(), ChatStreamEvent.class));
+            return null;
+        }).when(session).sendMessage(any());
+    }
+
+    @Test
+    void closesSessionsWithAnUnsupportedSampleRate() throws Exception {
+        for (String sampleRate : List.of("0", "49", "-16000", "2000000000")) {
+            when(session.getUri()).thenReturn(URI.create("ws://localhost:8080/chat/audio?sampleRate=" + sampleRate));
+
+            handler.afterConnectionEstablished(session);
+        }
+
+        verify(voiceCommandService, never()).open(any(), anyInt(), any());
+        verify(session, times(4)).close(CloseStatus.NOT_ACCEPTABLE);
+        assertThat(sent).extracting(ChatStreamEvent::type).containsOnly("error");
+    }
+}
@@ -0,0 +1,92 @@
+package com.cenfotec.volumeapi.controller;
+
+import com.cenfotec.volumeapi.models.ChatRequest;
+import com.cenfotec.volumeapi.models.ChatStreamEvent;
+import com.cenfotec.volumeapi.service.MixerStateFeed;
+import com.cenfotec.volumeapi.service.VolumeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChatWebSocketHandlerTests {
+
+    private final UUID chatId = UUID.randomUUID();
+    private final VolumeService volumeService = mock(VolumeService.class);
+    private final MixerStateFeed mixerStateFeed = mock(MixerStateFeed.class);
+    private final Sinks.Many<String> deltas = Sinks.many().multicast().directBestEffort();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ChatWebSocketHandler handler = new ChatWebSocketHandler(volumeService, mixerStateFeed, objectMapper,
+            4096, Duration.ofMinutes(30));
+
+    private final WebSocketSession session = mock(WebSocketSession.class);
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final List<ChatStreamEvent> sent = new CopyOnWriteArrayList<>();
+
+    ChatWebSocketHandlerTests() throws Exception {
+        when(mixerStateFeed.deltas()).thenReturn(deltas.asFlux());
+        when(session.getUri()).thenReturn(URI.create("ws://localhost:8080/chat/ws?chatId=" + chatId));
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getId()).thenReturn("1");
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            sent.add(objectMapper.readValue((String) message.getPayload(), ChatStreamEvent.class));
+            return null;
+        }).when(session).sendMessage(any());
+    }
+
+    @Test
+    void answersEveryQuestionOnTheSameSession() {
+        when(volumeService.chatStream(new ChatRequest(chatId, "sube la voz")))
+                .thenReturn(Flux.just(ChatStreamEvent.token("Listo"), ChatStreamEvent.done(chatId)));
+        when(volumeService.chatStream(new ChatRequest(chatId, "y la guitarra")))
+                .thenReturn(Flux.just(ChatStreamEvent.token("También"), ChatStreamEvent.done(chatId)));
+
+        handler.afterConnectionEstablished(session);
+        handler.handleTextMessage(session, new TextMessage("{\"question\": \"sube la voz\"}"));
+        handler.handleTextMessage(session, new TextMessage("{\"question\": \"y la guitarra\"}"));
+
+        assertThat(sent).extracting(ChatStreamEvent::type).containsExactly("session", "token", "done", "token", "done");
+        assertThat(sent.get(0).chatId()).isEqualTo(chatId);
+        assertThat(sent.get(3).content()).isEqualTo("También");
+    }
+
+    @Test
+    void pushesMixerChangesUntilTheSessionCloses() {
+        handler.afterConnectionEstablished(session);
+        deltas.tryEmitNext("{\"device\":\"mixer-a\",\"version\":2}");
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+        deltas.tryEmitNext("{\"device\":\"mixer-a\",\"version\":3}");
+
+        assertThat(sent).extracting(ChatStreamEvent::type).containsExactly("session", "mixer_state");
+        assertThat(sent.get(1).content()).contains("\"version\":2");
+        assertThat(deltas.currentSubscriberCount()).isZero();
+    }
+
+    @Test
+    void rejectsFramesWithoutAQuestion() {
+        handler.afterConnectionEstablished(session);
+        handler.handleTextMessage(session, new TextMessage("hola"));
+
+        assertThat(sent).extracting(ChatStreamEvent::type).containsExactly("session", "error");
+    }
+}
@@ -0,0 +1,48 @@
+package com.cenfotec.volumeapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnswerCacheTests {
+
+    private String remoteVersion = "mixer-a:1:1;";
+
+    private final AnswerCache cache = new AnswerCache(new MixerStateVersion(List.of(), new ObjectMapper()) {
+        @Override
+        public Optional<String> current() {
+            return Optional.of(remoteVersion);
+        }
+    }, true, 10, Duration.ofMinutes(10));
+
+    @Test
+    void servesReadOnlyAnswersUntilTheStateChanges() {
+        String version = cache.currentVersion().orElseThrow();
+        cache.put("¿Cómo está la mezcla?", version, "Todo en 70.", List.of("volume_tool_server_getAllChannelsStatus"));
+
+        assertThat(cache.get("como esta la mezcla", cache.currentVersion().orElseThrow())).contains("Todo en 70.");
+
+        remoteVersion = "mixer-a:2:2;";
+        assertThat(cache.get("como esta la mezcla", cache.currentVersion().orElseThrow())).isEmpty();
+        assertThat(cache.getStats().hits()).isEqualTo(1);
+        assertThat(cache.getStats().invalidations()).isEqualTo(1);
+    }
+
+    @Test
+    void neverStoresTurnsThatWrote() {
+        String version = cache.currentVersion().orElseThrow();
+        cache.put("¿Cómo está la mezcla?", version, "Todo en 70.", List.of("volume_tool_server_getAllChannelsStatus"));
+        cache.put("sube la voz un poco", version, "Listo.", List.of("volume_tool_server_getStatusChannel", "volume_tool_server_setVolume"));
+
+        String next = cache.currentVersion().orElseThrow();
+        assertThat(next).isNotEqualTo(version);
+        assertThat(cache.get("sube la voz un poco", next)).isEmpty();
+        assertThat(cache.get("¿Cómo está la mezcla?", next)).isEmpty();
+        assertThat(cache.getStats().size()).isZero();
+    }
+}
@@ -0,0 +1,127 @@
+package com.cenfotec.volumeapi.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AudioSegmenterTests {
+
+    private static final int SAMPLE_RATE = 16_000;
+
+    private final AudioBufferPool pool = new AudioBufferPool(DataSize.ofKilobytes(512), 4);
+    private final List<Integer> utteranceMillis = new ArrayList<>();
+    private final AudioSegmenter segmenter = new AudioSegmenter(pool, SAMPLE_RATE, 500, 3, Duration.ofMillis(600),
+            Duration.ofMillis(200), pcm -> {
+                utteranceMillis.add(pcm.remaining() / 2 * 1000 / SAMPLE_RATE);
+                pool.release(pcm);
+            });
+
+    @Test
+    void cutsUtterancesAtTheSilenceInRandomChunks() {
+        ByteBuffer stream = pcm(silence(500), tone(1000), silence(1000), tone(700), silence(1000));
+
+        feedInRandomChunks(stream);
+
+        assertThat(utteranceMillis).hasSize(2);
+        assertThat(utteranceMillis.get(0)).isBetween(980, 1020);
+        assertThat(utteranceMillis.get(1)).isBetween(680, 720);
+        // both utterances reused the same buffer, and it is back in the pool
+        assertThat(pool.allocated()).isEqualTo(1);
+        assertThat(pool.inUse()).isZero();
+    }
+
+    @Test
+    void ignoresClicksShorterThanTheMinimumSpeech() {
+        feedInRandomChunks(pcm(silence(300), tone(40), silence(1000), tone(100), silence(1000)));
+
+        assertThat(utteranceMillis).isEmpty();
+        assertThat(pool.inUse()).isZero();
+    }
+
+    @Test
+    void readsTheSampleRateFromAWavHeader() {
+        AudioSegmenter fromWav = new AudioSegmenter(pool, 44_100, 500, 3, Duration.ofMillis(600), Duration.ofMillis(200),
+                pcm -> {
+                    utteranceMillis.add(pcm.remaining() / 2 * 1000 / SAMPLE_RATE);
+                    pool.release(pcm);
+                });
+        fromWav.accept(wav(SAMPLE_RATE, pcm(silence(200), tone(500), silence(800))));
+        fromWav.close();
+
+        assertThat(fromWav.sampleRate()).isEqualTo(SAMPLE_RATE);
+        assertThat(utteranceMillis).hasSize(1);
+        assertThat(utteranceMillis.get(0)).isBetween(480, 520);
+    }
+
+    @Test
+    void rejectsSampleRatesOutOfRange() {
+        for (int sampleRate : new int[]{0, 49, -16_000, 7_999, 48_001, Integer.MAX_VALUE}) {
+            assertThatThrownBy(() -> new AudioSegmenter(pool, sampleRate, 500, 3, Duration.ofMillis(600),
+                    Duration.ofMillis(200), pool::release)).isInstanceOf(IllegalArgumentException.class);
+        }
+        ByteBuffer header = wav(0, pcm(silence(100)));
+
+        assertThatThrownBy(() -> segmenter.accept(header)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(segmenter.sampleRate()).isEqualTo(SAMPLE_RATE);
+    }
+
+    private void feedInRandomChunks(ByteBuffer stream) {
+        Random random = new Random(7);
+        while (stream.hasRemaining()) {
+            int length = Math.min(stream.remaining(), 1 + random.nextInt(3000));
+            segmenter.accept(stream.slice(stream.position(), length));
+            stream.position(stream.position() + length);
+        }
+        segmenter.close();
+    }
+
+    private static ByteBuffer wav(int sampleRate, ByteBuffer data) {
+        ByteBuffer file = ByteBuffer.allocate(44 + data.remaining()).order(ByteOrder.LITTLE_ENDIAN);
+        file.put("RIFF".getBytes()).putInt(36 + data.remaining()).put("WAVE".getBytes())
+                .put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(sampleRate).putInt(sampleRate * 2).putShort((short) 2).putShort((short) 16)
+                .put("data".getBytes()).putInt(data.remaining()).put(data);
+        return file.flip();
+    }
+
+    private static short[] silence(int millis) {
+        Random random = new Random(millis);
+        short[] samples = new short[SAMPLE_RATE * millis / 1000];
+        for (int i = 0; i < samples.length; i++) {
+            // room noise
+            samples[i] = (short) (random.nextGaussian() * 50);
+        }
+        return samples;
+    }
+
+    private static short[] tone(int millis) {
+        short[] samples = new short[SAMPLE_RATE * millis / 1000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (5000 * Math.sin(2 * Math.PI * 220 * i / SAMPLE_RATE));
+        }
+        return samples;
+    }
+
+    private static ByteBuffer pcm(short[]... parts) {
+        int length = 0;
+        for (short[] part : parts) {
+            length += part.length;
+        }
+        ByteBuffer pcm = ByteBuffer.allocate(2 * length).order(ByteOrder.LITTLE_ENDIAN);
+        for (short[] part : parts) {
+            for (short sample : part) {
+                pcm.putShort(sample);
+            }
+        }
+        return pcm.flip();
+    }
+}
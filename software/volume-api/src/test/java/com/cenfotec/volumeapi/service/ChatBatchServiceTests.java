@@ -0,0 +1,69 @@
+package com.cenfotec.volumeapi.service;
+
+import com.cenfotec.volumeapi.models.ChatBatchItem;
+import com.cenfotec.volumeapi.models.ChatRequest;
+import com.cenfotec.volumeapi.models.ChatResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChatBatchServiceTests {
+
+    private final VolumeService volumeService = mock(VolumeService.class);
+    private final ChatBatchService batchService = new ChatBatchService(volumeService, 8, 100);
+    private final List<String> handled = new CopyOnWriteArrayList<>();
+
+    ChatBatchServiceTests() {
+        when(volumeService.chat(any())).thenAnswer(invocation -> {
+            ChatRequest request = invocation.getArgument(0);
+            if (request.question().equals("falla")) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many requests waiting for the model");
+            }
+            Thread.sleep(100);
+            handled.add(request.question());
+            return new ChatResponse(request.chatId() == null ? UUID.randomUUID() : request.chatId(), "ok " + request.question());
+        });
+    }
+
+    @Test
+    void keepsTheOrderWithinAConversationAndRunsConversationsInParallel() {
+        UUID stage = UUID.randomUUID();
+        List<ChatRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            requests.add(new ChatRequest(stage, "escenario " + i));
+        }
+        for (int i = 0; i < 8; i++) {
+            requests.add(new ChatRequest(null, "suelto " + i));
+        }
+
+        long start = System.nanoTime();
+        List<ChatBatchItem> items = batchService.run(requests).block();
+
+        // 4 turns in a row for the stage chat, the loose ones alongside; one after another would take 1.2 s
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(900));
+        assertThat(items).extracting(ChatBatchItem::index).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+        assertThat(handled.stream().filter(question -> question.startsWith("escenario")))
+                .containsExactly("escenario 0", "escenario 1", "escenario 2", "escenario 3");
+    }
+
+    @Test
+    void aFailedRequestDoesNotFailTheBatch() {
+        List<ChatBatchItem> items = batchService.run(List.of(
+                new ChatRequest(null, "sube la voz"), new ChatRequest(null, "falla"), new ChatRequest(null, "baja el bajo"))).block();
+
+        assertThat(items).extracting(ChatBatchItem::status).containsExactly(200, 429, 200);
+        assertThat(items.get(1).error()).isEqualTo("Too many requests waiting for the model");
+        assertThat(items.get(2).answer()).isEqualTo("ok baja el bajo");
+    }
+}
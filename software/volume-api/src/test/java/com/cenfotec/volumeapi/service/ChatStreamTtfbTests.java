@@ -0,0 +1,80 @@
+package com.cenfotec.volumeapi.service;
+
+import com.cenfotec.volumeapi.config.InMemoryChatMemory;
+import com.cenfotec.volumeapi.config.McpToolRegistry;
+import com.cenfotec.volumeapi.models.ChatRequest;
+import com.cenfotec.volumeapi.models.ChatStreamEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time-to-first-byte of /chat against /chat/stream, with a model that produces a token every 40 ms.
+ */
+class ChatStreamTtfbTests {
+
+    private static final List<String> TOKENS = List.of("Listo, ", "la ", "guitarra ", "quedó ", "en ", "75 ", "por ", "ciento.");
+    private static final Duration TOKEN_DELAY = Duration.ofMillis(40);
+
+    private final InMemoryChatMemory chatMemory = new InMemoryChatMemory(20, 2000, 100, 1_000_000, Duration.ofMinutes(30));
+    private final VolumeService volumeService = new VolumeService(ChatClient.builder(new SlowModel()).build(),
+            new FastPathService(new CommandParser(), new McpToolRegistry(List.of()), chatMemory, new ObjectMapper(), false),
+            new AnswerCache(new MixerStateVersion(List.of(), new ObjectMapper()), false, 0, Duration.ZERO),
+            chatMemory, new McpToolRegistry(List.of()), new ConversationExecutor(8),
+            new ModelAdmission(8, 1, 64, 32, Duration.ofSeconds(5), 2.0), new ModelMetrics(new SimpleMeterRegistry()));
+
+    @Test
+    void streamSendsFirstTokenBeforeTheBlockingAnswer() {
+        long start = System.nanoTime();
+        volumeService.chat(new ChatRequest(null, "Sube la guitarra a 75"));
+        long blockingMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        start = System.nanoTime();
+        ChatStreamEvent first = volumeService.chatStream(new ChatRequest(null, "Sube la guitarra a 75")).blockFirst();
+        long streamingMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertThat(first.type()).isEqualTo("token");
+        assertThat(streamingMs).isLessThan(blockingMs / 2);
+    }
+
+    @Test
+    void streamEndsWithTheChatId() {
+        List<ChatStreamEvent> events = volumeService.chatStream(new ChatRequest(null, "Sube la guitarra a 75")).collectList().block();
+
+        assertThat(events).hasSize(TOKENS.size() + 1);
+        ChatStreamEvent last = events.get(events.size() - 1);
+        assertThat(last.type()).isEqualTo("done");
+        assertThat(last.chatId()).isNotNull();
+    }
+
+    private static class SlowModel implements ChatModel {
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            return stream(prompt).collectList()
+                    .map(chunks -> response(String.join("", chunks.stream().map(chunk -> chunk.getResult().getOutput().getText()).toList())))
+                    .block();
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return Flux.fromIterable(TOKENS).delayElements(TOKEN_DELAY).map(SlowModel::response);
+        }
+
+        private static ChatResponse response(String text) {
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+        }
+    }
+}
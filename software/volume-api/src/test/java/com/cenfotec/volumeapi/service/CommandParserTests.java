@@ -0,0 +1,44 @@
+package com.cenfotec.volumeapi.service;
+
+import com.cenfotec.volumeapi.models.ParsedCommand;
+import com.cenfotec.volumeapi.models.ParsedCommand.Action;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandParserTests {
+
+    private final CommandParser parser = new CommandParser();
+
+    @ParameterizedTest
+    @CsvSource(nullValues = "null", value = {
+            "Sube la guitarra a 80,                       SET_VOLUME, guitarra, 80",
+            "Configura el volumen de guitarra a 75,       SET_VOLUME, guitarra, 75",
+            "volumen del bajo al 40%,                     SET_VOLUME, bajo,     40",
+            "set the drums to 65 percent,                 SET_VOLUME, drums,    65",
+            "turn the volume of the voice down to 30,     SET_VOLUME, voice,    30",
+            "pon todo a 50,                               SET_VOLUME, null,     50",
+            "¡Silencia la voz!,                           MUTE,       voz,      null",
+            "mute all,                                    MUTE,       null,     null",
+            "quítale el silencio a la batería,            UNMUTE,     bateria,  null",
+            "unmute the bass,                             UNMUTE,     bass,     null"
+    })
+    void recognizesSimpleCommands(String question, Action action, String instrument, Integer value) {
+        assertThat(parser.parse(question)).contains(new ParsedCommand(action, instrument, value));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "¿Cómo está la mezcla?",
+            "sube la guitarra y la voz a 80",
+            "sube la guitarra a 180",
+            "no silencies la voz",
+            "baja un poco la batería",
+            "what's the volume of the drums"
+    })
+    void leavesEverythingElseToTheLlm(String question) {
+        assertThat(parser.parse(question)).isEmpty();
+    }
+}
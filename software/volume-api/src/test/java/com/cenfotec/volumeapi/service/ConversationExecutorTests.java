@@ -0,0 +1,123 @@
+package com.cenfotec.volumeapi.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConversationExecutorTests {
+
+    private final ConversationExecutor executor = new ConversationExecutor(16);
+
+    @Test
+    void runsTheTurnsOfOneConversationInOrder() throws Exception {
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10; i++) {
+                int turn = i;
+                requests.submit(() -> executor.call("chat-a", () -> {
+                    sleep(5);
+                    return order.add(turn);
+                }));
+                // arrival order
+                sleep(1);
+            }
+        }
+
+        assertThat(order).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        assertThat(executor.getStats().activeConversations()).isZero();
+        assertThat(executor.getStats().turns()).isEqualTo(10);
+    }
+
+    @Test
+    void runsDifferentConversationsInParallel() {
+        long start = System.nanoTime();
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntStream.range(0, 20).forEach(i -> requests.submit(() -> executor.call("chat-" + i, () -> sleep(100))));
+        }
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1000));
+    }
+
+    @Test
+    void rejectsTurnsBeyondTheQueueBound() throws Exception {
+        ConversationExecutor bounded = new ConversationExecutor(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> bounded.call("chat-a", () -> {
+            running.countDown();
+            return await(finish);
+        }));
+        running.await(1, TimeUnit.SECONDS);
+        CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> bounded.call("chat-a", () -> true));
+        while (bounded.getStats().queuedTurns() == 0) {
+            sleep(1);
+        }
+
+        assertThatThrownBy(() -> bounded.call("chat-a", () -> true)).isInstanceOf(ResponseStatusException.class);
+        finish.countDown();
+        assertThat(first.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(bounded.getStats().rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void holdsTheConversationUntilAStreamTerminates() {
+        List<String> events = new CopyOnWriteArrayList<>();
+        Flux<String> first = executor.stream("chat-a", () -> Flux.just("a1", "a2").delayElements(Duration.ofMillis(50)));
+        Flux<String> second = executor.stream("chat-a", () -> Flux.just("b1"));
+
+        Flux.merge(first, second.delaySubscription(Duration.ofMillis(10))).doOnNext(events::add).blockLast();
+
+        assertThat(events).containsExactly("a1", "a2", "b1");
+    }
+
+    @Test
+    void aStreamCancelledWhileQueuedGivesUpItsTurn() throws Exception {
+        Sinks.Empty<Void> finishFirst = Sinks.empty();
+        Disposable first = executor.stream("chat-a", () -> Flux.<String>never().takeUntilOther(finishFirst.asMono())).subscribe();
+        Disposable queued = executor.stream("chat-a", () -> Flux.just("never sent")).subscribe();
+        assertThat(executor.getStats().queuedTurns()).isEqualTo(1);
+
+        queued.dispose();
+        assertThat(executor.getStats().queuedTurns()).isZero();
+        finishFirst.tryEmitEmpty();
+
+        CompletableFuture<Boolean> next = CompletableFuture.supplyAsync(() -> executor.call("chat-a", () -> true));
+        assertThat(next.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(first.isDisposed()).isTrue();
+        assertThat(executor.getStats().activeConversations()).isZero();
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
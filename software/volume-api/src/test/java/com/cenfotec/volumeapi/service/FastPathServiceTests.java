@@ -0,0 +1,113 @@
+package com.cenfotec.volumeapi.service;
+
+import com.cenfotec.volumeapi.config.InMemoryChatMemory;
+import com.cenfotec.volumeapi.config.McpToolRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FastPathServiceTests {
+
+    private final List<String> calls = new ArrayList<>();
+    private final InMemoryChatMemory chatMemory = new InMemoryChatMemory(20, 2000, 100, 1_000_000, Duration.ofMinutes(30));
+    private final FastPathService fastPathService = new FastPathService(new CommandParser(),
+            registry(tool("volume_tool_server_setVolume"), tool("volume_tool_server_setMuteSpeaker")),
+            chatMemory, new ObjectMapper(), true);
+
+    @Test
+    void callsTheToolDirectlyAndRemembersTheTurn() {
+        // first call pays for class loading and JSON serializer setup
+        fastPathService.tryHandle(UUID.randomUUID(), "pon la guitarra a 10");
+        calls.clear();
+        UUID chatId = UUID.randomUUID();
+
+        long start = System.nanoTime();
+        assertThat(fastPathService.tryHandle(chatId, "sube la guitarra a 80")).contains("¡Listo! El volumen de guitarra quedó en 80.");
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertThat(elapsedMs).isLessThan(50);
+        assertThat(calls).containsExactly("volume_tool_server_setVolume {\"idInstrument\":\"guitarra\",\"value\":80}");
+        assertThat(chatMemory.get(chatId.toString())).extracting(Message::getText)
+                .containsExactly("sube la guitarra a 80", "¡Listo! El volumen de guitarra quedó en 80.");
+    }
+
+    @Test
+    void fallsBackWhenTheCommandIsUnknownOrTheToolIsMissing() {
+        assertThat(fastPathService.tryHandle(UUID.randomUUID(), "¿cómo está la mezcla?")).isEmpty();
+        assertThat(fastPathService.tryHandle(UUID.randomUUID(), "silencia la voz")).isEmpty();
+
+        assertThat(fastPathService.tryHandle(UUID.randomUUID(), "mute all")).isPresent();
+        assertThat(fastPathService.getStats().handled()).isEqualTo(1);
+        assertThat(fastPathService.getStats().fallbacks()).isEqualTo(2);
+        assertThat(fastPathService.getStats().toolErrors()).isEqualTo(1);
+    }
+
+    @Test
+    void saysSoWhenTheMixerIsOffline() {
+        FastPathService offline = new FastPathService(new CommandParser(),
+                registry(tool("volume_tool_server_setVolume",
+                        "{\"body\":\"Instrument 'guitarra' volume set to 80 (simulated - device offline)\",\"statusCode\":\"OK\",\"statusCodeValue\":200}")),
+                chatMemory, new ObjectMapper(), true);
+        UUID chatId = UUID.randomUUID();
+
+        assertThat(offline.tryHandle(chatId, "sube la guitarra a 80"))
+                .contains("El mezclador no responde, no pude cambiar el volumen de guitarra.");
+        assertThat(chatMemory.get(chatId.toString())).extracting(Message::getText)
+                .containsExactly("sube la guitarra a 80", "El mezclador no responde, no pude cambiar el volumen de guitarra.");
+        assertThat(offline.getStats().toolErrors()).isEqualTo(1);
+    }
+
+    @Test
+    void fallsBackWhenNoDeviceOwnsTheChannel() {
+        // as the MCP callback returns it: the serialized ResponseEntity is the text content of the result
+        FastPathService noDevice = new FastPathService(new CommandParser(),
+                registry(tool("volume_tool_server_setVolume",
+                        "[{\"type\":\"text\",\"text\":\"{\\\"headers\\\":{},\\\"body\\\":\\\"No mixer device owns channel 3 of instrument 'bateria'\\\","
+                                + "\\\"statusCode\\\":\\\"NOT_FOUND\\\",\\\"statusCodeValue\\\":404}\"}]")),
+                chatMemory, new ObjectMapper(), true);
+        UUID chatId = UUID.randomUUID();
+
+        assertThat(noDevice.tryHandle(chatId, "sube la bateria a 50")).isEmpty();
+        assertThat(chatMemory.get(chatId.toString())).isEmpty();
+        assertThat(noDevice.getStats().toolErrors()).isEqualTo(1);
+        assertThat(noDevice.getStats().fallbacks()).isEqualTo(1);
+    }
+
+    private static McpToolRegistry registry(ToolCallback... tools) {
+        return new McpToolRegistry(List.of()) {
+            @Override
+            public List<ToolCallback> snapshot() {
+                return List.of(tools);
+            }
+        };
+    }
+
+    private ToolCallback tool(String name) {
+        return tool(name, "{\"statusCode\":\"OK\"}");
+    }
+
+    private ToolCallback tool(String name, String result) {
+        ToolDefinition definition = ToolDefinition.builder().name(name).description(name).inputSchema("{}").build();
+        return new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return definition;
+            }
+
+            @Override
+            public String call(String toolInput) {
+                calls.add(name + " " + toolInput);
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,126 @@
+package com.cenfotec.volumeapi.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ModelAdmissionTests {
+
+    @Test
+    void rejectsFastWhenTheQueueIsFull() throws Exception {
+        ModelAdmission admission = new ModelAdmission(1, 1, 1, 1, Duration.ofSeconds(5), 2.0);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> admission.call(() -> await(finish)));
+        waitFor(() -> admission.getStats().inFlight() == 1);
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> admission.call(() -> true));
+        waitFor(() -> admission.getStats().queued() == 1);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> admission.call(() -> true))
+                .isInstanceOfSatisfying(ModelSaturatedException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                    assertThat(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+                });
+        // without waiting for the 5 s deadline
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+
+        finish.countDown();
+        assertThat(running.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(admission.getStats().rejectedQueueFull()).isEqualTo(1);
+    }
+
+    @Test
+    void givesUpAfterTheDeadline() throws Exception {
+        ModelAdmission admission = new ModelAdmission(1, 1, 1, 4, Duration.ofMillis(100), 2.0);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> admission.call(() -> await(finish)));
+        waitFor(() -> admission.getStats().inFlight() == 1);
+
+        assertThatThrownBy(() -> admission.call(() -> true))
+                .isInstanceOfSatisfying(ModelSaturatedException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+
+        finish.countDown();
+        assertThat(running.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(admission.getStats().queued()).isZero();
+        assertThat(admission.getStats().inFlight()).isZero();
+        assertThat(admission.getStats().rejectedDeadline()).isEqualTo(1);
+    }
+
+    @Test
+    void adaptsTheLimitToTheModelLatency() {
+        ModelAdmission admission = new ModelAdmission(4, 1, 16, 1000, Duration.ofSeconds(10), 2.0);
+
+        run(admission, 200, 10);
+        int grown = admission.getStats().limit();
+        assertThat(grown).isGreaterThan(4);
+
+        // the model slows down to five times its usual latency
+        run(admission, 40, 50);
+        assertThat(admission.getStats().limit()).isLessThan(grown);
+    }
+
+    @Test
+    void aStreamCancelledWhileQueuedLeavesNoPermitBehind() throws Exception {
+        ModelAdmission admission = new ModelAdmission(1, 1, 1, 4, Duration.ofSeconds(5), 2.0);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> admission.call(() -> await(finish)));
+        waitFor(() -> admission.getStats().inFlight() == 1);
+        Disposable queued = admission.stream(() -> Flux.just("never sent")).subscribe();
+        waitFor(() -> admission.getStats().queued() == 1);
+
+        queued.dispose();
+        assertThat(admission.getStats().queued()).isZero();
+        finish.countDown();
+        assertThat(running.get(1, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(admission.getStats().inFlight()).isZero();
+        assertThat(CompletableFuture.supplyAsync(() -> admission.call(() -> true)).get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(admission.getStats().inFlight()).isZero();
+    }
+
+    private static void run(ModelAdmission admission, int calls, long millis) {
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntStream.range(0, calls).forEach(i -> requests.submit(() -> admission.call(() -> sleep(millis))));
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) {
+        while (!condition.getAsBoolean()) {
+            sleep(1);
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.cenfotec.volumeapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ModelMetricsTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ModelMetrics modelMetrics = new ModelMetrics(meterRegistry);
+
+    @Test
+    void recordsModelLatencyForCallsAndStreams() {
+        modelMetrics.call(() -> response("Listo", null));
+        modelMetrics.stream(() -> chunks(null)).blockLast();
+
+        // read right after blockLast: the stream is recorded before it completes downstream
+        assertThat(meterRegistry.get("chat.model.latency").tag("mode", "call").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chat.model.latency").tag("mode", "stream").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chat.model.first-token").timer().totalTime(TimeUnit.MILLISECONDS))
+                .isLessThan(meterRegistry.get("chat.model.latency").tag("mode", "stream").timer().totalTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void tagsFailedAndCancelledStreams() {
+        assertThatThrownBy(() -> modelMetrics.stream(() -> Flux.<ChatResponse>error(new IllegalStateException("model down"))).blockLast())
+                .hasMessage("model down");
+        modelMetrics.stream(() -> chunks(null)).take(1).blockLast();
+
+        assertThat(meterRegistry.get("chat.model.latency").tag("mode", "stream").tag("outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chat.model.latency").tag("mode", "stream").tag("outcome", "cancelled").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void recordsTheTokensReportedByTheModel() {
+        modelMetrics.call(() -> response("Listo", new DefaultUsage(120, 8)));
+        modelMetrics.stream(() -> chunks(new DefaultUsage(300, 30))).blockLast();
+
+        assertThat(meterRegistry.get("chat.model.tokens").tag("mode", "call").tag("type", "prompt").summary().totalAmount()).isEqualTo(120);
+        assertThat(meterRegistry.get("chat.model.tokens").tag("mode", "call").tag("type", "completion").summary().totalAmount()).isEqualTo(8);
+        // only the usage of the last chunk counts, not a sum of the chunks
+        assertThat(meterRegistry.get("chat.model.tokens").tag("mode", "stream").tag("type", "prompt").summary().totalAmount()).isEqualTo(300);
+        assertThat(meterRegistry.get("chat.model.tokens").tag("mode", "stream").tag("type", "completion").summary().totalAmount()).isEqualTo(30);
+    }
+
+    private static Flux<ChatResponse> chunks(Usage lastUsage) {
+        return Flux.just(response("Listo, ", null), response("guitarra ", null), response("en 75.", lastUsage))
+                .delayElements(Duration.ofMillis(20));
+    }
+
+    private static ChatResponse response(String text, Usage usage) {
+        ChatResponseMetadata metadata = usage == null ? new ChatResponseMetadata() : ChatResponseMetadata.builder().usage(usage).build();
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))), metadata);
+    }
+}
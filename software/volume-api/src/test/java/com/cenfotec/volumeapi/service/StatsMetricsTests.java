@@ -0,0 +1,36 @@
+package com.cenfotec.volumeapi.service;
+
+import com.cenfotec.volumeapi.config.RoutingChatModel;
+import com.cenfotec.volumeapi.config.SummarizingChatMemory;
+import com.cenfotec.volumeapi.models.AdmissionStats;
+import com.cenfotec.volumeapi.models.AnswerCacheStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatsMetricsTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AnswerCache answerCache = mock(AnswerCache.class);
+    private final ModelAdmission modelAdmission = mock(ModelAdmission.class);
+
+    @Test
+    void metersReadTheCurrentStats() {
+        new StatsMetrics(mock(SummarizingChatMemory.class), mock(FastPathService.class), answerCache,
+                mock(ConversationExecutor.class), modelAdmission, mock(RoutingChatModel.class),
+                mock(VoiceCommandService.class)).bindTo(meterRegistry);
+        when(answerCache.getStats())
+                .thenReturn(new AnswerCacheStats(3, 10, 4, 4, 1, 0.71))
+                .thenReturn(new AnswerCacheStats(3, 12, 4, 4, 1, 0.75));
+        when(modelAdmission.getStats()).thenReturn(new AdmissionStats(8, 2, 5, 40, 3, 1, 120.0));
+
+        assertThat(meterRegistry.get("chat.answer-cache.requests").tag("result", "hit").functionCounter().count()).isEqualTo(10);
+        assertThat(meterRegistry.get("chat.answer-cache.requests").tag("result", "hit").functionCounter().count()).isEqualTo(12);
+        assertThat(meterRegistry.get("chat.admission.queued").gauge().value()).isEqualTo(5);
+        assertThat(meterRegistry.get("chat.admission.rejected").tag("reason", "queue-full").functionCounter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("chat.admission.rejected").tag("reason", "deadline").functionCounter().count()).isEqualTo(1);
+    }
+}
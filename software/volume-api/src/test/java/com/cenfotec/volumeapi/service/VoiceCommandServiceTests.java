@@ -0,0 +1,73 @@
+package com.cenfotec.volumeapi.service;
+
+import com.cenfotec.volumeapi.models.ChatRequest;
+import com.cenfotec.volumeapi.models.ChatStreamEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VoiceCommandServiceTests {
+
+    private static final int SAMPLE_RATE = 16_000;
+
+    private final UUID chatId = UUID.randomUUID();
+    private final VolumeService volumeService = mock(VolumeService.class);
+    private final Transcriber transcriber = mock(Transcriber.class);
+    private final AudioBufferPool pool = new AudioBufferPool(DataSize.ofKilobytes(512), 4);
+    private final VoiceCommandService voiceCommandService = new VoiceCommandService(volumeService, transcriber, pool,
+            500, 3, Duration.ofMillis(600), Duration.ofMillis(200));
+    private final List<ChatStreamEvent> events = new CopyOnWriteArrayList<>();
+
+    VoiceCommandServiceTests() {
+        when(transcriber.transcribe(any(), anyInt())).thenReturn("sube la guitarra");
+        when(volumeService.chatStream(any())).thenReturn(Flux.just(ChatStreamEvent.token("Listo")));
+    }
+
+    @Test
+    void finishDeliversTheUtteranceInProgress() {
+        VoiceCommandService.VoiceSession session = voiceCommandService.open(chatId, SAMPLE_RATE, events::add);
+        session.accept(tone(500));
+
+        session.finish();
+
+        verify(volumeService, timeout(1000)).chatStream(new ChatRequest(chatId, "sube la guitarra"));
+        assertThat(pool.inUse()).isZero();
+    }
+
+    @Test
+    void closeDiscardsTheUtteranceInProgress() {
+        VoiceCommandService.VoiceSession session = voiceCommandService.open(chatId, SAMPLE_RATE, events::add);
+        session.accept(tone(500));
+
+        session.close();
+
+        verify(transcriber, never()).transcribe(any(), anyInt());
+        verify(volumeService, never()).chatStream(any());
+        assertThat(pool.inUse()).isZero();
+        assertThat(voiceCommandService.getStats().activeSessions()).isZero();
+    }
+
+    private static ByteBuffer tone(int millis) {
+        ByteBuffer pcm = ByteBuffer.allocate(2 * SAMPLE_RATE * millis / 1000).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; pcm.hasRemaining(); i++) {
+            pcm.putShort((short) (5000 * Math.sin(2 * Math.PI * 220 * i / SAMPLE_RATE)));
+        }
+        return pcm.flip();
+    }
+}